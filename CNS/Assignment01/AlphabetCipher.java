@@ -0,0 +1,656 @@
+import CNS.Common.Alphabet;
+
+import java.util.Arrays;
+
+// Caesar, Vigenere, Hill and Playfair over an arbitrary Alphabet instead of 'A'..'Z'.
+// Every key is compiled against the alphabet's index tables, so per symbol the work
+// is the same as for A-Z: a table lookup for Caesar, an index lookup, add and
+// compare-and-subtract for Vigenere, a block multiply mod size() for Hill, and one
+// digraph-table lookup per pair for Playfair (on a side x side square, size() = side^2).
+//  - Caesar and Vigenere keep chars outside the alphabet in place (Vigenere advances
+//    its key on symbols only), so any text or byte payload can go through as is.
+//  - Hill and Playfair work on symbols only: the String methods drop everything else
+//    (Alphabet.normalize), the buffer methods reject it. Padding and the Playfair
+//    separator use 'X' when the alphabet has it, otherwise its last symbol.
+// Aliases read as their symbol and come out as the symbol. With Alphabet.UPPER and
+// Alphabet.PLAYFAIR the results match CaesarEngine (for shifts >= 0), VigenereKey's
+// buffer methods, HillKey and PlayfairKey on ASCII text.
+public abstract class AlphabetCipher {
+
+    // Playfair digraph tables hold size()^2 pairs; larger squares are refused
+    private static final int MAX_PLAYFAIR_SIDE = 32;
+
+    final Alphabet alphabet;
+
+    AlphabetCipher(Alphabet alphabet) {
+        this.alphabet = alphabet;
+    }
+
+    public static AlphabetCipher caesar(Alphabet alphabet, int shift) {
+        return new Caesar(alphabet, alphabet.reduce(shift));
+    }
+
+    public static AlphabetCipher vigenere(Alphabet alphabet, String key) {
+        return new Vigenere(alphabet, key);
+    }
+
+    public static AlphabetCipher hill(Alphabet alphabet, int[][] keyMatrix) {
+        return new Hill(alphabet, keyMatrix);
+    }
+
+    public static AlphabetCipher playfair(Alphabet alphabet, String key) {
+        return new Playfair(alphabet, key);
+    }
+
+    public Alphabet alphabet() {
+        return alphabet;
+    }
+
+    // Upper bound on the number of chars encrypt writes for len input chars
+    public abstract int maxOutputLength(int len);
+
+    // Returns the number of chars written to out
+    public abstract int encrypt(char[] in, int off, int len, char[] out, int outOff);
+
+    public abstract int decrypt(char[] in, int off, int len, char[] out, int outOff);
+
+    // Byte payloads, read as chars 0..255; the alphabet's symbols must all fit in a byte.
+    // Every cipher here runs its own loop over the bytes, with the same tables.
+    public abstract int encrypt(byte[] in, int off, int len, byte[] out, int outOff);
+
+    public abstract int decrypt(byte[] in, int off, int len, byte[] out, int outOff);
+
+    public String encrypt(String text) {
+        char[] in = prepare(text);
+        char[] out = new char[maxOutputLength(in.length)];
+        return new String(out, 0, encrypt(in, 0, in.length, out, 0));
+    }
+
+    public String decrypt(String text) {
+        char[] in = prepare(text);
+        return new String(in, 0, decrypt(in, 0, in.length, in, 0));
+    }
+
+    // The chars the String methods hand to the buffer methods
+    char[] prepare(String text) {
+        return text.toCharArray();
+    }
+
+    final void requireBytes() {
+        if (!alphabet.isByteAlphabet()) {
+            throw new IllegalArgumentException("Alphabet has symbols that do not fit in a byte.");
+        }
+    }
+
+    final int symbolIndex(char c) {
+        int v = alphabet.indexOf(c);
+        if (v < 0) {
+            throw new IllegalArgumentException("'" + c + "' is not in the alphabet.");
+        }
+        return v;
+    }
+
+    final int symbolIndex(byte b) {
+        return symbolIndex((char) (b & 0xFF));
+    }
+
+    // The pad / separator symbol: 'X' if the alphabet has it, else its last symbol
+    final int fillerIndex() {
+        int x = alphabet.indexOf('X');
+        return x >= 0 ? x : alphabet.size() - 1;
+    }
+
+    // The alphabet's symbol -> index table, indexed by the char itself and covering at
+    // least 0..255, so ASCII text and bytes never take the out-of-range branch
+    static short[] indexTable(Alphabet alphabet) {
+        short[] index = new short[Math.max(alphabet.maxChar() + 1, 256)];
+        for (int c = 0; c < index.length; c++) {
+            index[c] = (short) alphabet.indexOf((char) c);
+        }
+        return index;
+    }
+
+    static char[] symbolTable(Alphabet alphabet) {
+        char[] symbols = new char[alphabet.size()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = alphabet.symbol(i);
+        }
+        return symbols;
+    }
+
+    // Substitution tables indexed by the char (chars past the table pass through), plus
+    // 256-entry byte tables when the symbols fit in a byte
+    static final class Caesar extends AlphabetCipher {
+        private final char[] encrypt;
+        private final char[] decrypt;
+        private final byte[] encryptBytes;
+        private final byte[] decryptBytes;
+
+        Caesar(Alphabet alphabet, int shift) {
+            super(alphabet);
+            short[] index = indexTable(alphabet);
+            encrypt = new char[index.length];
+            decrypt = new char[index.length];
+            int m = alphabet.size();
+            for (int c = 0; c < index.length; c++) {
+                int v = index[c];
+                encrypt[c] = v < 0 ? (char) c : alphabet.symbol(v + shift < m ? v + shift : v + shift - m);
+                decrypt[c] = v < 0 ? (char) c : alphabet.symbol(v >= shift ? v - shift : v - shift + m);
+            }
+            if (alphabet.isByteAlphabet()) {
+                encryptBytes = new byte[256];
+                decryptBytes = new byte[256];
+                for (int b = 0; b < 256; b++) {
+                    encryptBytes[b] = (byte) encrypt[b];
+                    decryptBytes[b] = (byte) decrypt[b];
+                }
+            } else {
+                encryptBytes = null;
+                decryptBytes = null;
+            }
+        }
+
+        @Override
+        public int maxOutputLength(int len) {
+            return len;
+        }
+
+        @Override
+        public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+            return apply(encrypt, in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(char[] in, int off, int len, char[] out, int outOff) {
+            return apply(decrypt, in, off, len, out, outOff);
+        }
+
+        @Override
+        public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            requireBytes();
+            return apply(encryptBytes, in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            requireBytes();
+            return apply(decryptBytes, in, off, len, out, outOff);
+        }
+
+        private static int apply(char[] table, char[] in, int off, int len, char[] out, int outOff) {
+            for (int i = 0; i < len; i++) {
+                char c = in[off + i];
+                out[outOff + i] = c < table.length ? table[c] : c;
+            }
+            return len;
+        }
+
+        private static int apply(byte[] table, byte[] in, int off, int len, byte[] out, int outOff) {
+            for (int i = 0; i < len; i++) {
+                out[outOff + i] = table[in[off + i] & 0xFF];
+            }
+            return len;
+        }
+    }
+
+    // Shifts per key symbol; the key phase advances on symbols of the alphabet only
+    static final class Vigenere extends AlphabetCipher {
+        private final int[] encryptShifts;
+        private final int[] decryptShifts;
+        private final short[] index;  // indexTable(alphabet)
+        private final char[] symbols;
+
+        Vigenere(Alphabet alphabet, String key) {
+            super(alphabet);
+            index = indexTable(alphabet);
+            symbols = symbolTable(alphabet);
+            encryptShifts = alphabet.indices(key);
+            if (encryptShifts.length == 0) {
+                throw new IllegalArgumentException("Vigenere key must contain at least one symbol of the alphabet.");
+            }
+            decryptShifts = new int[encryptShifts.length];
+            for (int i = 0; i < encryptShifts.length; i++) {
+                decryptShifts[i] = encryptShifts[i] == 0 ? 0 : alphabet.size() - encryptShifts[i];
+            }
+        }
+
+        @Override
+        public int maxOutputLength(int len) {
+            return len;
+        }
+
+        @Override
+        public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+            return transform(encryptShifts, in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(char[] in, int off, int len, char[] out, int outOff) {
+            return transform(decryptShifts, in, off, len, out, outOff);
+        }
+
+        @Override
+        public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            requireBytes();
+            return transform(encryptShifts, in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            requireBytes();
+            return transform(decryptShifts, in, off, len, out, outOff);
+        }
+
+        // Branch-free per char apart from the phase wrap: keep is -1 for chars outside the
+        // alphabet (which are copied) and 0 for symbols
+        private int transform(int[] shifts, char[] in, int off, int len, char[] out, int outOff) {
+            short[] idx = index;
+            char[] sym = symbols;
+            int m = sym.length;
+            int period = shifts.length;
+            int phase = 0;
+            for (int i = 0; i < len; i++) {
+                char c = in[off + i];
+                int v = c < idx.length ? idx[c] : -1;
+                int keep = v >> 31;
+                int r = v + shifts[phase];
+                r -= m & ((m - 1 - r) >> 31); // r >= m ? r - m : r
+                char s = sym[r & ~keep];
+                out[outOff + i] = (char) ((s & ~keep) | (c & keep));
+                phase += 1 + keep;
+                if (phase == period) {
+                    phase = 0;
+                }
+            }
+            return len;
+        }
+
+        private int transform(int[] shifts, byte[] in, int off, int len, byte[] out, int outOff) {
+            short[] idx = index;
+            char[] sym = symbols;
+            int m = sym.length;
+            int period = shifts.length;
+            int phase = 0;
+            for (int i = 0; i < len; i++) {
+                byte b = in[off + i];
+                int v = idx[b & 0xFF];
+                int keep = v >> 31;
+                int r = v + shifts[phase];
+                r -= m & ((m - 1 - r) >> 31);
+                int s = sym[r & ~keep];
+                out[outOff + i] = (byte) ((s & ~keep) | (b & keep));
+                phase += 1 + keep;
+                if (phase == period) {
+                    phase = 0;
+                }
+            }
+            return len;
+        }
+    }
+
+    // n x n key mod size(); the inverse comes from row reduction over Z_m, where each
+    // pivot is built with Euclid steps between rows and must end up a unit
+    static final class Hill extends AlphabetCipher {
+        private final int n;
+        private final int[] key;
+        private final int[] inverse; // null when the key is not invertible mod size()
+
+        Hill(Alphabet alphabet, int[][] keyMatrix) {
+            super(alphabet);
+            n = keyMatrix.length;
+            if (n == 0) {
+                throw new IllegalArgumentException("Key matrix must not be empty.");
+            }
+            key = new int[n * n];
+            for (int r = 0; r < n; r++) {
+                if (keyMatrix[r].length != n) {
+                    throw new IllegalArgumentException("Key matrix must be square.");
+                }
+                for (int c = 0; c < n; c++) {
+                    key[r * n + c] = alphabet.reduce(keyMatrix[r][c]);
+                }
+            }
+            inverse = invert(key, n, alphabet);
+        }
+
+        public boolean isInvertible() {
+            return inverse != null;
+        }
+
+        @Override
+        public int maxOutputLength(int len) {
+            return (len + n - 1) / n * n;
+        }
+
+        @Override
+        char[] prepare(String text) {
+            return alphabet.normalize(text);
+        }
+
+        @Override
+        public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+            int full = len / n * n;
+            multiply(key, in, off, full, out, outOff);
+            if (full < len) {
+                char[] last = new char[n];
+                Arrays.fill(last, alphabet.symbol(fillerIndex()));
+                System.arraycopy(in, off + full, last, 0, len - full);
+                multiply(key, last, 0, n, out, outOff + full);
+            }
+            return maxOutputLength(len);
+        }
+
+        @Override
+        public int decrypt(char[] in, int off, int len, char[] out, int outOff) {
+            if (inverse == null) {
+                throw new IllegalArgumentException("Key matrix is not invertible modulo " + alphabet.size() + ". Cannot decrypt.");
+            }
+            if (len % n != 0) {
+                throw new IllegalArgumentException("Ciphertext length must be a multiple of " + n + ".");
+            }
+            multiply(inverse, in, off, len, out, outOff);
+            return len;
+        }
+
+        @Override
+        public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            requireBytes();
+            multiply(key, in, off, len, out, outOff);
+            return maxOutputLength(len);
+        }
+
+        @Override
+        public int decrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            requireBytes();
+            if (inverse == null) {
+                throw new IllegalArgumentException("Key matrix is not invertible modulo " + alphabet.size() + ". Cannot decrypt.");
+            }
+            if (len % n != 0) {
+                throw new IllegalArgumentException("Ciphertext length must be a multiple of " + n + ".");
+            }
+            multiply(inverse, in, off, len, out, outOff);
+            return len;
+        }
+
+        // out block = matrix * in block (mod size()) for every block; works in place
+        private void multiply(int[] matrix, char[] in, int off, int len, char[] out, int outOff) {
+            Alphabet a = alphabet;
+            int m = a.size();
+            int[] v = new int[n];
+            for (int base = 0; base < len; base += n) {
+                for (int k = 0; k < n; k++) {
+                    v[k] = symbolIndex(in[off + base + k]);
+                }
+                for (int r = 0, row = 0; r < n; r++, row += n) {
+                    long sum = 0;
+                    for (int k = 0; k < n; k++) {
+                        sum += (long) matrix[row + k] * v[k];
+                    }
+                    out[outOff + base + r] = a.symbol((int) (sum % m));
+                }
+            }
+        }
+
+        // Same over bytes; a last partial block is padded with the filler symbol
+        private void multiply(int[] matrix, byte[] in, int off, int len, byte[] out, int outOff) {
+            Alphabet a = alphabet;
+            int m = a.size();
+            int filler = fillerIndex();
+            int[] v = new int[n];
+            for (int base = 0; base < len; base += n) {
+                for (int k = 0; k < n; k++) {
+                    v[k] = base + k < len ? symbolIndex(in[off + base + k]) : filler;
+                }
+                for (int r = 0, row = 0; r < n; r++, row += n) {
+                    long sum = 0;
+                    for (int k = 0; k < n; k++) {
+                        sum += (long) matrix[row + k] * v[k];
+                    }
+                    out[outOff + base + r] = (byte) a.symbol((int) (sum % m));
+                }
+            }
+        }
+
+        private static int[] invert(int[] key, int n, Alphabet alphabet) {
+            int m = alphabet.size();
+            int w = 2 * n;
+            long[] aug = new long[n * w];
+            for (int r = 0; r < n; r++) {
+                for (int c = 0; c < n; c++) {
+                    aug[r * w + c] = key[r * n + c];
+                }
+                aug[r * w + n + r] = 1;
+            }
+            for (int col = 0; col < n; col++) {
+                // Euclid between the pivot row and each row below leaves gcd in the pivot
+                for (int r = col + 1; r < n; r++) {
+                    while (aug[r * w + col] != 0) {
+                        long q = aug[col * w + col] / aug[r * w + col];
+                        for (int c = 0; c < w; c++) {
+                            aug[col * w + c] = Math.floorMod(aug[col * w + c] - q * aug[r * w + c], (long) m);
+                        }
+                        for (int c = 0; c < w; c++) {
+                            long t = aug[col * w + c];
+                            aug[col * w + c] = aug[r * w + c];
+                            aug[r * w + c] = t;
+                        }
+                    }
+                }
+                int scale = alphabet.inverse((int) aug[col * w + col]);
+                if (scale < 0) {
+                    return null;
+                }
+                for (int c = 0; c < w; c++) {
+                    aug[col * w + c] = aug[col * w + c] * scale % m;
+                }
+                for (int r = 0; r < n; r++) {
+                    long factor = aug[r * w + col];
+                    if (r == col || factor == 0) {
+                        continue;
+                    }
+                    for (int c = 0; c < w; c++) {
+                        aug[r * w + c] = Math.floorMod(aug[r * w + c] - factor * aug[col * w + c], (long) m);
+                    }
+                }
+            }
+            int[] inv = new int[n * n];
+            for (int r = 0; r < n; r++) {
+                for (int c = 0; c < n; c++) {
+                    inv[r * n + c] = (int) aug[r * w + n + c];
+                }
+            }
+            return inv;
+        }
+    }
+
+    // Playfair on a side x side square of the alphabet's symbols, with full digraph
+    // tables (size()^2 pairs) for both directions
+    static final class Playfair extends AlphabetCipher {
+        private final int side;
+        private final char[] square;
+        private final char[] encryptPairs;
+        private final char[] decryptPairs;
+
+        Playfair(Alphabet alphabet, String key) {
+            super(alphabet);
+            int m = alphabet.size();
+            side = (int) Math.round(Math.sqrt(m));
+            if (side * side != m) {
+                throw new IllegalArgumentException("Playfair needs a square alphabet, not " + m + " symbols.");
+            }
+            if (side > MAX_PLAYFAIR_SIDE) {
+                throw new IllegalArgumentException("Playfair squares are limited to " + MAX_PLAYFAIR_SIDE + " x "
+                        + MAX_PLAYFAIR_SIDE + ".");
+            }
+            square = new char[m];
+            int[] cellOf = new int[m];
+            boolean[] used = new boolean[m];
+            int cell = 0;
+            for (int v : alphabet.indices(key)) {
+                cell = place(v, used, cellOf, cell);
+            }
+            for (int v = 0; v < m; v++) {
+                cell = place(v, used, cellOf, cell);
+            }
+            encryptPairs = new char[m * m * 2];
+            decryptPairs = new char[m * m * 2];
+            for (int a = 0; a < m; a++) {
+                for (int b = 0; b < m; b++) {
+                    int idx = (a * m + b) * 2;
+                    fillPair(cellOf[a], cellOf[b], 1, encryptPairs, idx);
+                    fillPair(cellOf[a], cellOf[b], side - 1, decryptPairs, idx);
+                }
+            }
+        }
+
+        public char[][] matrix() {
+            char[][] matrix = new char[side][side];
+            for (int r = 0; r < side; r++) {
+                System.arraycopy(square, r * side, matrix[r], 0, side);
+            }
+            return matrix;
+        }
+
+        @Override
+        public int maxOutputLength(int len) {
+            return 2 * len;
+        }
+
+        @Override
+        char[] prepare(String text) {
+            return alphabet.normalize(text);
+        }
+
+        // An X (filler) goes after every symbol followed by the same symbol, and one more
+        // at the end when the length is odd, as in PlayfairKey
+        @Override
+        public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+            int m = alphabet.size();
+            int filler = fillerIndex();
+            int o = outOff;
+            int pending = -1;
+            int next = len > 0 ? symbolIndex(in[off]) : -1;
+            for (int i = 0; i < len; i++) {
+                int c = next;
+                next = i + 1 < len ? symbolIndex(in[off + i + 1]) : -1;
+                if (pending >= 0) {
+                    o = emit(pending * m + c, out, o);
+                    pending = -1;
+                } else {
+                    pending = c;
+                }
+                if (c == next) {
+                    if (pending >= 0) {
+                        o = emit(pending * m + filler, out, o);
+                        pending = -1;
+                    } else {
+                        pending = filler;
+                    }
+                }
+            }
+            if (pending >= 0) {
+                o = emit(pending * m + filler, out, o);
+            }
+            return o - outOff;
+        }
+
+        @Override
+        public int decrypt(char[] in, int off, int len, char[] out, int outOff) {
+            if (len % 2 != 0) {
+                throw new IllegalArgumentException("Playfair ciphertext must have an even number of symbols.");
+            }
+            int m = alphabet.size();
+            for (int i = 0; i < len; i += 2) {
+                int idx = (symbolIndex(in[off + i]) * m + symbolIndex(in[off + i + 1])) * 2;
+                out[outOff + i] = decryptPairs[idx];
+                out[outOff + i + 1] = decryptPairs[idx + 1];
+            }
+            return len;
+        }
+
+        @Override
+        public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            requireBytes();
+            int m = alphabet.size();
+            int filler = fillerIndex();
+            int o = outOff;
+            int pending = -1;
+            int next = len > 0 ? symbolIndex(in[off]) : -1;
+            for (int i = 0; i < len; i++) {
+                int c = next;
+                next = i + 1 < len ? symbolIndex(in[off + i + 1]) : -1;
+                if (pending >= 0) {
+                    o = emit(pending * m + c, out, o);
+                    pending = -1;
+                } else {
+                    pending = c;
+                }
+                if (c == next) {
+                    if (pending >= 0) {
+                        o = emit(pending * m + filler, out, o);
+                        pending = -1;
+                    } else {
+                        pending = filler;
+                    }
+                }
+            }
+            if (pending >= 0) {
+                o = emit(pending * m + filler, out, o);
+            }
+            return o - outOff;
+        }
+
+        @Override
+        public int decrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            requireBytes();
+            if (len % 2 != 0) {
+                throw new IllegalArgumentException("Playfair ciphertext must have an even number of symbols.");
+            }
+            int m = alphabet.size();
+            for (int i = 0; i < len; i += 2) {
+                int idx = (symbolIndex(in[off + i]) * m + symbolIndex(in[off + i + 1])) * 2;
+                out[outOff + i] = (byte) decryptPairs[idx];
+                out[outOff + i + 1] = (byte) decryptPairs[idx + 1];
+            }
+            return len;
+        }
+
+        private int emit(int pair, char[] out, int o) {
+            out[o] = encryptPairs[pair * 2];
+            out[o + 1] = encryptPairs[pair * 2 + 1];
+            return o + 2;
+        }
+
+        private int emit(int pair, byte[] out, int o) {
+            out[o] = (byte) encryptPairs[pair * 2];
+            out[o + 1] = (byte) encryptPairs[pair * 2 + 1];
+            return o + 2;
+        }
+
+        private int place(int v, boolean[] used, int[] cellOf, int cell) {
+            if (used[v]) {
+                return cell;
+            }
+            used[v] = true;
+            square[cell] = alphabet.symbol(v);
+            cellOf[v] = cell;
+            return cell + 1;
+        }
+
+        // Playfair rules for one pair of cells; step is +1 to encrypt and side - 1 to decrypt
+        private void fillPair(int cell1, int cell2, int step, char[] table, int idx) {
+            int r1 = cell1 / side, c1 = cell1 % side;
+            int r2 = cell2 / side, c2 = cell2 % side;
+            if (r1 == r2) {
+                table[idx] = square[r1 * side + (c1 + step) % side];
+                table[idx + 1] = square[r2 * side + (c2 + step) % side];
+            } else if (c1 == c2) {
+                table[idx] = square[((r1 + step) % side) * side + c1];
+                table[idx + 1] = square[((r2 + step) % side) * side + c2];
+            } else {
+                table[idx] = square[r1 * side + c2];
+                table[idx + 1] = square[r2 * side + c1];
+            }
+        }
+    }
+}
@@ -0,0 +1,412 @@
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Assignment02.TranspositionKey;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Encrypts or decrypts many small messages in one call.
+// Requests are grouped by (algorithm, key), so each key is compiled once per batch
+// instead of being looked up per message, and each group is cut into chunks that run
+// as tasks on virtual threads when the JDK has them (Java 21+, looked up reflectively)
+// or on a fixed pool of one thread per core otherwise. Messages are copied into
+// char[] scratch buffers and transformed there, so the only allocation per message is
+// its result String. The buffers come from a pool with one set per carrier thread
+// (virtual threads are created per task, so buffers kept per thread would never be
+// reused): a task checks a set out for its chunk and returns it when done; when the
+// pool is empty it uses a fresh set, and a returned set that finds the pool full is
+// dropped. Results come back in request order
+// and are identical to the per-message methods (vigenereEncrypt, RowColumnTransposition
+// .encrypt, ...).
+public final class BatchCipher implements AutoCloseable {
+
+    // Messages per task; batches no larger than this run on the calling thread
+    private static final int CHUNK = 256;
+
+    // One scratch set per thread that can run a task at a time: the virtual thread
+    // scheduler's carriers, or the cores for the fixed pool
+    private static final int SCRATCH_SETS = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+            Runtime.getRuntime().availableProcessors());
+    private static final ArrayBlockingQueue<Scratch> SCRATCH = new ArrayBlockingQueue<>(Math.max(1, SCRATCH_SETS));
+
+    public enum Algorithm { CAESAR, VIGENERE, PLAYFAIR, HILL, RAIL_FENCE, COLUMNAR }
+
+    // One message with its cipher and key
+    public static final class Request {
+        private final Algorithm algorithm;
+        private final Object key; // Integer, String or int[][] depending on the algorithm
+        private final String message;
+
+        private Request(Algorithm algorithm, Object key, String message) {
+            this.algorithm = algorithm;
+            this.key = Objects.requireNonNull(key);
+            this.message = Objects.requireNonNull(message);
+        }
+
+        public static Request caesar(String message, int shift) {
+            return new Request(Algorithm.CAESAR, shift, message);
+        }
+
+        public static Request vigenere(String message, String key) {
+            return new Request(Algorithm.VIGENERE, key, message);
+        }
+
+        public static Request playfair(String message, String key) {
+            return new Request(Algorithm.PLAYFAIR, key, message);
+        }
+
+        public static Request hill(String message, int[][] keyMatrix) {
+            return new Request(Algorithm.HILL, keyMatrix, message);
+        }
+
+        public static Request railFence(String message, int rails) {
+            return new Request(Algorithm.RAIL_FENCE, rails, message);
+        }
+
+        public static Request columnar(String message, String key) {
+            return new Request(Algorithm.COLUMNAR, key, message);
+        }
+
+        public Algorithm algorithm() {
+            return algorithm;
+        }
+
+        public String message() {
+            return message;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final boolean virtualThreads;
+
+    // Uses virtual threads when available, otherwise a fixed pool of daemon threads
+    public BatchCipher() {
+        ExecutorService virtual = virtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), r -> {
+                    Thread t = new Thread(r, "batch-cipher");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.ownsExecutor = true;
+    }
+
+    // Runs on the caller's executor, which close() leaves running
+    public BatchCipher(ExecutorService executor) {
+        this.executor = executor;
+        this.ownsExecutor = false;
+        this.virtualThreads = false;
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public String[] encrypt(Request[] requests) {
+        return run(Arrays.asList(requests), true);
+    }
+
+    public String[] decrypt(Request[] requests) {
+        return run(Arrays.asList(requests), false);
+    }
+
+    public List<String> encrypt(List<Request> requests) {
+        return Arrays.asList(run(requests, true));
+    }
+
+    public List<String> decrypt(List<Request> requests) {
+        return Arrays.asList(run(requests, false));
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private String[] run(List<Request> requests, boolean encrypt) {
+        String[] results = new String[requests.size()];
+        List<Group> groups = group(requests);
+        if (requests.size() <= CHUNK) {
+            for (Group g : groups) {
+                g.process(requests, 0, g.size, results, encrypt);
+            }
+            return results;
+        }
+        List<Future<?>> tasks = new ArrayList<>();
+        for (Group g : groups) {
+            for (int from = 0; from < g.size; from += CHUNK) {
+                int start = from;
+                int end = Math.min(g.size, from + CHUNK);
+                tasks.add(executor.submit(() -> g.process(requests, start, end, results, encrypt)));
+            }
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the batch.", e);
+            }
+        }
+        return results;
+    }
+
+    private static List<Group> group(List<Request> requests) {
+        Map<GroupKey, Group> groups = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Request r = requests.get(i);
+            groups.computeIfAbsent(new GroupKey(r.algorithm, r.key), k -> new Group(r.algorithm, r.key)).add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() on Java 21+, null before that
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Number of scratch sets waiting in the pool
+    static int idleScratch() {
+        return SCRATCH.size();
+    }
+
+    // Requests sharing one compiled key; indices[0, size) point into the request list
+    private static final class Group {
+        private final Algorithm algorithm;
+        private final Object key;
+        private int[] indices = new int[8];
+        private int size;
+        private Object compiled; // Written before the tasks are submitted
+
+        Group(Algorithm algorithm, Object key) {
+            this.algorithm = algorithm;
+            this.key = key;
+        }
+
+        void add(int index) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            indices[size++] = index;
+        }
+
+        void process(List<Request> requests, int from, int to, String[] results, boolean encrypt) {
+            Object k = compiled();
+            Scratch scratch = SCRATCH.poll();
+            if (scratch == null) {
+                scratch = new Scratch();
+            }
+            try {
+                for (int i = from; i < to; i++) {
+                    int index = indices[i];
+                    results[index] = transform(k, requests.get(index).message, scratch, encrypt);
+                }
+            } finally {
+                SCRATCH.offer(scratch);
+            }
+        }
+
+        private synchronized Object compiled() {
+            if (compiled == null) {
+                switch (algorithm) {
+                    case CAESAR: {
+                        int shift = (Integer) key;
+                        compiled = new char[][] {CaesarEngine.encryptTable(shift), CaesarEngine.decryptTable(shift)};
+                        break;
+                    }
+                    case VIGENERE:
+                        compiled = VigenereKey.of((String) key);
+                        break;
+                    case PLAYFAIR:
+                        compiled = PlayfairKey.of((String) key);
+                        break;
+                    case HILL:
+                        compiled = HillKey.of((int[][]) key);
+                        break;
+                    case RAIL_FENCE:
+                        compiled = key;
+                        break;
+                    default:
+                        compiled = TranspositionKey.of((String) key);
+                }
+            }
+            return compiled;
+        }
+
+        private String transform(Object k, String message, Scratch s, boolean encrypt) {
+            int n = message.length();
+            boolean ascii = Letters.isPlainAscii(message);
+            switch (algorithm) {
+                case CAESAR: {
+                    char[][] tables = (char[][]) k;
+                    if (!ascii) {
+                        return encrypt ? CaesarEngine.encrypt(message, (Integer) key) : CaesarEngine.decrypt(message, (Integer) key);
+                    }
+                    char[] a = s.first(n);
+                    message.getChars(0, n, a, 0);
+                    CaesarEngine.apply(tables[encrypt ? 0 : 1], a, 0, n, a, 0);
+                    return new String(a, 0, n);
+                }
+                case VIGENERE: {
+                    VigenereKey vk = (VigenereKey) k;
+                    if (!ascii) {
+                        return encrypt ? vk.encrypt(message) : vk.decrypt(message);
+                    }
+                    char[] a = s.letters(message);
+                    int m = s.count;
+                    if (encrypt) {
+                        vk.encrypt(a, 0, m, a, 0, 0);
+                    } else {
+                        vk.decrypt(a, 0, m, a, 0, 0);
+                    }
+                    return new String(a, 0, m);
+                }
+                case PLAYFAIR: {
+                    PlayfairKey pk = (PlayfairKey) k;
+                    if (!ascii) {
+                        return encrypt ? pk.encrypt(message) : pk.decrypt(message);
+                    }
+                    char[] a = s.letters(message);
+                    int m = s.count;
+                    if (!encrypt) {
+                        return new String(a, 0, pk.decrypt(a, 0, m, a, 0));
+                    }
+                    char[] b = s.second(PlayfairKey.maxEncryptedLength(m));
+                    return new String(b, 0, pk.encrypt(a, 0, m, b, 0));
+                }
+                case HILL: {
+                    HillKey hk = (HillKey) k;
+                    if (!ascii) {
+                        return encrypt ? hk.encrypt(message) : hk.decrypt(message);
+                    }
+                    char[] a = s.letters(message);
+                    int m = s.count;
+                    if (!encrypt) {
+                        hk.decrypt(a, 0, m, a, 0);
+                        return new String(a, 0, m);
+                    }
+                    char[] b = s.second(hk.paddedLength(m));
+                    return new String(b, 0, hk.encrypt(a, 0, m, b, 0));
+                }
+                case RAIL_FENCE: {
+                    int rails = (Integer) k;
+                    char[] a = s.first(n);
+                    char[] b = s.second(n);
+                    message.getChars(0, n, a, 0);
+                    if (encrypt) {
+                        RailFenceCipher.encrypt(a, 0, n, b, 0, rails);
+                    } else {
+                        RailFenceCipher.decrypt(a, 0, n, b, 0, rails);
+                    }
+                    return new String(b, 0, n);
+                }
+                default: {
+                    TranspositionKey tk = (TranspositionKey) k;
+                    char[] a = s.first(n);
+                    if (!encrypt) {
+                        message.getChars(0, n, a, 0);
+                        char[] b = s.second(n);
+                        tk.decrypt(a, 0, n, b, 0, n);
+                        return new String(b, 0, tk.unpaddedLength(b, 0, n));
+                    }
+                    int m = 0;
+                    for (int i = 0; i < n; i++) { // Spaces are dropped, as in RowColumnTransposition
+                        char c = message.charAt(i);
+                        if (c != ' ') {
+                            a[m++] = c;
+                        }
+                    }
+                    char[] b = s.second(tk.paddedLength(m));
+                    return new String(b, 0, tk.encrypt(a, 0, m, b, 0));
+                }
+            }
+        }
+    }
+
+    // Two growable buffers, used by one task at a time
+    private static final class Scratch {
+        private char[] first = new char[256];
+        private char[] second = new char[512];
+        private int count;
+
+        char[] first(int n) {
+            if (first.length < n) {
+                first = new char[Math.max(n, first.length * 2)];
+            }
+            return first;
+        }
+
+        char[] second(int n) {
+            if (second.length < n) {
+                second = new char[Math.max(n, second.length * 2)];
+            }
+            return second;
+        }
+
+        // The ASCII letters of text, upper-cased, in first(); count is set to how many
+        char[] letters(String text) {
+            int n = text.length();
+            char[] a = first(n);
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                int v = (text.charAt(i) | 0x20) - 'a';
+                if (v >= 0 && v < 26) {
+                    a[m++] = (char) ('A' + v);
+                }
+            }
+            count = m;
+            return a;
+        }
+    }
+
+    private static final class GroupKey {
+        private final Algorithm algorithm;
+        private final Object key;
+
+        GroupKey(Algorithm algorithm, Object key) {
+            this.algorithm = algorithm;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey other = (GroupKey) o;
+            return algorithm == other.algorithm && Objects.deepEquals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return algorithm.hashCode() * 31 + Arrays.deepHashCode(new Object[] {key});
+        }
+    }
+}
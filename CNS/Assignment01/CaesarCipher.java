@@ -3,32 +3,10 @@ import java.util.*;
 public class CaesarCipher {
 
     public static String encrypt(String plaintext, int shift) {
-        StringBuilder result = new StringBuilder();
-        plaintext = plaintext.toUpperCase();
-        shift = shift % 26;
-        for (char c : plaintext.toCharArray()) {
-            if (c >= 'A' && c <= 'Z') {
-                char encryptedChar = (char) (((c - 'A' + shift) % 26) + 'A');
-                result.append(encryptedChar);
-            } else {
-                result.append(c);
-            }
-        }
-        return result.toString();
+        return CaesarEngine.encrypt(plaintext, shift);
     }
     public static String decrypt(String ciphertext, int shift) {
-        StringBuilder result = new StringBuilder();
-        ciphertext = ciphertext.toUpperCase();
-        shift = shift % 26;
-        for (char c : ciphertext.toCharArray()) {
-            if (c >= 'A' && c <= 'Z') {
-                char decryptedChar = (char) (((c - 'A' - shift + 26) % 26) + 'A');
-                result.append(decryptedChar);
-            } else {
-                result.append(c);
-            }
-        }
-        return result.toString();
+        return CaesarEngine.decrypt(ciphertext, shift);
     }
     public static void main(String[] args) {
         String text = "HELLO WORLD";
@@ -0,0 +1,156 @@
+import CNS.Common.EnglishStats;
+import CNS.Common.WordIndex;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Recovers the shift of a Caesar ciphertext without trying 26 decryptions.
+// One pass builds a 26-bin letter histogram; every candidate shift is then scored by
+// reading that histogram rotated by the shift against English letter frequencies
+// (chi-squared), so the cost per shift is 26 operations however long the text is.
+// Only the winning shift is decoded.
+public final class CaesarCracker {
+
+    // Messages per parallel task in crackAll; each task reuses one histogram
+    private static final int BATCH_CHUNK = 4096;
+
+    private CaesarCracker() {
+    }
+
+    // Ranked result of cracking one ciphertext
+    public static final class Result {
+        private final int[] shifts;     // best first
+        private final double[] scores;  // chi-squared per entry of shifts
+        private final String ciphertext;
+
+        Result(int[] shifts, double[] scores, String ciphertext) {
+            this.shifts = shifts;
+            this.scores = scores;
+            this.ciphertext = ciphertext;
+        }
+
+        public int bestShift() {
+            return shifts[0];
+        }
+
+        public int[] rankedShifts() {
+            return shifts.clone();
+        }
+
+        public double[] scores() {
+            return scores.clone();
+        }
+
+        // Decrypts with the best shift (the only full decode the cracker does)
+        public String plaintext() {
+            return CaesarEngine.decrypt(ciphertext, shifts[0]);
+        }
+    }
+
+    public static Result crack(String ciphertext) {
+        int[] histogram = new int[26];
+        int total = histogram(ciphertext, histogram);
+        double[] byShift = new double[26];
+        for (int s = 0; s < 26; s++) {
+            byShift[s] = EnglishStats.chiSquared(histogram, total, s);
+        }
+        // Insertion sort of the 26 shifts by score
+        int[] shifts = new int[26];
+        double[] scores = new double[26];
+        for (int s = 0; s < 26; s++) {
+            int j = s;
+            while (j > 0 && scores[j - 1] > byShift[s]) {
+                shifts[j] = shifts[j - 1];
+                scores[j] = scores[j - 1];
+                j--;
+            }
+            shifts[j] = s;
+            scores[j] = byShift[s];
+        }
+        return new Result(shifts, scores, ciphertext);
+    }
+
+    public static int bestShift(String ciphertext) {
+        return bestShift(ciphertext, new int[26]);
+    }
+
+    public static int bestShift(byte[] ciphertext, int off, int len) {
+        int[] histogram = new int[26];
+        int total = 0;
+        for (int i = 0; i < len; i++) {
+            total += count(histogram, (char) (ciphertext[off + i] & 0xFF));
+        }
+        return best(histogram, total);
+    }
+
+    // Brute force checked against a dictionary: the shifts whose decryption looks like
+    // words, best word coverage first (empty if none does)
+    public static int[] bruteForce(String ciphertext, WordIndex words) {
+        char[] in = ciphertext.toCharArray();
+        return words.rank(26, in.length, (shift, out) -> {
+            CaesarEngine.decrypt(in, 0, in.length, out, 0, shift);
+            return in.length;
+        });
+    }
+
+    // Best shift for every ciphertext, computed in parallel with one scratch histogram per task
+    public static int[] crackAll(String[] ciphertexts) {
+        int[] best = new int[ciphertexts.length];
+        int chunks = (ciphertexts.length + BATCH_CHUNK - 1) / BATCH_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] histogram = new int[26];
+            int end = Math.min(ciphertexts.length, (c + 1) * BATCH_CHUNK);
+            for (int i = c * BATCH_CHUNK; i < end; i++) {
+                best[i] = bestShift(ciphertexts[i], histogram);
+            }
+        });
+        return best;
+    }
+
+    // Like crackAll, but also decodes each ciphertext with its winning shift
+    public static String[] decryptAll(String[] ciphertexts) {
+        int[] best = crackAll(ciphertexts);
+        String[] plaintexts = new String[ciphertexts.length];
+        IntStream.range(0, ciphertexts.length).parallel()
+                .forEach(i -> plaintexts[i] = CaesarEngine.decrypt(ciphertexts[i], best[i]));
+        return plaintexts;
+    }
+
+    // Reuses the caller's histogram array
+    private static int bestShift(String ciphertext, int[] histogram) {
+        Arrays.fill(histogram, 0);
+        return best(histogram, histogram(ciphertext, histogram));
+    }
+
+    // Adds the letters of text to histogram; returns how many letters there were
+    private static int histogram(String text, int[] histogram) {
+        int total = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            total += count(histogram, text.charAt(i));
+        }
+        return total;
+    }
+
+    private static int best(int[] histogram, int total) {
+        int best = 0;
+        double bestScore = Double.MAX_VALUE;
+        for (int s = 0; s < 26; s++) {
+            double score = EnglishStats.chiSquared(histogram, total, s);
+            if (score < bestScore) {
+                bestScore = score;
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    // Counts c if it is an ASCII letter (either case); returns 1 if counted
+    private static int count(int[] histogram, char c) {
+        int v = (c | 0x20) - 'a';
+        if (v >= 0 && v < 26) {
+            histogram[v]++;
+            return 1;
+        }
+        return 0;
+    }
+}
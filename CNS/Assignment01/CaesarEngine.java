@@ -0,0 +1,200 @@
+import CNS.Common.CipherMetrics;
+
+// Table-driven Caesar engine working directly on byte[] / char[] buffers.
+// Every (direction, shift) pair gets a precomputed 256-entry substitution table,
+// so a call is one table lookup per character and allocates nothing. Buffers of
+// LetterKernel.MIN_LENGTH chars or more go through the SIMD kernel instead when
+// LetterKernel.VECTOR is available.
+// CaesarCipher and SimplifiedCiphers delegate their String methods to this class.
+public final class CaesarEngine {
+
+    private static final int TABLE_SIZE = 256;
+
+    // Indexed by (shift % 26) + 25, so shifts -25..25 each get their own table.
+    // The tables reproduce the String methods exactly, including what they do for
+    // negative shifts on encrypt.
+    private static final char[][] ENCRYPT_TABLES = new char[51][];
+    private static final char[][] DECRYPT_TABLES = new char[51][];
+
+    private static final CipherMetrics.Operation ENCRYPT_METRICS = CipherMetrics.operation("caesar", "encrypt");
+    private static final CipherMetrics.Operation DECRYPT_METRICS = CipherMetrics.operation("caesar", "decrypt");
+
+    static {
+        for (int s = -25; s <= 25; s++) {
+            char[] enc = new char[TABLE_SIZE];
+            char[] dec = new char[TABLE_SIZE];
+            for (int c = 0; c < TABLE_SIZE; c++) {
+                enc[c] = (char) c;
+                dec[c] = (char) c;
+            }
+            for (int c = 'A'; c <= 'Z'; c++) {
+                enc[c] = (char) (((c - 'A' + s) % 26) + 'A');
+                dec[c] = (char) (((c - 'A' - s + 26) % 26) + 'A');
+                // ASCII lowercase is folded to uppercase, same as toUpperCase()
+                enc[c + ('a' - 'A')] = enc[c];
+                dec[c + ('a' - 'A')] = dec[c];
+            }
+            ENCRYPT_TABLES[s + 25] = enc;
+            DECRYPT_TABLES[s + 25] = dec;
+        }
+    }
+
+    private CaesarEngine() {
+    }
+
+    // Returns the shared (read-only) substitution table for encrypting with this shift
+    public static char[] encryptTable(int shift) {
+        return ENCRYPT_TABLES[shift % 26 + 25];
+    }
+
+    // Returns the shared (read-only) substitution table for decrypting with this shift
+    public static char[] decryptTable(int shift) {
+        return DECRYPT_TABLES[shift % 26 + 25];
+    }
+
+    // --- byte[] API (ASCII / Latin-1 bytes; bytes >= 0x80 pass through untouched) ---
+
+    public static void encrypt(byte[] buf, int off, int len, int shift) {
+        shift(encryptTable(shift), encryptAdd(shift), buf, off, len, buf, off);
+    }
+
+    public static void encrypt(byte[] in, int off, int len, byte[] out, int outOff, int shift) {
+        shift(encryptTable(shift), encryptAdd(shift), in, off, len, out, outOff);
+    }
+
+    public static void decrypt(byte[] buf, int off, int len, int shift) {
+        shift(decryptTable(shift), decryptAdd(shift), buf, off, len, buf, off);
+    }
+
+    public static void decrypt(byte[] in, int off, int len, byte[] out, int outOff, int shift) {
+        shift(decryptTable(shift), decryptAdd(shift), in, off, len, out, outOff);
+    }
+
+    // --- char[] API (chars >= 256 pass through untouched) ---
+
+    public static void encrypt(char[] buf, int off, int len, int shift) {
+        shift(encryptTable(shift), encryptAdd(shift), buf, off, len, buf, off);
+    }
+
+    public static void encrypt(char[] in, int off, int len, char[] out, int outOff, int shift) {
+        shift(encryptTable(shift), encryptAdd(shift), in, off, len, out, outOff);
+    }
+
+    public static void decrypt(char[] buf, int off, int len, int shift) {
+        shift(decryptTable(shift), decryptAdd(shift), buf, off, len, buf, off);
+    }
+
+    public static void decrypt(char[] in, int off, int len, char[] out, int outOff, int shift) {
+        shift(decryptTable(shift), decryptAdd(shift), in, off, len, out, outOff);
+    }
+
+    // --- String API, same results as the original StringBuilder loops ---
+
+    public static String encrypt(String text, int shift) {
+        long start = ENCRYPT_METRICS.start();
+        String result = apply(encryptTable(shift), encryptAdd(shift), text);
+        ENCRYPT_METRICS.stop(start, text.length());
+        return result;
+    }
+
+    public static String decrypt(String text, int shift) {
+        long start = DECRYPT_METRICS.start();
+        String result = apply(decryptTable(shift), decryptAdd(shift), text);
+        DECRYPT_METRICS.stop(start, text.length());
+        return result;
+    }
+
+    // Runs a substitution table over a byte range; in and out may be the same array
+    public static void apply(char[] table, byte[] in, int off, int len, byte[] out, int outOff) {
+        checkRange(in.length, off, len);
+        checkRange(out.length, outOff, len);
+        for (int i = 0; i < len; i++) {
+            out[outOff + i] = (byte) table[in[off + i] & 0xFF];
+        }
+    }
+
+    // Runs a substitution table over a char range; in and out may be the same array
+    public static void apply(char[] table, char[] in, int off, int len, char[] out, int outOff) {
+        checkRange(in.length, off, len);
+        checkRange(out.length, outOff, len);
+        for (int i = 0; i < len; i++) {
+            char c = in[off + i];
+            out[outOff + i] = c < TABLE_SIZE ? table[c] : c;
+        }
+    }
+
+    // What the tables add to a letter index, for LetterKernel: encrypting with a negative
+    // shift does not wrap (as the tables), decrypting always lands in 0..25
+    private static int encryptAdd(int shift) {
+        return shift % 26;
+    }
+
+    private static int decryptAdd(int shift) {
+        return Math.floorMod(-(shift % 26), 26);
+    }
+
+    // Large buffers go through the SIMD kernel when there is one; same output as the table
+    private static void shift(char[] table, int add, byte[] in, int off, int len, byte[] out, int outOff) {
+        LetterKernel kernel = LetterKernel.VECTOR;
+        if (kernel == null || len < LetterKernel.MIN_LENGTH) {
+            apply(table, in, off, len, out, outOff);
+            return;
+        }
+        checkRange(in.length, off, len);
+        checkRange(out.length, outOff, len);
+        kernel.caesar(in, off, len, out, outOff, add);
+    }
+
+    private static void shift(char[] table, int add, char[] in, int off, int len, char[] out, int outOff) {
+        LetterKernel kernel = LetterKernel.VECTOR;
+        if (kernel == null || len < LetterKernel.MIN_LENGTH) {
+            apply(table, in, off, len, out, outOff);
+            return;
+        }
+        checkRange(in.length, off, len);
+        checkRange(out.length, outOff, len);
+        kernel.caesar(in, off, len, out, outOff, add);
+    }
+
+    private static String apply(char[] table, int add, String text) {
+        int n = text.length();
+        char[] buf = new char[n];
+        text.getChars(0, n, buf, 0);
+        LetterKernel kernel = LetterKernel.VECTOR;
+        if (kernel != null && n >= LetterKernel.MIN_LENGTH && Letters.asciiCaseMappingIsPlain()) {
+            // The kernel reports non-ASCII input after the fact; that text is redone below
+            if (kernel.caesar(buf, 0, n, buf, 0, add)) {
+                return new String(buf);
+            }
+            return applyUpperCased(table, text);
+        }
+        if (Letters.asciiCaseMappingIsPlain()) {
+            for (int i = 0; i < n; i++) {
+                char c = buf[i];
+                if (c >= 0x80) {
+                    // Non-ASCII needs full Unicode upper-casing (which can change the length)
+                    return applyUpperCased(table, text);
+                }
+                buf[i] = table[c];
+            }
+            return new String(buf);
+        }
+        return applyUpperCased(table, text);
+    }
+
+    private static String applyUpperCased(char[] table, String text) {
+        String upper = text.toUpperCase();
+        int n = upper.length();
+        char[] buf = new char[n];
+        upper.getChars(0, n, buf, 0);
+        apply(table, buf, 0, n, buf, 0);
+        return new String(buf);
+    }
+
+    private static void checkRange(int arrayLength, int off, int len) {
+        if (off < 0 || len < 0 || off > arrayLength - len) {
+            throw new IndexOutOfBoundsException(
+                    "Range [" + off + ", " + off + " + " + len + ") out of bounds for length " + arrayLength);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+// Common interface over the classical ciphers, working on buffers of normalized letters
+// ('A'..'Z'). Normalization happens once, where text enters (the String methods, or
+// normalize() for raw buffers), so ciphers and pipelines never re-scan or re-case it.
+//
+// Cipher.pipeline(...) chains ciphers into one: adjacent substitution stages (Caesar,
+// Vigenere) are fused into a single periodic lookup table and adjacent transposition
+// stages (rail fence, columnar) into a single permutation, so a chain of N such stages
+// costs about one pass over the data. Hill and Playfair run as stages of their own.
+//
+// Unlike CaesarCipher / vigenereEncrypt, which keep spaces and punctuation, every
+// Cipher sees letters only. Negative Caesar shifts are taken mod 26.
+public interface Cipher {
+
+    // Length of the output for len input letters, or -1 when it depends on the letters
+    // themselves (Playfair inserts an 'X' between doubled letters)
+    int outputLength(int len);
+
+    // Upper bound on the output length for len input letters
+    int maxOutputLength(int len);
+
+    // Encrypts normalized letters into out; returns the number of chars written.
+    // The in and out ranges must not overlap (transpositions read the input after writing).
+    int encrypt(char[] in, int off, int len, char[] out, int outOff);
+
+    // Decrypts normalized letters into out (not overlapping in); returns the number of
+    // chars written. plaintextLength is the length that was encrypted, or -1 if unknown,
+    // in which case padding added by encrypt is kept (as hillDecrypt and playfairDecrypt do).
+    int decrypt(char[] in, int off, int len, char[] out, int outOff, int plaintextLength);
+
+    default String encrypt(String text) {
+        char[] letters = Letters.upperLetters(text);
+        char[] out = new char[maxOutputLength(letters.length)];
+        int n = encrypt(letters, 0, letters.length, out, 0);
+        return new String(out, 0, n);
+    }
+
+    default String decrypt(String text) {
+        return decrypt(text, -1);
+    }
+
+    default String decrypt(String text, int plaintextLength) {
+        char[] letters = Letters.upperLetters(text);
+        char[] out = new char[letters.length];
+        int n = decrypt(letters, 0, letters.length, out, 0, plaintextLength);
+        return new String(out, 0, n);
+    }
+
+    // Same over ASCII byte buffers: in must hold normalized letters; out receives ASCII
+    // letters. Every cipher runs its own byte loop, with no copy through char[].
+    int encrypt(byte[] in, int off, int len, byte[] out, int outOff);
+
+    int decrypt(byte[] in, int off, int len, byte[] out, int outOff, int plaintextLength);
+
+    // --- Normalization (the one pass at the entry of a pipeline) ---
+
+    // Copies the ASCII letters of in, upper-cased, into out; returns how many were copied
+    static int normalize(char[] in, int off, int len, char[] out, int outOff) {
+        int o = outOff;
+        for (int i = off, end = off + len; i < end; i++) {
+            int v = (in[i] | 0x20) - 'a';
+            if (v >= 0 && v < 26) {
+                out[o++] = (char) ('A' + v);
+            }
+        }
+        return o - outOff;
+    }
+
+    static int normalize(byte[] in, int off, int len, byte[] out, int outOff) {
+        int o = outOff;
+        for (int i = off, end = off + len; i < end; i++) {
+            int v = (in[i] | 0x20) - 'a';
+            if (v >= 0 && v < 26) {
+                out[o++] = (byte) ('A' + v);
+            }
+        }
+        return o - outOff;
+    }
+
+    // --- Factories ---
+
+    static Cipher caesar(int shift) {
+        return CipherPipeline.Substitution.caesar(shift);
+    }
+
+    static Cipher vigenere(String key) {
+        return CipherPipeline.Substitution.vigenere(VigenereKey.of(key));
+    }
+
+    static Cipher playfair(String key) {
+        return new CipherPipeline.Playfair(PlayfairKey.of(key));
+    }
+
+    static Cipher hill(int[][] keyMatrix) {
+        return new CipherPipeline.Hill(HillKey.of(keyMatrix));
+    }
+
+    static Cipher railFence(int key) {
+        return CipherPipeline.Transposition.railFence(key);
+    }
+
+    static Cipher columnar(String key) {
+        return CipherPipeline.Transposition.columnar(key);
+    }
+
+    // Runs the stages in order when encrypting (and in reverse when decrypting), with
+    // adjacent substitution and transposition stages fused
+    static Cipher pipeline(Cipher... stages) {
+        return CipherPipeline.of(stages);
+    }
+}
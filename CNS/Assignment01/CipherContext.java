@@ -0,0 +1,230 @@
+import java.util.Arrays;
+
+// Stateful, incremental cipher in the style of javax.crypto.Cipher: feed any number of
+// chunks through update(in, out) and finish with doFinal(out). State that spans chunk
+// boundaries (the Vigenere key phase, Playfair's pending half-digraph and the letter
+// waiting to see whether the next one doubles it) is kept in the context, so the
+// output is the same however the input is split and memory use does not grow with
+// the input. Works on ASCII bytes; see CipherContextInputStream/OutputStream for streams.
+//
+// Output matches the String methods: caesarEncrypt keeps non-letters, while the
+// Vigenere and Playfair contexts drop everything but letters, like vigenereEncrypt
+// and playfairEncrypt. A context is not thread-safe; use one per stream.
+public abstract class CipherContext {
+
+    public enum Mode {
+        ENCRYPT, DECRYPT
+    }
+
+    protected final Mode mode;
+
+    protected CipherContext(Mode mode) {
+        this.mode = mode;
+    }
+
+    public static CipherContext caesar(Mode mode, int shift) {
+        return new Caesar(mode, shift);
+    }
+
+    public static CipherContext vigenere(Mode mode, String key) {
+        return new Vigenere(mode, VigenereKey.of(key));
+    }
+
+    public static CipherContext playfair(Mode mode, String key) {
+        return new Playfair(mode, PlayfairKey.of(key));
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    // Largest number of bytes update() followed by doFinal() can write for inputLen more bytes
+    public abstract int getOutputSize(int inputLen);
+
+    // Processes in[off, off + len) and returns the number of bytes written to out
+    public abstract int update(byte[] in, int off, int len, byte[] out, int outOff);
+
+    // Flushes any carried state, returns the number of bytes written and resets the context
+    public abstract int doFinal(byte[] out, int outOff);
+
+    // Forgets any carried state so the context can start a new message
+    public abstract void reset();
+
+    public byte[] doFinal(byte[] in) {
+        byte[] out = new byte[getOutputSize(in.length)];
+        int n = update(in, 0, in.length, out, 0);
+        n += doFinal(out, n);
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    // Folds ASCII a-z to upper case; returns -1 for anything that is not a letter
+    static int letterIndex(byte b) {
+        int v = (b | 0x20) - 'a';
+        return v >= 0 && v < 26 ? v : -1;
+    }
+
+    private static final class Caesar extends CipherContext {
+        private final char[] table;
+
+        Caesar(Mode mode, int shift) {
+            super(mode);
+            table = mode == Mode.ENCRYPT ? CaesarEngine.encryptTable(shift) : CaesarEngine.decryptTable(shift);
+        }
+
+        @Override
+        public int getOutputSize(int inputLen) {
+            return inputLen;
+        }
+
+        @Override
+        public int update(byte[] in, int off, int len, byte[] out, int outOff) {
+            CaesarEngine.apply(table, in, off, len, out, outOff);
+            return len;
+        }
+
+        @Override
+        public int doFinal(byte[] out, int outOff) {
+            return 0;
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+
+    private static final class Vigenere extends CipherContext {
+        private final VigenereKey key;
+        private final int sign;
+        private int phase;
+
+        Vigenere(Mode mode, VigenereKey key) {
+            super(mode);
+            this.key = key;
+            this.sign = mode == Mode.ENCRYPT ? 1 : -1;
+        }
+
+        @Override
+        public int getOutputSize(int inputLen) {
+            return inputLen;
+        }
+
+        @Override
+        public int update(byte[] in, int off, int len, byte[] out, int outOff) {
+            int period = key.period();
+            int o = outOff;
+            for (int i = 0; i < len; i++) {
+                int v = letterIndex(in[off + i]);
+                if (v < 0) {
+                    continue; // Only alphabet, as in vigenereEncrypt
+                }
+                int r = v + sign * key.shiftAt(phase);
+                if (r >= 26) {
+                    r -= 26;
+                } else if (r < 0) {
+                    r += 26;
+                }
+                out[o++] = (byte) ('A' + r);
+                if (++phase == period) {
+                    phase = 0;
+                }
+            }
+            return o - outOff;
+        }
+
+        @Override
+        public int doFinal(byte[] out, int outOff) {
+            reset();
+            return 0;
+        }
+
+        @Override
+        public void reset() {
+            phase = 0;
+        }
+    }
+
+    private static final class Playfair extends CipherContext {
+        private static final char NONE = 0;
+
+        private final PlayfairKey key;
+        private final char[] pair = new char[2];
+        private char half = NONE;     // First letter of a digraph still waiting for its partner
+        private char previous = NONE; // Encrypt only: last letter, held until we know if the next one repeats it
+
+        Playfair(Mode mode, PlayfairKey key) {
+            super(mode);
+            this.key = key;
+        }
+
+        @Override
+        public int getOutputSize(int inputLen) {
+            // Every letter can bring an inserted 'X'; the held letter and final padding add two more
+            return mode == Mode.ENCRYPT ? 2 * inputLen + 4 : inputLen + 2;
+        }
+
+        @Override
+        public int update(byte[] in, int off, int len, byte[] out, int outOff) {
+            int o = outOff;
+            for (int i = 0; i < len; i++) {
+                int v = letterIndex(in[off + i]);
+                if (v < 0) {
+                    continue;
+                }
+                char c = v == 'J' - 'A' ? 'I' : (char) ('A' + v);
+                if (mode == Mode.DECRYPT) {
+                    o = push(c, out, o);
+                    continue;
+                }
+                if (previous != NONE) {
+                    o = push(previous, out, o);
+                    if (previous == c) {
+                        o = push('X', out, o);
+                    }
+                }
+                previous = c;
+            }
+            return o - outOff;
+        }
+
+        @Override
+        public int doFinal(byte[] out, int outOff) {
+            int o = outOff;
+            if (mode == Mode.ENCRYPT) {
+                if (previous != NONE) {
+                    o = push(previous, out, o);
+                }
+                if (half != NONE) {
+                    o = push('X', out, o); // Pad an odd-length message
+                }
+            } else if (half != NONE) {
+                reset();
+                throw new IllegalArgumentException("Playfair ciphertext must have an even number of letters.");
+            }
+            reset();
+            return o - outOff;
+        }
+
+        @Override
+        public void reset() {
+            half = NONE;
+            previous = NONE;
+        }
+
+        // Adds one prepared letter; writes the digraph once both halves are known
+        private int push(char c, byte[] out, int o) {
+            if (half == NONE) {
+                half = c;
+                return o;
+            }
+            if (mode == Mode.ENCRYPT) {
+                key.encryptPair(half, c, pair, 0);
+            } else {
+                key.decryptPair(half, c, pair, 0);
+            }
+            half = NONE;
+            out[o] = (byte) pair[0];
+            out[o + 1] = (byte) pair[1];
+            return o + 2;
+        }
+    }
+}
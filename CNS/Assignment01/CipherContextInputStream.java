@@ -0,0 +1,84 @@
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// InputStream that returns the bytes of the underlying stream run through a CipherContext.
+// doFinal() is called once the underlying stream reaches end of file.
+public class CipherContextInputStream extends FilterInputStream {
+
+    private static final int CHUNK = 8192;
+
+    private final CipherContext context;
+    private final byte[] raw = new byte[CHUNK];
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+    private boolean finished;
+
+    public CipherContextInputStream(InputStream in, CipherContext context) {
+        super(in);
+        this.context = context;
+        this.buffer = new byte[context.getOutputSize(CHUNK)];
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, limit - pos);
+        System.arraycopy(buffer, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int step = (int) Math.min(n - skipped, limit - pos);
+            pos += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return limit - pos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    // Makes sure there is output to hand out; false at the end of the stream
+    private boolean fill() throws IOException {
+        while (pos == limit) {
+            if (finished) {
+                return false;
+            }
+            pos = 0;
+            int n = in.read(raw, 0, CHUNK);
+            if (n == -1) {
+                finished = true;
+                limit = context.doFinal(buffer, 0);
+            } else {
+                limit = context.update(raw, 0, n, buffer, 0);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// OutputStream that runs everything written to it through a CipherContext.
+// close() calls doFinal(), so a Playfair message is padded and flushed only then.
+public class CipherContextOutputStream extends FilterOutputStream {
+
+    private static final int CHUNK = 8192;
+
+    private final CipherContext context;
+    private final byte[] buffer;
+    private final byte[] single = new byte[1];
+    private boolean closed;
+
+    public CipherContextOutputStream(OutputStream out, CipherContext context) {
+        super(out);
+        this.context = context;
+        this.buffer = new byte[context.getOutputSize(CHUNK)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, CHUNK);
+            out.write(buffer, 0, context.update(b, off, n, buffer, 0));
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.write(buffer, 0, context.doFinal(buffer, 0));
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,460 @@
+import CNS.Assignment02.ProductTransposition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A chain of Cipher stages, built by Cipher.pipeline(...).
+// Adjacent stages are fused when the chain is built:
+//  - substitutions: a Caesar shift is a one-row table and a Vigenere key a table with
+//    one row per key letter; two tables compose into one whose period is the lcm of
+//    theirs (row p maps c to second[p][first[p][c]]), as long as that stays small;
+//  - transpositions: the round lists are concatenated into one ProductTransposition,
+//    which composes them into a single cached permutation per message length.
+// Encrypting then runs each fused stage once. The last stage writes into out and the
+// ones before it alternate between one scratch buffer and out itself (working
+// backwards from the last, so adjacent stages never share a buffer); only when out is
+// too small to hold an intermediate result do three or more stages take a second one.
+final class CipherPipeline implements Cipher {
+
+    // Fused substitution tables are period * 26 chars; longer periods are not fused
+    private static final int MAX_FUSED_PERIOD = 1 << 12;
+
+    private final List<Cipher> stages;
+
+    private CipherPipeline(List<Cipher> stages) {
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    static Cipher of(Cipher... stages) {
+        if (stages.length == 0) {
+            throw new IllegalArgumentException("A pipeline needs at least one stage.");
+        }
+        List<Cipher> fused = new ArrayList<>();
+        for (Cipher stage : stages) {
+            if (stage instanceof CipherPipeline) {
+                for (Cipher inner : ((CipherPipeline) stage).stages) {
+                    append(fused, inner);
+                }
+            } else {
+                append(fused, stage);
+            }
+        }
+        return fused.size() == 1 ? fused.get(0) : new CipherPipeline(fused);
+    }
+
+    private static void append(List<Cipher> fused, Cipher stage) {
+        int last = fused.size() - 1;
+        Cipher previous = last >= 0 ? fused.get(last) : null;
+        Cipher combined = null;
+        if (previous instanceof Substitution && stage instanceof Substitution) {
+            combined = ((Substitution) previous).then((Substitution) stage);
+        } else if (previous instanceof Transposition && stage instanceof Transposition) {
+            combined = ((Transposition) previous).then((Transposition) stage);
+        }
+        if (combined != null) {
+            fused.set(last, combined);
+        } else {
+            fused.add(stage);
+        }
+    }
+
+    // The stages left after fusion
+    List<Cipher> stages() {
+        return stages;
+    }
+
+    @Override
+    public int outputLength(int len) {
+        for (Cipher stage : stages) {
+            if (len < 0) {
+                return -1;
+            }
+            len = stage.outputLength(len);
+        }
+        return len;
+    }
+
+    @Override
+    public int maxOutputLength(int len) {
+        for (Cipher stage : stages) {
+            len = stage.maxOutputLength(len);
+        }
+        return len;
+    }
+
+    @Override
+    public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+        int capacity = encryptCapacity(len);
+        int size = stages.size();
+        char[] scratch = new char[capacity];
+        boolean reuseOut = out != in && out.length - outOff >= capacity;
+        char[] other = reuseOut || size < 3 ? out : new char[capacity];
+        char[] src = in;
+        int srcOff = off;
+        int n = len;
+        for (int k = 0; k < size; k++) {
+            int fromLast = size - 1 - k;
+            char[] dst = fromLast == 0 ? out : (fromLast & 1) != 0 ? scratch : other;
+            int dstOff = dst == out ? outOff : 0;
+            n = stages.get(k).encrypt(src, srcOff, n, dst, dstOff);
+            src = dst;
+            srcOff = dstOff;
+        }
+        return n;
+    }
+
+    @Override
+    public int decrypt(char[] in, int off, int len, char[] out, int outOff, int plaintextLength) {
+        int[] lengths = stageLengths(plaintextLength);
+        int size = stages.size();
+        char[] scratch = new char[len];
+        boolean reuseOut = out != in && out.length - outOff >= len;
+        char[] other = reuseOut || size < 3 ? out : new char[len];
+        char[] src = in;
+        int srcOff = off;
+        int n = len;
+        for (int k = size - 1; k >= 0; k--) {
+            char[] dst = k == 0 ? out : (k & 1) != 0 ? scratch : other;
+            int dstOff = dst == out ? outOff : 0;
+            n = stages.get(k).decrypt(src, srcOff, n, dst, dstOff, lengths[k]);
+            src = dst;
+            srcOff = dstOff;
+        }
+        return n;
+    }
+
+    @Override
+    public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+        int capacity = encryptCapacity(len);
+        int size = stages.size();
+        byte[] scratch = new byte[capacity];
+        boolean reuseOut = out != in && out.length - outOff >= capacity;
+        byte[] other = reuseOut || size < 3 ? out : new byte[capacity];
+        byte[] src = in;
+        int srcOff = off;
+        int n = len;
+        for (int k = 0; k < size; k++) {
+            int fromLast = size - 1 - k;
+            byte[] dst = fromLast == 0 ? out : (fromLast & 1) != 0 ? scratch : other;
+            int dstOff = dst == out ? outOff : 0;
+            n = stages.get(k).encrypt(src, srcOff, n, dst, dstOff);
+            src = dst;
+            srcOff = dstOff;
+        }
+        return n;
+    }
+
+    @Override
+    public int decrypt(byte[] in, int off, int len, byte[] out, int outOff, int plaintextLength) {
+        int[] lengths = stageLengths(plaintextLength);
+        int size = stages.size();
+        byte[] scratch = new byte[len];
+        boolean reuseOut = out != in && out.length - outOff >= len;
+        byte[] other = reuseOut || size < 3 ? out : new byte[len];
+        byte[] src = in;
+        int srcOff = off;
+        int n = len;
+        for (int k = size - 1; k >= 0; k--) {
+            byte[] dst = k == 0 ? out : (k & 1) != 0 ? scratch : other;
+            int dstOff = dst == out ? outOff : 0;
+            n = stages.get(k).decrypt(src, srcOff, n, dst, dstOff, lengths[k]);
+            src = dst;
+            srcOff = dstOff;
+        }
+        return n;
+    }
+
+    // Largest output of any stage when encrypting len letters
+    private int encryptCapacity(int len) {
+        int capacity = len;
+        for (Cipher stage : stages) {
+            capacity = Math.max(capacity, stage.maxOutputLength(capacity));
+        }
+        return capacity;
+    }
+
+    // lengths[k] = what stage k was given when encrypting (-1 if unknown)
+    private int[] stageLengths(int plaintextLength) {
+        int[] lengths = new int[stages.size()];
+        int known = plaintextLength;
+        for (int k = 0; k < stages.size(); k++) {
+            lengths[k] = known;
+            known = known < 0 ? -1 : stages.get(k).outputLength(known);
+        }
+        return lengths;
+    }
+
+    // Periodic substitution: letter i of the stream goes through row (i % period).
+    // Every row is a shift, so the char path looks letters up in the tables and the
+    // byte path hands the shifts to CaesarEngine (period 1) or to a VigenereKey.
+    static final class Substitution implements Cipher {
+        private final int[] shifts;
+        private final char[] encrypt; // period rows of 26 letters
+        private final char[] decrypt;
+        private final VigenereKey key; // null for a single shift
+
+        private Substitution(int[] shifts, VigenereKey key) {
+            this.shifts = shifts;
+            this.key = key;
+            encrypt = new char[shifts.length * 26];
+            decrypt = new char[shifts.length * 26];
+            for (int p = 0; p < shifts.length; p++) {
+                for (int c = 0; c < 26; c++) {
+                    encrypt[p * 26 + c] = (char) ('A' + (c + shifts[p]) % 26);
+                    decrypt[p * 26 + c] = (char) ('A' + (c + 26 - shifts[p]) % 26);
+                }
+            }
+        }
+
+        static Substitution caesar(int shift) {
+            return new Substitution(new int[] {Math.floorMod(shift, 26)}, null);
+        }
+
+        static Substitution vigenere(VigenereKey key) {
+            int[] shifts = new int[key.period()];
+            for (int p = 0; p < shifts.length; p++) {
+                shifts[p] = key.shiftAt(p);
+            }
+            return shifts.length == 1 ? new Substitution(shifts, null) : new Substitution(shifts, key);
+        }
+
+        private static Substitution shifts(int[] shifts) {
+            if (shifts.length == 1) {
+                return new Substitution(shifts, null);
+            }
+            char[] letters = new char[shifts.length];
+            for (int p = 0; p < shifts.length; p++) {
+                letters[p] = (char) ('A' + shifts[p]);
+            }
+            return new Substitution(shifts, VigenereKey.of(new String(letters)));
+        }
+
+        // This substitution followed by next, or null if the fused period would be too long
+        Substitution then(Substitution next) {
+            int period = shifts.length;
+            long lcm = (long) period / gcd(period, next.shifts.length) * next.shifts.length;
+            if (lcm > MAX_FUSED_PERIOD) {
+                return null;
+            }
+            int[] fused = new int[(int) lcm];
+            for (int row = 0; row < fused.length; row++) {
+                fused[row] = (shifts[row % period] + next.shifts[row % next.shifts.length]) % 26;
+            }
+            return shifts(fused);
+        }
+
+        @Override
+        public int outputLength(int len) {
+            return len;
+        }
+
+        @Override
+        public int maxOutputLength(int len) {
+            return len;
+        }
+
+        @Override
+        public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+            return apply(encrypt, in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(char[] in, int off, int len, char[] out, int outOff, int plaintextLength) {
+            return apply(decrypt, in, off, len, out, outOff);
+        }
+
+        @Override
+        public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            if (key == null) {
+                CaesarEngine.encrypt(in, off, len, out, outOff, shifts[0]);
+            } else {
+                key.encrypt(in, off, len, out, outOff, 0);
+            }
+            return len;
+        }
+
+        @Override
+        public int decrypt(byte[] in, int off, int len, byte[] out, int outOff, int plaintextLength) {
+            if (key == null) {
+                CaesarEngine.decrypt(in, off, len, out, outOff, shifts[0]);
+            } else {
+                key.decrypt(in, off, len, out, outOff, 0);
+            }
+            return len;
+        }
+
+        private int apply(char[] table, char[] in, int off, int len, char[] out, int outOff) {
+            int end = table.length;
+            for (int i = 0, row = 0; i < len; i++) {
+                out[outOff + i] = table[row + in[off + i] - 'A'];
+                row += 26;
+                if (row == end) {
+                    row = 0;
+                }
+            }
+            return len;
+        }
+
+        private static int gcd(int a, int b) {
+            while (b != 0) {
+                int t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
+
+    // One or more transposition rounds run as a single composed permutation
+    static final class Transposition implements Cipher {
+        private final List<ProductTransposition.Stage> rounds;
+        private final ProductTransposition product;
+
+        private Transposition(List<ProductTransposition.Stage> rounds) {
+            this.rounds = rounds;
+            this.product = ProductTransposition.of(rounds);
+        }
+
+        static Transposition railFence(int key) {
+            return new Transposition(Collections.singletonList(ProductTransposition.railFence(key)));
+        }
+
+        static Transposition columnar(String key) {
+            return new Transposition(Collections.singletonList(ProductTransposition.columnar(key)));
+        }
+
+        Transposition then(Transposition next) {
+            List<ProductTransposition.Stage> all = new ArrayList<>(rounds);
+            all.addAll(next.rounds);
+            return new Transposition(all);
+        }
+
+        @Override
+        public int outputLength(int len) {
+            for (ProductTransposition.Stage round : rounds) {
+                len = round.outputLength(len);
+            }
+            return len;
+        }
+
+        @Override
+        public int maxOutputLength(int len) {
+            return outputLength(len);
+        }
+
+        @Override
+        public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+            return product.encrypt(in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(char[] in, int off, int len, char[] out, int outOff, int plaintextLength) {
+            plaintextLength = plaintextLength(len, plaintextLength);
+            product.decrypt(in, off, len, out, outOff, plaintextLength);
+            return plaintextLength;
+        }
+
+        @Override
+        public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            return product.encrypt(in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(byte[] in, int off, int len, byte[] out, int outOff, int plaintextLength) {
+            plaintextLength = plaintextLength(len, plaintextLength);
+            product.decrypt(in, off, len, out, outOff, plaintextLength);
+            return plaintextLength;
+        }
+
+        private int plaintextLength(int len, int plaintextLength) {
+            if (plaintextLength < 0) {
+                // Without padding information, only a length that maps onto itself is unambiguous
+                if (outputLength(len) != len) {
+                    throw new IllegalArgumentException("Decrypting this transposition needs the plaintext length.");
+                }
+                return len;
+            }
+            return plaintextLength;
+        }
+    }
+
+    static final class Hill implements Cipher {
+        private final HillKey key;
+
+        Hill(HillKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public int outputLength(int len) {
+            return key.paddedLength(len);
+        }
+
+        @Override
+        public int maxOutputLength(int len) {
+            return key.paddedLength(len);
+        }
+
+        @Override
+        public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+            return key.encrypt(in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(char[] in, int off, int len, char[] out, int outOff, int plaintextLength) {
+            key.decrypt(in, off, len, out, outOff);
+            return plaintextLength >= 0 ? Math.min(plaintextLength, len) : len;
+        }
+
+        @Override
+        public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            return key.encrypt(in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(byte[] in, int off, int len, byte[] out, int outOff, int plaintextLength) {
+            key.decrypt(in, off, len, out, outOff);
+            return plaintextLength >= 0 ? Math.min(plaintextLength, len) : len;
+        }
+    }
+
+    static final class Playfair implements Cipher {
+        private final PlayfairKey key;
+
+        Playfair(PlayfairKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public int outputLength(int len) {
+            return -1;
+        }
+
+        @Override
+        public int maxOutputLength(int len) {
+            return PlayfairKey.maxEncryptedLength(len);
+        }
+
+        @Override
+        public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+            return key.encrypt(in, off, len, out, outOff);
+        }
+
+        // The inserted and padding X's cannot be told apart from real ones, so they stay
+        @Override
+        public int decrypt(char[] in, int off, int len, char[] out, int outOff, int plaintextLength) {
+            return key.decrypt(in, off, len, out, outOff);
+        }
+
+        @Override
+        public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+            return key.encrypt(in, off, len, out, outOff);
+        }
+
+        @Override
+        public int decrypt(byte[] in, int off, int len, byte[] out, int outOff, int plaintextLength) {
+            return key.decrypt(in, off, len, out, outOff);
+        }
+    }
+}
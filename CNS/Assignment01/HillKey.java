@@ -0,0 +1,338 @@
+import CNS.Common.Alphabet;
+import CNS.Common.CipherMetrics;
+import CNS.Common.KeyCache;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Compiled n x n Hill cipher key (mod 26).
+// The key and its inverse are stored as flat row-major int arrays; the inverse is
+// computed once at compile time by Gauss-Jordan elimination mod 2 and mod 13
+// (both fields) and recombined with the CRT, since Z26 itself is not a field.
+// Instances are immutable and shared through a bounded LRU cache.
+public final class HillKey {
+
+    private static final int M = 26;
+    private static final int CACHE_CAPACITY = 1024;
+    private static final KeyCache<MatrixKey, HillKey> CACHE = new KeyCache<>(CACHE_CAPACITY, "hill");
+    private static final CipherMetrics.Operation ENCRYPT_METRICS = CipherMetrics.operation("hill", "encrypt");
+    private static final CipherMetrics.Operation DECRYPT_METRICS = CipherMetrics.operation("hill", "decrypt");
+
+    // Inputs longer than this many blocks are split across the common ForkJoinPool
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+    private static final int BLOCKS_PER_TASK = 1 << 13;
+
+    // INVERSE_13[a] = a^-1 mod 13 (inverses mod 26 come from Alphabet.UPPER's table)
+    private static final int[] INVERSE_13 = new int[13];
+
+    static {
+        for (int a = 1; a < 13; a++) {
+            for (int x = 1; x < 13; x++) {
+                if (a * x % 13 == 1) {
+                    INVERSE_13[a] = x;
+                }
+            }
+        }
+    }
+
+    private final int n;
+    private final int[] key;      // row-major, entries in 0..25
+    private final int[] inverse;  // row-major, or null when the key is not invertible mod 26
+
+    private HillKey(int[] key, int n) {
+        this.n = n;
+        this.key = key;
+        this.inverse = invert(key, n);
+    }
+
+    // Returns the compiled key, reusing a cached one when this matrix was seen recently
+    public static HillKey of(int[][] keyMatrix) {
+        int[] flat = flatten(keyMatrix);
+        return CACHE.get(new MatrixKey(flat, keyMatrix.length), k -> new HillKey(k.flat, k.n));
+    }
+
+    // Compiles the key without touching the cache
+    public static HillKey compile(int[][] keyMatrix) {
+        return new HillKey(flatten(keyMatrix), keyMatrix.length);
+    }
+
+    static KeyCache<MatrixKey, HillKey> cache() {
+        return CACHE;
+    }
+
+    // a^-1 mod 26, or -1 if it does not exist
+    public static int modInverse(int a) {
+        return Alphabet.UPPER.inverse(mod26(a));
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isInvertible() {
+        return inverse != null;
+    }
+
+    public int[][] matrix() {
+        return unflatten(key);
+    }
+
+    public int[][] inverseMatrix() {
+        requireInvertible();
+        return unflatten(inverse);
+    }
+
+    // Number of chars encrypt() produces for len letters (padded up to a whole block)
+    public int paddedLength(int len) {
+        return (len + n - 1) / n * n;
+    }
+
+    // Encrypts letters ('A'..'Z') into out, padding the last block with 'X'.
+    // Returns the number of chars written.
+    public int encrypt(char[] letters, int off, int len, char[] out, int outOff) {
+        int full = len / n * n;
+        multiply(key, letters, off, full, out, outOff);
+        if (full < len) {
+            char[] last = new char[n];
+            Arrays.fill(last, 'X');
+            System.arraycopy(letters, off + full, last, 0, len - full);
+            multiplyBlocks(key, n, last, 0, 0, 1, out, outOff + full);
+        }
+        return paddedLength(len);
+    }
+
+    // Decrypts letters ('A'..'Z'); len must be a multiple of the block size
+    public void decrypt(char[] letters, int off, int len, char[] out, int outOff) {
+        requireInvertible();
+        if (len % n != 0) {
+            throw new IllegalArgumentException("Ciphertext length must be a multiple of " + n + ".");
+        }
+        multiply(inverse, letters, off, len, out, outOff);
+    }
+
+    // Same over ASCII letter bytes
+    public int encrypt(byte[] letters, int off, int len, byte[] out, int outOff) {
+        int full = len / n * n;
+        multiply(key, letters, off, full, out, outOff);
+        if (full < len) {
+            byte[] last = new byte[n];
+            Arrays.fill(last, (byte) 'X');
+            System.arraycopy(letters, off + full, last, 0, len - full);
+            multiplyBlocks(key, n, last, 0, 0, 1, out, outOff + full);
+        }
+        return paddedLength(len);
+    }
+
+    public void decrypt(byte[] letters, int off, int len, byte[] out, int outOff) {
+        requireInvertible();
+        if (len % n != 0) {
+            throw new IllegalArgumentException("Ciphertext length must be a multiple of " + n + ".");
+        }
+        multiply(inverse, letters, off, len, out, outOff);
+    }
+
+    public String encrypt(String plaintext) {
+        long start = ENCRYPT_METRICS.start();
+        char[] letters = Letters.upperLetters(plaintext);
+        char[] out = new char[paddedLength(letters.length)];
+        encrypt(letters, 0, letters.length, out, 0);
+        String result = new String(out);
+        ENCRYPT_METRICS.stop(start, plaintext.length());
+        return result;
+    }
+
+    public String decrypt(String ciphertext) {
+        requireInvertible();
+        long start = DECRYPT_METRICS.start();
+        char[] letters = Letters.upperLetters(ciphertext);
+        decrypt(letters, 0, letters.length, letters, 0);
+        String result = new String(letters);
+        DECRYPT_METRICS.stop(start, ciphertext.length());
+        return result;
+    }
+
+    // Multiplies every n-letter block of in by matrix; len is a multiple of n.
+    // Large inputs are cut into independent block ranges and run in parallel.
+    private void multiply(int[] matrix, char[] in, int off, int len, char[] out, int outOff) {
+        int blocks = len / n;
+        if (blocks < PARALLEL_THRESHOLD) {
+            multiplyBlocks(matrix, n, in, off, 0, blocks, out, outOff);
+            return;
+        }
+        int tasks = (blocks + BLOCKS_PER_TASK - 1) / BLOCKS_PER_TASK;
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int from = t * BLOCKS_PER_TASK;
+            int to = Math.min(blocks, from + BLOCKS_PER_TASK);
+            multiplyBlocks(matrix, n, in, off, from, to, out, outOff);
+        });
+    }
+
+    // out block b = matrix * in block b (mod 26) for b in [from, to).
+    // Works in place: each block is read into a small vector before it is written.
+    private static void multiplyBlocks(int[] matrix, int n, char[] in, int off, int from, int to,
+                                       char[] out, int outOff) {
+        int[] v = new int[n];
+        for (int b = from; b < to; b++) {
+            int base = b * n;
+            for (int k = 0; k < n; k++) {
+                v[k] = in[off + base + k] - 'A';
+            }
+            for (int r = 0, row = 0; r < n; r++, row += n) {
+                int sum = 0;
+                for (int k = 0; k < n; k++) {
+                    sum += matrix[row + k] * v[k];
+                }
+                out[outOff + base + r] = (char) (sum % M + 'A');
+            }
+        }
+    }
+
+    private void multiply(int[] matrix, byte[] in, int off, int len, byte[] out, int outOff) {
+        int blocks = len / n;
+        if (blocks < PARALLEL_THRESHOLD) {
+            multiplyBlocks(matrix, n, in, off, 0, blocks, out, outOff);
+            return;
+        }
+        int tasks = (blocks + BLOCKS_PER_TASK - 1) / BLOCKS_PER_TASK;
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int from = t * BLOCKS_PER_TASK;
+            int to = Math.min(blocks, from + BLOCKS_PER_TASK);
+            multiplyBlocks(matrix, n, in, off, from, to, out, outOff);
+        });
+    }
+
+    private static void multiplyBlocks(int[] matrix, int n, byte[] in, int off, int from, int to,
+                                       byte[] out, int outOff) {
+        int[] v = new int[n];
+        for (int b = from; b < to; b++) {
+            int base = b * n;
+            for (int k = 0; k < n; k++) {
+                v[k] = in[off + base + k] - 'A';
+            }
+            for (int r = 0, row = 0; r < n; r++, row += n) {
+                int sum = 0;
+                for (int k = 0; k < n; k++) {
+                    sum += matrix[row + k] * v[k];
+                }
+                out[outOff + base + r] = (byte) (sum % M + 'A');
+            }
+        }
+    }
+
+    private void requireInvertible() {
+        if (inverse == null) {
+            throw new IllegalArgumentException("Key matrix is not invertible modulo 26. Cannot decrypt.");
+        }
+    }
+
+    // Inverse mod 26 via inverses mod 2 and mod 13; x = 13a + 14b (mod 26) recombines them
+    private static int[] invert(int[] key, int n) {
+        int[] inv2 = invertModPrime(key, n, 2);
+        int[] inv13 = invertModPrime(key, n, 13);
+        if (inv2 == null || inv13 == null) {
+            return null;
+        }
+        int[] inv = new int[n * n];
+        for (int i = 0; i < inv.length; i++) {
+            inv[i] = (13 * inv2[i] + 14 * inv13[i]) % M;
+        }
+        return inv;
+    }
+
+    // Gauss-Jordan elimination on [A | I] mod p (p = 2 or 13); null if A is singular mod p
+    private static int[] invertModPrime(int[] key, int n, int p) {
+        int w = 2 * n;
+        int[] aug = new int[n * w];
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                aug[r * w + c] = key[r * n + c] % p;
+            }
+            aug[r * w + n + r] = 1;
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            while (pivot < n && aug[pivot * w + col] == 0) {
+                pivot++;
+            }
+            if (pivot == n) {
+                return null;
+            }
+            if (pivot != col) {
+                for (int c = 0; c < w; c++) {
+                    int t = aug[col * w + c];
+                    aug[col * w + c] = aug[pivot * w + c];
+                    aug[pivot * w + c] = t;
+                }
+            }
+            int scale = p == 2 ? 1 : INVERSE_13[aug[col * w + col]];
+            for (int c = 0; c < w; c++) {
+                aug[col * w + c] = aug[col * w + c] * scale % p;
+            }
+            for (int r = 0; r < n; r++) {
+                int factor = aug[r * w + col];
+                if (r == col || factor == 0) {
+                    continue;
+                }
+                for (int c = 0; c < w; c++) {
+                    aug[r * w + c] = (aug[r * w + c] - factor * aug[col * w + c] % p + p) % p;
+                }
+            }
+        }
+        int[] inv = new int[n * n];
+        for (int r = 0; r < n; r++) {
+            System.arraycopy(aug, r * w + n, inv, r * n, n);
+        }
+        return inv;
+    }
+
+    private static int[] flatten(int[][] keyMatrix) {
+        int n = keyMatrix.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("Key matrix must not be empty.");
+        }
+        int[] flat = new int[n * n];
+        for (int r = 0; r < n; r++) {
+            if (keyMatrix[r].length != n) {
+                throw new IllegalArgumentException("Key matrix must be square.");
+            }
+            for (int c = 0; c < n; c++) {
+                flat[r * n + c] = mod26(keyMatrix[r][c]);
+            }
+        }
+        return flat;
+    }
+
+    private int[][] unflatten(int[] flat) {
+        int[][] matrix = new int[n][n];
+        for (int r = 0; r < n; r++) {
+            System.arraycopy(flat, r * n, matrix[r], 0, n);
+        }
+        return matrix;
+    }
+
+    private static int mod26(int x) {
+        int result = x % M;
+        return result < 0 ? result + M : result;
+    }
+
+    // Cache key: the normalized matrix entries
+    static final class MatrixKey {
+        final int[] flat;
+        final int n;
+
+        MatrixKey(int[] flat, int n) {
+            this.flat = flat;
+            this.n = n;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MatrixKey && ((MatrixKey) o).n == n && Arrays.equals(((MatrixKey) o).flat, flat);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(flat) * 31 + n;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+import CNS.Common.NGramModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Ciphertext-only key search for the 2x2 Hill cipher.
+// Decrypting is P = D * C with D the inverse key, so each plaintext letter of a block
+// depends on one row of D only: p1 = a*c1 + b*c2, p2 = c*c1 + d*c2 (mod 26). The two
+// rows therefore decouple and the search covers all 26^4 matrices in two steps:
+//  1. score every row (a, b) on its own (676 candidates, split across cores) by how
+//     English the letters it produces look, and keep the best rows;
+//  2. pair the kept rows into matrices, drop those whose determinant is not coprime
+//     to 26 (table lookup), and rank the rest by bigram score of the full decryption.
+// A row's letters are every other plaintext letter, so step 1 uses letter
+// frequencies; bigrams need both rows and are used in step 2. Every candidate stops
+// scoring as soon as even the best possible remaining letters cannot lift it above
+// the current cut-off.
+public final class HillKeySearch {
+
+    public static final int DEFAULT_TOP_K = 5;
+
+    // Rows kept from step 1 (at least topK); 24 rows give 576 matrices to pair up
+    private static final int MIN_ROW_CANDIDATES = 24;
+
+    // Blocks scored between two early-exit checks; short ciphertexts check at least
+    // four times (see checkInterval)
+    private static final int CHECK_INTERVAL = 64;
+
+    // UNIT[x] is true when x is invertible mod 26 (odd and not 13)
+    private static final boolean[] UNIT = new boolean[26];
+
+    static {
+        for (int x = 0; x < 26; x++) {
+            UNIT[x] = HillKey.modInverse(x) != -1;
+        }
+    }
+
+    private HillKeySearch() {
+    }
+
+    // One recovered key with its bigram score (natural log-probability, higher is better)
+    public static final class Candidate {
+        private final int[][] key;
+        private final int[][] inverse;
+        private final double score;
+
+        Candidate(int[][] key, int[][] inverse, double score) {
+            this.key = key;
+            this.inverse = inverse;
+            this.score = score;
+        }
+
+        // Encryption key, as passed to hillEncrypt/hillDecrypt
+        public int[][] key() {
+            return new int[][] {key[0].clone(), key[1].clone()};
+        }
+
+        public int[][] inverseKey() {
+            return new int[][] {inverse[0].clone(), inverse[1].clone()};
+        }
+
+        public double score() {
+            return score;
+        }
+
+        public String decrypt(String ciphertext) {
+            return HillKey.of(key).decrypt(ciphertext);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.deepToString(key) + " score=" + String.format("%.1f", score);
+        }
+    }
+
+    public static final class Result {
+        private final List<Candidate> candidates;
+        private final long rowNanos;
+        private final long pairNanos;
+        private final int rowsScored;
+        private final int rowsPruned;
+        private final int pairsScored;
+        private final int pairsPruned;
+
+        Result(List<Candidate> candidates, long rowNanos, long pairNanos,
+               int rowsScored, int rowsPruned, int pairsScored, int pairsPruned) {
+            this.candidates = candidates;
+            this.rowNanos = rowNanos;
+            this.pairNanos = pairNanos;
+            this.rowsScored = rowsScored;
+            this.rowsPruned = rowsPruned;
+            this.pairsScored = pairsScored;
+            this.pairsPruned = pairsPruned;
+        }
+
+        // Best first
+        public List<Candidate> candidates() {
+            return candidates;
+        }
+
+        public Candidate best() {
+            return candidates.get(0);
+        }
+
+        public long rowSearchNanos() {
+            return rowNanos;
+        }
+
+        public long pairSearchNanos() {
+            return pairNanos;
+        }
+
+        // Rows that passed the pre-filter and were scored (fully or until pruned)
+        public int rowsScored() {
+            return rowsScored;
+        }
+
+        public int rowsPruned() {
+            return rowsPruned;
+        }
+
+        // Invertible matrices built from the kept rows
+        public int pairsScored() {
+            return pairsScored;
+        }
+
+        public int pairsPruned() {
+            return pairsPruned;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("rows: %d scored, %d pruned, %.2f ms%n",
+                    rowsScored, rowsPruned, rowNanos / 1e6));
+            sb.append(String.format("pairs: %d scored, %d pruned, %.2f ms%n",
+                    pairsScored, pairsPruned, pairNanos / 1e6));
+            for (int i = 0; i < candidates.size(); i++) {
+                sb.append(i + 1).append(". ").append(candidates.get(i)).append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+    }
+
+    public static Result search(String ciphertext) {
+        return search(ciphertext, DEFAULT_TOP_K);
+    }
+
+    public static Result search(String ciphertext, int topK) {
+        return search(ciphertext, topK, NGramModel.englishLetters(), NGramModel.englishBigrams());
+    }
+
+    // letters must be an order-1 model and bigrams an order-2 model
+    public static Result search(String ciphertext, int topK, NGramModel letters, NGramModel bigrams) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be at least 1.");
+        }
+        if (letters.order() != 1 || bigrams.order() != 2) {
+            throw new IllegalArgumentException("Expected a letter model and a bigram model.");
+        }
+        char[] text = Letters.upperLetters(ciphertext);
+        if (text.length < 4 || text.length % 2 != 0) {
+            throw new IllegalArgumentException("Ciphertext must have an even number of letters (at least 4).");
+        }
+        int blocks = text.length / 2;
+        byte[] c1 = new byte[blocks];
+        byte[] c2 = new byte[blocks];
+        for (int i = 0; i < blocks; i++) {
+            c1[i] = (byte) (text[2 * i] - 'A');
+            c2[i] = (byte) (text[2 * i + 1] - 'A');
+        }
+
+        int interval = checkInterval(blocks);
+
+        long start = System.nanoTime();
+        TopK rows = new TopK(Math.max(MIN_ROW_CANDIDATES, topK));
+        int[] rowStats = new int[2]; // scored, pruned
+        IntStream.range(0, 26).parallel().forEach(a -> {
+            int scored = 0;
+            int pruned = 0;
+            for (int b = 0; b < 26; b++) {
+                // A row whose entries share a factor with 26 makes every determinant share it
+                if ((a % 2 == 0 && b % 2 == 0) || (a % 13 == 0 && b % 13 == 0)) {
+                    continue;
+                }
+                scored++;
+                if (!scoreRow(a, b, c1, c2, letters, rows, interval)) {
+                    pruned++;
+                }
+            }
+            synchronized (rowStats) {
+                rowStats[0] += scored;
+                rowStats[1] += pruned;
+            }
+        });
+        long rowNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int[] kept = rows.entries();
+        TopK pairs = new TopK(topK);
+        int[] pairStats = new int[2];
+        IntStream.range(0, kept.length).parallel().forEach(i -> {
+            int row1 = kept[i];
+            int scored = 0;
+            int pruned = 0;
+            for (int row2 : kept) {
+                int a = row1 / 26, b = row1 % 26, c = row2 / 26, d = row2 % 26;
+                if (!UNIT[Math.floorMod(a * d - b * c, 26)]) {
+                    continue;
+                }
+                scored++;
+                if (!scorePair(row1, row2, c1, c2, bigrams, pairs, interval)) {
+                    pruned++;
+                }
+            }
+            synchronized (pairStats) {
+                pairStats[0] += scored;
+                pairStats[1] += pruned;
+            }
+        });
+        long pairNanos = System.nanoTime() - start;
+
+        List<Candidate> candidates = new ArrayList<>();
+        int[] best = pairs.entries();
+        double[] scores = pairs.scores();
+        for (int i = 0; i < best.length; i++) {
+            int row1 = best[i] / 676, row2 = best[i] % 676;
+            int[][] inverse = {{row1 / 26, row1 % 26}, {row2 / 26, row2 % 26}};
+            candidates.add(new Candidate(HillKey.compile(inverse).inverseMatrix(), inverse, scores[i]));
+        }
+        return new Result(candidates, rowNanos, pairNanos, rowStats[0], rowStats[1], pairStats[0], pairStats[1]);
+    }
+
+    // Blocks between early-exit checks: CHECK_INTERVAL, or a quarter of the text when
+    // that is shorter, so that ciphertexts of a few dozen blocks still prune
+    static int checkInterval(int blocks) {
+        return Math.max(1, Math.min(CHECK_INTERVAL, blocks / 4));
+    }
+
+    // Letter score of the stream a*c1 + b*c2; returns false if it was cut off early
+    private static boolean scoreRow(int a, int b, byte[] c1, byte[] c2, NGramModel letters, TopK rows, int interval) {
+        int blocks = c1.length;
+        float max = letters.maxLogProb();
+        double score = 0;
+        int check = interval - 1;
+        for (int i = 0; i < blocks; i++) {
+            score += letters.logProb((a * c1[i] + b * c2[i]) % 26);
+            if (i == check) {
+                check += interval;
+                if (score + (double) (blocks - 1 - i) * max <= rows.threshold()) {
+                    return false;
+                }
+            }
+        }
+        rows.offer(a * 26 + b, score);
+        return true;
+    }
+
+    // Bigram score of the full decryption, computed on the fly without decoding to a buffer
+    private static boolean scorePair(int row1, int row2, byte[] c1, byte[] c2, NGramModel bigrams, TopK pairs,
+                                     int interval) {
+        int a = row1 / 26, b = row1 % 26, c = row2 / 26, d = row2 % 26;
+        int blocks = c1.length;
+        float max = bigrams.maxLogProb();
+        double score = 0;
+        int previous = -1;
+        int check = interval - 1;
+        for (int i = 0; i < blocks; i++) {
+            int p1 = (a * c1[i] + b * c2[i]) % 26;
+            int p2 = (c * c1[i] + d * c2[i]) % 26;
+            if (previous >= 0) {
+                score += bigrams.logProb(previous * 26 + p1);
+            }
+            score += bigrams.logProb(p1 * 26 + p2);
+            previous = p2;
+            if (i == check) {
+                check += interval;
+                if (score + 2.0 * (blocks - 1 - i) * max <= pairs.threshold()) {
+                    return false;
+                }
+            }
+        }
+        pairs.offer(row1 * 676 + row2, score);
+        return true;
+    }
+
+    // Bounded best-first list shared by the parallel tasks. threshold() is the score
+    // to beat once the list is full, read without locking for the early-exit checks.
+    private static final class TopK {
+        private final int capacity;
+        private final int[] ids;
+        private final double[] scores;
+        private int size;
+        private volatile double threshold = Double.NEGATIVE_INFINITY;
+
+        TopK(int capacity) {
+            this.capacity = capacity;
+            this.ids = new int[capacity];
+            this.scores = new double[capacity];
+        }
+
+        double threshold() {
+            return threshold;
+        }
+
+        synchronized void offer(int id, double score) {
+            if (size == capacity && score <= scores[size - 1]) {
+                return;
+            }
+            int j = size < capacity ? size++ : size - 1;
+            while (j > 0 && scores[j - 1] < score) {
+                ids[j] = ids[j - 1];
+                scores[j] = scores[j - 1];
+                j--;
+            }
+            ids[j] = id;
+            scores[j] = score;
+            if (size == capacity) {
+                threshold = scores[size - 1];
+            }
+        }
+
+        synchronized int[] entries() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        synchronized double[] scores() {
+            return Arrays.copyOf(scores, size);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Optional SIMD kernels for the add-mod-26-on-letters loops of CaesarEngine and VigenereKey.
+// The implementation (LetterKernelVector) is built on the jdk.incubator.vector module,
+// so it is compiled and run separately:
+//   javac --add-modules jdk.incubator.vector -d out ... CNS/Assignment01/LetterKernelVector.java
+//   java --add-modules jdk.incubator.vector -cp out ...
+// It is looked up reflectively once, at class initialization; when the module or the
+// class is missing, the vectors are too narrow, or -Dcns.vector=false is set, VECTOR is
+// null and the callers keep their scalar loops. Before it is used, the kernel is checked
+// against the scalar arithmetic on every byte value, so both paths give identical output.
+abstract class LetterKernel {
+
+    static final String VECTOR_PROPERTY = "cns.vector";
+
+    // Buffers shorter than this stay on the scalar loops
+    static final int MIN_LENGTH = 64;
+
+    // The SIMD kernel, or null when the scalar loops are in use
+    static final LetterKernel VECTOR = load();
+
+    // E.g. "Species[byte, 64, S_512_BIT]"
+    abstract String description();
+
+    // Adds shift (-25..25) to every ASCII letter, folding a-z to upper case; a sum of
+    // 26 or more wraps around (compare-and-subtract), a negative one is kept as is, like
+    // CaesarEngine's tables. Everything else, including bytes >= 0x80, is copied.
+    abstract void caesar(byte[] in, int off, int len, byte[] out, int outOff, int shift);
+
+    // Same for chars; returns false if the range held a char >= 0x80
+    abstract boolean caesar(char[] in, int off, int len, char[] out, int outOff, int shift);
+
+    // Kernel-specific form of a Vigenere shift array (e.g. the key repeated for a full vector)
+    abstract Object keyStream(byte[] shifts);
+
+    // VigenereKey.transform over a range: letters get the shift at the current phase,
+    // which advances on letters only; returns the phase to continue with
+    abstract int vigenere(Object keyStream, byte[] in, int off, int len, byte[] out, int outOff, int phase);
+
+    abstract int vigenere(Object keyStream, char[] in, int off, int len, char[] out, int outOff, int phase);
+
+    private static LetterKernel load() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            LetterKernel kernel = (LetterKernel) Class.forName("LetterKernelVector")
+                    .getDeclaredConstructor().newInstance();
+            return agreesWithScalar(kernel) ? kernel : null;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null; // Not compiled in, or the vectors are too narrow to pay off
+        }
+    }
+
+    // Runs every byte value through the kernel and the scalar tables / loops, with every
+    // shift and a few keys
+    private static boolean agreesWithScalar(LetterKernel kernel) {
+        int n = 3 * 256 + 17; // Leaves a scalar tail for any vector length
+        byte[] in = new byte[n];
+        char[] chars = new char[n];
+        for (int i = 0; i < n; i++) {
+            in[i] = (byte) i;
+            chars[i] = (char) (i * 7 % 300);
+        }
+        byte[] expected = new byte[n];
+        byte[] actual = new byte[n];
+        char[] expectedChars = new char[n];
+        char[] actualChars = new char[n];
+        for (int shift = -25; shift <= 25; shift++) {
+            CaesarEngine.apply(CaesarEngine.encryptTable(shift), in, 0, n, expected, 0);
+            kernel.caesar(in, 0, n, actual, 0, shift);
+            CaesarEngine.apply(CaesarEngine.encryptTable(shift), chars, 0, n, expectedChars, 0);
+            boolean ascii = kernel.caesar(chars, 0, n, actualChars, 0, shift);
+            if (ascii || !Arrays.equals(expected, actual)
+                    || !Arrays.equals(expectedChars, actualChars)) {
+                return false;
+            }
+        }
+        Random random = new Random(n);
+        for (int period : new int[] {1, 3, 7, 26, 100}) {
+            byte[] shifts = new byte[period];
+            for (int p = 0; p < period; p++) {
+                shifts[p] = (byte) random.nextInt(26);
+            }
+            Object stream = kernel.keyStream(shifts);
+            int phase = period / 2;
+            if (VigenereKey.transform(shifts, null, in, 0, n, expected, 0, phase)
+                    != kernel.vigenere(stream, in, 0, n, actual, 0, phase)
+                    || VigenereKey.transform(shifts, null, chars, 0, n, expectedChars, 0, phase)
+                    != kernel.vigenere(stream, chars, 0, n, actualChars, 0, phase)
+                    || !Arrays.equals(expected, actual)
+                    || !Arrays.equals(expectedChars, actualChars)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --- Scalar arithmetic, used for the tails of the vector loops ---
+
+    static void caesarScalar(byte[] in, int off, int len, byte[] out, int outOff, int shift) {
+        for (int i = 0; i < len; i++) {
+            byte b = in[off + i];
+            int v = (b | 0x20) - 'a';
+            if (v >= 0 && v < 26) {
+                int r = v + shift;
+                if (r >= 26) {
+                    r -= 26;
+                }
+                out[outOff + i] = (byte) ('A' + r);
+            } else {
+                out[outOff + i] = b;
+            }
+        }
+    }
+
+    // Returns false if the range held a char >= 0x80
+    static boolean caesarScalar(char[] in, int off, int len, char[] out, int outOff, int shift) {
+        int seen = 0;
+        for (int i = 0; i < len; i++) {
+            char c = in[off + i];
+            seen |= c;
+            int v = (c | 0x20) - 'a';
+            if (v >= 0 && v < 26) {
+                int r = v + shift;
+                if (r >= 26) {
+                    r -= 26;
+                }
+                out[outOff + i] = (char) ('A' + r);
+            } else {
+                out[outOff + i] = c;
+            }
+        }
+        return seen < 0x80;
+    }
+}
@@ -0,0 +1,163 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// LetterKernel on the incubating Vector API, one preferred-width vector per iteration
+// (32 bytes with AVX2, 64 with AVX-512; half as many chars). Per lane:
+//   v = (c | 0x20) - 'a'           letter iff 0 <= v < 26 (signed lanes cannot wrap into that range)
+//   r = v + shift; r -= 26 if r >= 26
+//   out = letter ? 'A' + r : c     (blend on the letter mask)
+// For Vigenere the shifts come from the key repeated past one vector length, loaded at
+// the current phase. When a vector mixes letters and other characters, lane i needs the
+// key position phase + (letters before lane i): that exclusive prefix count is built in
+// log2(lanes) shift-and-add steps and used to rearrange the loaded shifts.
+// Loaded reflectively by LetterKernel; never referenced directly so the rest of the
+// sources build without the module.
+final class LetterKernelVector extends LetterKernel {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+
+    private static final ByteVector ZERO_BYTES = ByteVector.zero(BYTES);
+    private static final ShortVector ZERO_SHORTS = ShortVector.zero(SHORTS);
+
+    // The key shifts repeated to period + one vector, so a vector can be loaded at any phase
+    private static final class KeyStream {
+        final int period;
+        final byte[] shifts;
+        final byte[] bytes;
+        final short[] shorts;
+
+        KeyStream(byte[] shifts) {
+            period = shifts.length;
+            this.shifts = shifts;
+            bytes = new byte[period + BYTES.length()];
+            shorts = new short[period + SHORTS.length()];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = shifts[i % period];
+            }
+            for (int i = 0; i < shorts.length; i++) {
+                shorts[i] = shifts[i % period];
+            }
+        }
+    }
+
+    LetterKernelVector() {
+        if (BYTES.vectorBitSize() < 128) {
+            throw new UnsupportedOperationException("Vectors of " + BYTES.vectorBitSize() + " bits are too narrow.");
+        }
+    }
+
+    @Override
+    String description() {
+        return BYTES.toString();
+    }
+
+    @Override
+    void caesar(byte[] in, int off, int len, byte[] out, int outOff, int shift) {
+        int step = BYTES.length();
+        int bound = BYTES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += step) {
+            ByteVector c = ByteVector.fromArray(BYTES, in, off + i);
+            ByteVector v = c.or((byte) 0x20).sub((byte) 'a');
+            VectorMask<Byte> letter = v.compare(VectorOperators.GE, 0).and(v.compare(VectorOperators.LT, 26));
+            ByteVector r = v.add((byte) shift);
+            r = r.sub((byte) 26, r.compare(VectorOperators.GE, 26));
+            c.blend(r.add((byte) 'A'), letter).intoArray(out, outOff + i);
+        }
+        caesarScalar(in, off + i, len - i, out, outOff + i, shift);
+    }
+
+    @Override
+    boolean caesar(char[] in, int off, int len, char[] out, int outOff, int shift) {
+        int step = SHORTS.length();
+        int bound = SHORTS.loopBound(len);
+        ShortVector seen = ZERO_SHORTS;
+        int i = 0;
+        for (; i < bound; i += step) {
+            ShortVector c = ShortVector.fromCharArray(SHORTS, in, off + i);
+            seen = seen.or(c);
+            ShortVector v = c.or((short) 0x20).sub((short) 'a');
+            VectorMask<Short> letter = v.compare(VectorOperators.GE, 0).and(v.compare(VectorOperators.LT, 26));
+            ShortVector r = v.add((short) shift);
+            r = r.sub((short) 26, r.compare(VectorOperators.GE, 26));
+            c.blend(r.add((short) 'A'), letter).intoCharArray(out, outOff + i);
+        }
+        boolean ascii = (seen.reduceLanes(VectorOperators.OR) & 0xFF80) == 0;
+        return caesarScalar(in, off + i, len - i, out, outOff + i, shift) && ascii;
+    }
+
+    @Override
+    Object keyStream(byte[] shifts) {
+        return new KeyStream(shifts);
+    }
+
+    @Override
+    int vigenere(Object keyStream, byte[] in, int off, int len, byte[] out, int outOff, int phase) {
+        KeyStream key = (KeyStream) keyStream;
+        int step = BYTES.length();
+        int bound = BYTES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += step) {
+            ByteVector c = ByteVector.fromArray(BYTES, in, off + i);
+            ByteVector v = c.or((byte) 0x20).sub((byte) 'a');
+            VectorMask<Byte> letter = v.compare(VectorOperators.GE, 0).and(v.compare(VectorOperators.LT, 26));
+            ByteVector shifts = ByteVector.fromArray(BYTES, key.bytes, phase);
+            int letters = step;
+            if (!letter.allTrue()) {
+                letters = letter.trueCount();
+                if (letters == 0) {
+                    c.intoArray(out, outOff + i);
+                    continue;
+                }
+                ByteVector ones = ZERO_BYTES.blend((byte) 1, letter);
+                ByteVector before = ones;
+                for (int k = 1; k < step; k <<= 1) {
+                    before = before.add(ZERO_BYTES.slice(step - k, before));
+                }
+                shifts = shifts.rearrange(before.sub(ones).toShuffle());
+            }
+            ByteVector r = v.add(shifts);
+            r = r.sub((byte) 26, r.compare(VectorOperators.GE, 26));
+            c.blend(r.add((byte) 'A'), letter).intoArray(out, outOff + i);
+            phase = (phase + letters) % key.period;
+        }
+        return VigenereKey.transform(key.shifts, null, in, off + i, len - i, out, outOff + i, phase);
+    }
+
+    @Override
+    int vigenere(Object keyStream, char[] in, int off, int len, char[] out, int outOff, int phase) {
+        KeyStream key = (KeyStream) keyStream;
+        int step = SHORTS.length();
+        int bound = SHORTS.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += step) {
+            ShortVector c = ShortVector.fromCharArray(SHORTS, in, off + i);
+            ShortVector v = c.or((short) 0x20).sub((short) 'a');
+            VectorMask<Short> letter = v.compare(VectorOperators.GE, 0).and(v.compare(VectorOperators.LT, 26));
+            ShortVector shifts = ShortVector.fromArray(SHORTS, key.shorts, phase);
+            int letters = step;
+            if (!letter.allTrue()) {
+                letters = letter.trueCount();
+                if (letters == 0) {
+                    c.intoCharArray(out, outOff + i);
+                    continue;
+                }
+                ShortVector ones = ZERO_SHORTS.blend((short) 1, letter);
+                ShortVector before = ones;
+                for (int k = 1; k < step; k <<= 1) {
+                    before = before.add(ZERO_SHORTS.slice(step - k, before));
+                }
+                shifts = shifts.rearrange(before.sub(ones).toShuffle());
+            }
+            ShortVector r = v.add(shifts);
+            r = r.sub((short) 26, r.compare(VectorOperators.GE, 26));
+            c.blend(r.add((short) 'A'), letter).intoCharArray(out, outOff + i);
+            phase = (phase + letters) % key.period;
+        }
+        return VigenereKey.transform(key.shifts, null, in, off + i, len - i, out, outOff + i, phase);
+    }
+}
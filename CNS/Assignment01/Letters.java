@@ -0,0 +1,57 @@
+import java.util.Locale;
+
+// Shared text normalization for the A-Z ciphers.
+// upperLetters(text) returns exactly what text.toUpperCase().replaceAll("[^A-Z]", "")
+// would, but plain ASCII input is folded and filtered in one pass without the regex.
+final class Letters {
+
+    private Letters() {
+    }
+
+    static char[] upperLetters(String text) {
+        boolean fold = isPlainAscii(text);
+        if (!fold) {
+            // Full Unicode upper-casing can turn non-ASCII characters into A-Z (e.g. sharp s -> "SS")
+            text = text.toUpperCase();
+        }
+        int n = text.length();
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (isLetter(text.charAt(i), fold)) {
+                count++;
+            }
+        }
+        char[] letters = new char[count];
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (isLetter(c, fold)) {
+                letters[j++] = (char) (c & ~0x20);
+            }
+        }
+        return letters;
+    }
+
+    // True when toUpperCase() would only touch ASCII a-z in this text
+    static boolean isPlainAscii(String text) {
+        if (!asciiCaseMappingIsPlain()) {
+            return false;
+        }
+        for (int i = 0, n = text.length(); i < n; i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // toUpperCase() maps 'i' to a non-ASCII letter in these locales
+    static boolean asciiCaseMappingIsPlain() {
+        String lang = Locale.getDefault().getLanguage();
+        return !(lang.equals("tr") || lang.equals("az") || lang.equals("lt"));
+    }
+
+    private static boolean isLetter(char c, boolean fold) {
+        return (c >= 'A' && c <= 'Z') || (fold && c >= 'a' && c <= 'z');
+    }
+}
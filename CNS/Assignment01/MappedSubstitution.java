@@ -0,0 +1,146 @@
+import CNS.Common.MappedFile;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// File-level Caesar and Vigenere over memory-mapped files.
+// Bytes are read from the mapped input and written straight into the mapped output
+// (or back into the input when both paths are the same file), 16 MB chunks at a
+// time on the common ForkJoinPool, so neither the heap nor String decoding is
+// involved. Semantics are those of the byte[] APIs: ASCII letters are substituted
+// (a-z folded to upper case), every other byte is copied unchanged, and the file
+// length is preserved.
+public final class MappedSubstitution {
+
+    private MappedSubstitution() {
+    }
+
+    public static void caesarEncrypt(Path in, Path out, int shift) throws IOException {
+        substitute(in, out, CaesarEngine.encryptTable(shift));
+    }
+
+    public static void caesarDecrypt(Path in, Path out, int shift) throws IOException {
+        substitute(in, out, CaesarEngine.decryptTable(shift));
+    }
+
+    public static void vigenereEncrypt(Path in, Path out, String key) throws IOException {
+        vigenere(in, out, shifts(VigenereKey.of(key), false));
+    }
+
+    public static void vigenereDecrypt(Path in, Path out, String key) throws IOException {
+        vigenere(in, out, shifts(VigenereKey.of(key), true));
+    }
+
+    private static void substitute(Path in, Path out, char[] table) throws IOException {
+        try (Mapping m = Mapping.open(in, out)) {
+            MappedFile.forEachChunk(m.size(), (chunk, from, to) -> {
+                MappedByteBuffer src = m.source.regionOf(from);
+                MappedByteBuffer dst = m.target.regionOf(from);
+                int start = MappedFile.offsetInRegion(from);
+                int end = start + (int) (to - from);
+                for (int i = start; i < end; i++) {
+                    dst.put(i, (byte) table[src.get(i) & 0xFF]);
+                }
+            });
+        }
+    }
+
+    private static void vigenere(Path in, Path out, byte[] shifts) throws IOException {
+        try (Mapping m = Mapping.open(in, out)) {
+            long size = m.size();
+            int period = shifts.length;
+            // Letters per chunk, then a prefix sum gives each chunk its starting key phase
+            int[] phases = new int[MappedFile.chunkCount(size) + 1];
+            MappedFile.forEachChunk(size, (chunk, from, to) -> {
+                MappedByteBuffer src = m.source.regionOf(from);
+                int start = MappedFile.offsetInRegion(from);
+                int end = start + (int) (to - from);
+                int count = 0;
+                for (int i = start; i < end; i++) {
+                    if (CipherContext.letterIndex(src.get(i)) >= 0) {
+                        count++;
+                    }
+                }
+                phases[chunk + 1] = count;
+            });
+            phases[0] = 0;
+            for (int c = 1; c < phases.length; c++) {
+                phases[c] = (int) ((phases[c - 1] + (long) phases[c]) % period);
+            }
+            MappedFile.forEachChunk(size, (chunk, from, to) -> {
+                MappedByteBuffer src = m.source.regionOf(from);
+                MappedByteBuffer dst = m.target.regionOf(from);
+                int start = MappedFile.offsetInRegion(from);
+                int end = start + (int) (to - from);
+                int phase = phases[chunk];
+                for (int i = start; i < end; i++) {
+                    byte b = src.get(i);
+                    int v = CipherContext.letterIndex(b);
+                    if (v < 0) {
+                        dst.put(i, b);
+                        continue;
+                    }
+                    int r = v + shifts[phase];
+                    if (r >= 26) {
+                        r -= 26;
+                    }
+                    dst.put(i, (byte) ('A' + r));
+                    if (++phase == period) {
+                        phase = 0;
+                    }
+                }
+            });
+        }
+    }
+
+    private static byte[] shifts(VigenereKey key, boolean decrypt) {
+        byte[] shifts = new byte[key.period()];
+        for (int i = 0; i < shifts.length; i++) {
+            int s = key.shiftAt(i);
+            shifts[i] = (byte) (decrypt ? (26 - s) % 26 : s);
+        }
+        return shifts;
+    }
+
+    // Source and target mappings; the same mapping when transforming a file in place
+    private static final class Mapping implements AutoCloseable {
+        final MappedFile source;
+        final MappedFile target;
+
+        private Mapping(MappedFile source, MappedFile target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        static Mapping open(Path in, Path out) throws IOException {
+            if (Files.exists(out) && Files.isSameFile(in, out)) {
+                MappedFile file = MappedFile.openReadWrite(in);
+                return new Mapping(file, file);
+            }
+            MappedFile source = MappedFile.openRead(in);
+            try {
+                return new Mapping(source, MappedFile.create(out, source.size()));
+            } catch (IOException | RuntimeException e) {
+                source.close();
+                throw e;
+            }
+        }
+
+        long size() {
+            return source.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                source.close();
+            } finally {
+                if (target != source) {
+                    target.close();
+                }
+            }
+        }
+    }
+}
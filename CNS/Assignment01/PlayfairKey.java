@@ -0,0 +1,254 @@
+import CNS.Common.CipherMetrics;
+import CNS.Common.KeyCache;
+
+// Compiled, immutable Playfair key.
+// Holds the 5x5 square, a 26-entry letter -> cell index and full 26x26 digraph
+// tables for both directions, so encrypting or decrypting a pair is one lookup.
+// Instances are safe to share between threads; use PlayfairKey.of(key) to go
+// through the bounded LRU cache of compiled keys.
+public final class PlayfairKey {
+
+    private static final int SIZE = 5;
+    private static final int CACHE_CAPACITY = 4096;
+    private static final KeyCache<String, PlayfairKey> CACHE = new KeyCache<>(CACHE_CAPACITY, "playfair");
+    private static final CipherMetrics.Operation ENCRYPT_METRICS = CipherMetrics.operation("playfair", "encrypt");
+    private static final CipherMetrics.Operation DECRYPT_METRICS = CipherMetrics.operation("playfair", "decrypt");
+
+    private final String key;
+    private final char[] square = new char[SIZE * SIZE];   // row-major
+    private final byte[] cellOf = new byte[26];            // letter - 'A' -> row * 5 + col ('J' shares 'I')
+    private final char[] encryptPairs = new char[26 * 26 * 2];
+    private final char[] decryptPairs = new char[26 * 26 * 2];
+
+    private PlayfairKey(String key) {
+        this.key = key;
+        char[] keyLetters = Letters.upperLetters(key);
+        boolean[] used = new boolean[26];
+        int cell = 0;
+        for (char c : keyLetters) {
+            cell = place(c == 'J' ? 'I' : c, used, cell);
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            if (c != 'J') {
+                cell = place(c, used, cell);
+            }
+        }
+        cellOf['J' - 'A'] = cellOf['I' - 'A'];
+
+        for (int a = 0; a < 26; a++) {
+            for (int b = 0; b < 26; b++) {
+                int idx = (a * 26 + b) * 2;
+                fillPair(cellOf[a], cellOf[b], 1, encryptPairs, idx);
+                fillPair(cellOf[a], cellOf[b], SIZE - 1, decryptPairs, idx); // +4 is -1 mod 5
+            }
+        }
+    }
+
+    // Returns the compiled key, reusing a cached one when this key was seen recently
+    public static PlayfairKey of(String key) {
+        return CACHE.get(key, PlayfairKey::new);
+    }
+
+    // Compiles the key without touching the cache
+    public static PlayfairKey compile(String key) {
+        return new PlayfairKey(key);
+    }
+
+    static KeyCache<String, PlayfairKey> cache() {
+        return CACHE;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public char[][] matrix() {
+        char[][] matrix = new char[SIZE][SIZE];
+        for (int r = 0; r < SIZE; r++) {
+            System.arraycopy(square, r * SIZE, matrix[r], 0, SIZE);
+        }
+        return matrix;
+    }
+
+    public char letterAt(int row, int col) {
+        return square[row * SIZE + col];
+    }
+
+    public int rowOf(char c) {
+        return cellOf[c - 'A'] / SIZE;
+    }
+
+    public int colOf(char c) {
+        return cellOf[c - 'A'] % SIZE;
+    }
+
+    // Writes the encrypted digraph (a, b) to out[off], out[off + 1]; a and b must be 'A'..'Z'
+    public void encryptPair(char a, char b, char[] out, int off) {
+        int idx = ((a - 'A') * 26 + (b - 'A')) * 2;
+        out[off] = encryptPairs[idx];
+        out[off + 1] = encryptPairs[idx + 1];
+    }
+
+    // Writes the decrypted digraph (a, b) to out[off], out[off + 1]; a and b must be 'A'..'Z'
+    public void decryptPair(char a, char b, char[] out, int off) {
+        int idx = ((a - 'A') * 26 + (b - 'A')) * 2;
+        out[off] = decryptPairs[idx];
+        out[off + 1] = decryptPairs[idx + 1];
+    }
+
+    private void encryptPair(int a, int b, byte[] out, int off) {
+        int idx = ((a - 'A') * 26 + (b - 'A')) * 2;
+        out[off] = (byte) encryptPairs[idx];
+        out[off + 1] = (byte) encryptPairs[idx + 1];
+    }
+
+    private void decryptPair(int a, int b, byte[] out, int off) {
+        int idx = ((a - 'A') * 26 + (b - 'A')) * 2;
+        out[off] = (byte) decryptPairs[idx];
+        out[off + 1] = (byte) decryptPairs[idx + 1];
+    }
+
+    // Upper bound on the prepared (X-inserted and padded) length of len letters
+    public static int maxEncryptedLength(int len) {
+        return 2 * len;
+    }
+
+    // Encrypts already-normalized letters ('A'..'Z', J allowed) into out.
+    // Applies the same preparation as playfairEncrypt: an 'X' after every letter that
+    // is followed by the same letter, and a trailing 'X' when the length is odd.
+    // Returns the number of chars written.
+    public int encrypt(char[] letters, int off, int len, char[] out, int outOff) {
+        int o = outOff;
+        char pending = 0;
+        boolean hasPending = false;
+        for (int i = 0; i < len; i++) {
+            char c = normalize(letters[off + i]);
+            if (hasPending) {
+                encryptPair(pending, c, out, o);
+                o += 2;
+            } else {
+                pending = c;
+            }
+            hasPending = !hasPending;
+            if (i + 1 < len && c == normalize(letters[off + i + 1])) {
+                if (hasPending) {
+                    encryptPair(pending, 'X', out, o);
+                    o += 2;
+                } else {
+                    pending = 'X';
+                }
+                hasPending = !hasPending;
+            }
+        }
+        if (hasPending) {
+            encryptPair(pending, 'X', out, o);
+            o += 2;
+        }
+        return o - outOff;
+    }
+
+    // Decrypts normalized letters (even length) into out; returns the number of chars written
+    public int decrypt(char[] letters, int off, int len, char[] out, int outOff) {
+        if (len % 2 != 0) {
+            throw new IllegalArgumentException("Playfair ciphertext must have an even number of letters.");
+        }
+        for (int i = 0; i < len; i += 2) {
+            decryptPair(normalize(letters[off + i]), normalize(letters[off + i + 1]), out, outOff + i);
+        }
+        return len;
+    }
+
+    // Same over ASCII letter bytes
+    public int encrypt(byte[] letters, int off, int len, byte[] out, int outOff) {
+        int o = outOff;
+        int pending = 0;
+        boolean hasPending = false;
+        for (int i = 0; i < len; i++) {
+            int c = normalize(letters[off + i]);
+            if (hasPending) {
+                encryptPair(pending, c, out, o);
+                o += 2;
+            } else {
+                pending = c;
+            }
+            hasPending = !hasPending;
+            if (i + 1 < len && c == normalize(letters[off + i + 1])) {
+                if (hasPending) {
+                    encryptPair(pending, 'X', out, o);
+                    o += 2;
+                } else {
+                    pending = 'X';
+                }
+                hasPending = !hasPending;
+            }
+        }
+        if (hasPending) {
+            encryptPair(pending, 'X', out, o);
+            o += 2;
+        }
+        return o - outOff;
+    }
+
+    public int decrypt(byte[] letters, int off, int len, byte[] out, int outOff) {
+        if (len % 2 != 0) {
+            throw new IllegalArgumentException("Playfair ciphertext must have an even number of letters.");
+        }
+        for (int i = 0; i < len; i += 2) {
+            decryptPair(normalize(letters[off + i]), normalize(letters[off + i + 1]), out, outOff + i);
+        }
+        return len;
+    }
+
+    public String encrypt(String plaintext) {
+        long start = ENCRYPT_METRICS.start();
+        char[] letters = Letters.upperLetters(plaintext);
+        char[] out = new char[maxEncryptedLength(letters.length)];
+        int n = encrypt(letters, 0, letters.length, out, 0);
+        String result = new String(out, 0, n);
+        ENCRYPT_METRICS.stop(start, plaintext.length());
+        return result;
+    }
+
+    public String decrypt(String ciphertext) {
+        long start = DECRYPT_METRICS.start();
+        char[] letters = Letters.upperLetters(ciphertext);
+        decrypt(letters, 0, letters.length, letters, 0);
+        String result = new String(letters);
+        DECRYPT_METRICS.stop(start, ciphertext.length());
+        return result;
+    }
+
+    private static char normalize(char c) {
+        return c == 'J' ? 'I' : c;
+    }
+
+    private static int normalize(byte c) {
+        return c == 'J' ? 'I' : c;
+    }
+
+    private int place(char c, boolean[] used, int cell) {
+        if (used[c - 'A']) {
+            return cell;
+        }
+        used[c - 'A'] = true;
+        square[cell] = c;
+        cellOf[c - 'A'] = (byte) cell;
+        return cell + 1;
+    }
+
+    // Playfair rules for one pair of cells; step is +1 to encrypt and +4 (-1 mod 5) to decrypt
+    private void fillPair(int cell1, int cell2, int step, char[] table, int idx) {
+        int r1 = cell1 / SIZE, c1 = cell1 % SIZE;
+        int r2 = cell2 / SIZE, c2 = cell2 % SIZE;
+        if (r1 == r2) { // Same row
+            table[idx] = square[r1 * SIZE + (c1 + step) % SIZE];
+            table[idx + 1] = square[r2 * SIZE + (c2 + step) % SIZE];
+        } else if (c1 == c2) { // Same column
+            table[idx] = square[((r1 + step) % SIZE) * SIZE + c1];
+            table[idx + 1] = square[((r2 + step) % SIZE) * SIZE + c2];
+        } else { // Rectangle
+            table[idx] = square[r1 * SIZE + c2];
+            table[idx + 1] = square[r2 * SIZE + c1];
+        }
+    }
+}
@@ -0,0 +1,328 @@
+import CNS.Common.NGramModel;
+
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+// Ciphertext-only key recovery for Playfair by simulated annealing.
+// A candidate key is a 25-byte square (letter indices, no J) plus a 26-entry table of
+// the cell holding each letter. Every move (swap two cells, two rows or two columns,
+// or transpose) is a series of cell swaps that update both in place, and is its own
+// inverse, so a rejected move is undone by applying it again. A trial decrypts into a
+// reusable byte[] and is scored with a quadgram model; nothing is allocated per trial.
+// One annealing chain runs per core, restarting from a random square until the time
+// budget runs out or a finished chain's plaintext reaches the fitness threshold.
+public final class PlayfairSolver {
+
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 20000;
+
+    // Fitness threshold per quadgram, as a multiple of the model's expected log-probability
+    // (scores are negative, so a factor above 1 allows text a little less typical than the model)
+    public static final double DEFAULT_THRESHOLD_FACTOR = 1.12;
+
+    private static final int SIZE = 5;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int J = 'J' - 'A';
+    private static final int I = 'I' - 'A';
+
+    // Annealing schedule: the temperature falls from its start to 0 in STEPS equal steps
+    // of ITERATIONS moves each. The start grows with the text, since score differences do.
+    private static final int STEPS = 100;
+    private static final int ITERATIONS = 5000;
+    private static final double BASE_TEMPERATURE = 5;
+    private static final double TEMPERATURE_PER_LETTER = 0.05;
+
+    // Cell to the left / above of each cell, wrapping around (decryption moves)
+    private static final byte[] LEFT = new byte[CELLS];
+    private static final byte[] UP = new byte[CELLS];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int r = cell / SIZE, c = cell % SIZE;
+            LEFT[cell] = (byte) (r * SIZE + (c + SIZE - 1) % SIZE);
+            UP[cell] = (byte) ((r + SIZE - 1) % SIZE * SIZE + c);
+        }
+    }
+
+    private PlayfairSolver() {
+    }
+
+    public static final class Result {
+        private final String key;
+        private final double score;
+        private final int quadgrams;
+        private final boolean reachedThreshold;
+        private final long chains;
+        private final long elapsedNanos;
+
+        Result(String key, double score, int quadgrams, boolean reachedThreshold, long chains, long elapsedNanos) {
+            this.key = key;
+            this.score = score;
+            this.quadgrams = quadgrams;
+            this.reachedThreshold = reachedThreshold;
+            this.chains = chains;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // The 25-letter square, row by row; usable as the key of playfairDecrypt
+        public String key() {
+            return key;
+        }
+
+        public double score() {
+            return score;
+        }
+
+        public double scorePerQuadgram() {
+            return score / quadgrams;
+        }
+
+        public boolean reachedThreshold() {
+            return reachedThreshold;
+        }
+
+        // Annealing chains finished (or stopped early) across all cores
+        public long chains() {
+            return chains;
+        }
+
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public String decrypt(String ciphertext) {
+            return PlayfairKey.of(key).decrypt(ciphertext);
+        }
+    }
+
+    public static Result solve(String ciphertext) {
+        return solve(ciphertext, DEFAULT_TIME_BUDGET_MILLIS, null);
+    }
+
+    public static Result solve(String ciphertext, long timeBudgetMillis, Consumer<Result> onImprovement) {
+        NGramModel quadgrams = NGramModel.englishQuadgrams();
+        return solve(ciphertext, timeBudgetMillis, DEFAULT_THRESHOLD_FACTOR * quadgrams.expectedLogProb(),
+                quadgrams, onImprovement);
+    }
+
+    // Runs until the time budget is used up or a key scores at least thresholdPerQuadgram
+    // per quadgram. onImprovement (may be null) is called with every new best key, from
+    // the chain that found it.
+    public static Result solve(String ciphertext, long timeBudgetMillis, double thresholdPerQuadgram,
+                               NGramModel quadgrams, Consumer<Result> onImprovement) {
+        if (quadgrams.order() != 4) {
+            throw new IllegalArgumentException("Expected a quadgram model.");
+        }
+        char[] letters = Letters.upperLetters(ciphertext);
+        if (letters.length < 4 || letters.length % 2 != 0) {
+            throw new IllegalArgumentException("Ciphertext must have an even number of letters (at least 4).");
+        }
+        byte[] cipher = new byte[letters.length];
+        for (int i = 0; i < letters.length; i++) {
+            int v = letters[i] - 'A';
+            cipher[i] = (byte) (v == J ? I : v);
+        }
+        long start = System.nanoTime();
+        long deadline = start + timeBudgetMillis * 1_000_000L;
+        Best best = new Best(cipher.length - 3, thresholdPerQuadgram * (cipher.length - 3), start, onImprovement);
+        int workers = Runtime.getRuntime().availableProcessors();
+        IntStream.range(0, workers).parallel().forEach(w -> {
+            Chain chain = new Chain(cipher, quadgrams, new SplittableRandom(start * 31 + w));
+            while (!best.done && System.nanoTime() < deadline) {
+                chain.anneal(best, deadline);
+            }
+        });
+        return best.result();
+    }
+
+    // One worker's state: the square, its position table and the scratch buffers
+    static final class Chain {
+        private final byte[] cipher;
+        private final byte[] plain;
+        private final NGramModel quadgrams;
+        private final SplittableRandom random;
+        private final byte[] square = new byte[CELLS];
+        private final byte[] cellOf = new byte[26];
+        private final byte[] bestSquare = new byte[CELLS];
+        private final double startTemperature;
+
+        Chain(byte[] cipher, NGramModel quadgrams, SplittableRandom random) {
+            this.cipher = cipher;
+            this.plain = new byte[cipher.length];
+            this.quadgrams = quadgrams;
+            this.random = random;
+            this.startTemperature = BASE_TEMPERATURE + TEMPERATURE_PER_LETTER * cipher.length;
+        }
+
+        void anneal(Best best, long deadline) {
+            randomSquare();
+            double score = score();
+            double bestScore = score;
+            System.arraycopy(square, 0, bestSquare, 0, CELLS);
+            for (int step = STEPS; step > 0 && !best.done; step--) {
+                double temperature = startTemperature * step / STEPS;
+                for (int it = 0; it < ITERATIONS; it++) {
+                    int move = random.nextInt(50);
+                    int x = random.nextInt(CELLS);
+                    int y = random.nextInt(CELLS);
+                    apply(move, x, y);
+                    double s = score();
+                    double delta = s - score;
+                    if (delta >= 0 || Math.exp(delta / temperature) > random.nextDouble()) {
+                        score = s;
+                        if (score > bestScore) {
+                            bestScore = score;
+                            System.arraycopy(square, 0, bestSquare, 0, CELLS);
+                        }
+                    } else {
+                        apply(move, x, y); // Every move is its own inverse
+                    }
+                }
+                best.offer(bestSquare, bestScore, false);
+                if (System.nanoTime() > deadline) {
+                    break;
+                }
+            }
+            best.offer(bestSquare, bestScore, true);
+        }
+
+        // 0: swap rows, 1: swap columns, 2: transpose, otherwise swap two cells
+        void apply(int move, int x, int y) {
+            switch (move) {
+                case 0:
+                    for (int c = 0; c < SIZE; c++) {
+                        swap(x / SIZE * SIZE + c, y / SIZE * SIZE + c);
+                    }
+                    break;
+                case 1:
+                    for (int r = 0; r < SIZE; r++) {
+                        swap(r * SIZE + x % SIZE, r * SIZE + y % SIZE);
+                    }
+                    break;
+                case 2:
+                    for (int r = 0; r < SIZE; r++) {
+                        for (int c = r + 1; c < SIZE; c++) {
+                            swap(r * SIZE + c, c * SIZE + r);
+                        }
+                    }
+                    break;
+                default:
+                    swap(x, y);
+            }
+        }
+
+        private void swap(int i, int j) {
+            byte a = square[i];
+            byte b = square[j];
+            square[i] = b;
+            square[j] = a;
+            cellOf[b] = (byte) i;
+            cellOf[a] = (byte) j;
+        }
+
+        void randomSquare() {
+            for (int v = 0, cell = 0; v < 26; v++) {
+                if (v != J) {
+                    square[cell] = (byte) v;
+                    cellOf[v] = (byte) cell++;
+                }
+            }
+            for (int i = CELLS - 1; i > 0; i--) {
+                swap(i, random.nextInt(i + 1));
+            }
+        }
+
+        // The square as 25 letters, row by row
+        String square() {
+            char[] letters = new char[CELLS];
+            for (int i = 0; i < CELLS; i++) {
+                letters[i] = (char) ('A' + square[i]);
+            }
+            return new String(letters);
+        }
+
+        // True when the square holds every letter but J once and cellOf is its inverse
+        boolean positionsConsistent() {
+            for (int v = 0; v < 26; v++) {
+                if (v != J && square[cellOf[v]] != v) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Decrypts every pair into plain and returns its quadgram score
+        private double score() {
+            for (int i = 0; i < cipher.length; i += 2) {
+                int a = cellOf[cipher[i]];
+                int b = cellOf[cipher[i + 1]];
+                int ra = a / SIZE, rb = b / SIZE;
+                int ca = a - ra * SIZE, cb = b - rb * SIZE;
+                if (ra == rb) {
+                    a = LEFT[a];
+                    b = LEFT[b];
+                } else if (ca == cb) {
+                    a = UP[a];
+                    b = UP[b];
+                } else {
+                    a = ra * SIZE + cb;
+                    b = rb * SIZE + ca;
+                }
+                plain[i] = square[a];
+                plain[i + 1] = square[b];
+            }
+            return quadgrams.score(plain, 0, plain.length);
+        }
+    }
+
+    // Best key over all chains. done is set once a finished chain reaches the threshold.
+    private static final class Best {
+        private final int quadgrams;
+        private final double threshold;
+        private final long start;
+        private final Consumer<Result> onImprovement;
+        private final char[] key = new char[CELLS];
+        private double score = Double.NEGATIVE_INFINITY;
+        private long chains;
+        private volatile boolean done;
+
+        Best(int quadgrams, double threshold, long start, Consumer<Result> onImprovement) {
+            this.quadgrams = quadgrams;
+            this.threshold = threshold;
+            this.start = start;
+            this.onImprovement = onImprovement;
+        }
+
+        // Called after every temperature step with the chain's best so far, and once more
+        // when the chain has cooled down. Only a finished chain can end the search: a
+        // half-right square met mid-chain can already score close to the threshold.
+        void offer(byte[] square, double candidateScore, boolean chainFinished) {
+            Result improved = null;
+            synchronized (this) {
+                if (chainFinished) {
+                    chains++;
+                    if (candidateScore >= threshold) {
+                        done = true;
+                    }
+                }
+                if (candidateScore > score) {
+                    score = candidateScore;
+                    for (int i = 0; i < CELLS; i++) {
+                        key[i] = (char) ('A' + square[i]);
+                    }
+                    if (onImprovement != null) {
+                        improved = result();
+                    }
+                }
+            }
+            if (improved != null) {
+                onImprovement.accept(improved);
+            }
+        }
+
+        synchronized Result result() {
+            return new Result(new String(key), score, quadgrams, done, chains,
+                    System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+import CNS.Common.EnglishStats;
+import CNS.Common.MappedFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Recovers the key of a vigenereEncrypt ciphertext.
+// The ciphertext is read once into a byte[] of letter indices (0..25); everything
+// after that works on primitive arrays. A file given as a Path goes straight from its
+// memory mapping into a buffer sized once; an InputStream of unknown length has its
+// letter buffer grown by doubling.
+//  - key length: for every candidate length L (evaluated in parallel) the average
+//    index of coincidence of the L columns, plus Kasiski votes from the spacing of
+//    repeated trigrams (a trigram is its own perfect hash, a*676 + b*26 + c, so the
+//    "last seen" table is a flat int[17576] instead of a map of Strings);
+//  - key letters: each column is a Caesar cipher, solved by scoring the rotated
+//    column histogram against English (no decoding).
+public final class VigenereCracker {
+
+    public static final int DEFAULT_MAX_KEY_LENGTH = 40;
+
+    private static final int TRIGRAMS = 26 * 26 * 26;
+    private static final int READ_CHUNK = 8192;
+
+    // Lengths whose IC is at least this far from random text towards the best IC are
+    // treated as plausible; Kasiski votes then pick among them
+    private static final double IC_CUTOFF = 0.5;
+
+    private VigenereCracker() {
+    }
+
+    public static final class Result {
+        private final String key;
+        private final double[] ic;     // ic[L] for L = 1..maxKeyLength
+        private final int[] votes;     // Kasiski votes for L
+        private final int letters;
+
+        Result(String key, double[] ic, int[] votes, int letters) {
+            this.key = key;
+            this.ic = ic;
+            this.votes = votes;
+            this.letters = letters;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public int keyLength() {
+            return key.length();
+        }
+
+        // Average column index of coincidence for key length L
+        public double indexOfCoincidence(int keyLength) {
+            return ic[keyLength];
+        }
+
+        // Number of repeated-trigram spacings divisible by L
+        public int kasiskiVotes(int keyLength) {
+            return votes[keyLength];
+        }
+
+        public int maxKeyLength() {
+            return ic.length - 1;
+        }
+
+        public int letterCount() {
+            return letters;
+        }
+
+        public String decrypt(String ciphertext) {
+            return SimplifiedCiphers.vigenereDecrypt(ciphertext, key);
+        }
+    }
+
+    public static Result crack(CharSequence ciphertext) {
+        return crack(ciphertext, DEFAULT_MAX_KEY_LENGTH);
+    }
+
+    public static Result crack(CharSequence ciphertext, int maxKeyLength) {
+        int n = ciphertext.length();
+        byte[] letters = new byte[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int v = (ciphertext.charAt(i) | 0x20) - 'a';
+            if (v >= 0 && v < 26) {
+                letters[count++] = (byte) v;
+            }
+        }
+        return analyze(letters, count, maxKeyLength);
+    }
+
+    // Reads the mapped file once, keeping only the letters
+    public static Result crack(Path file, int maxKeyLength) throws IOException {
+        try (MappedFile mapped = MappedFile.openRead(file)) {
+            long size = mapped.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Ciphertext files over 2 GB are not supported.");
+            }
+            byte[] letters = new byte[(int) size];
+            int count = 0;
+            for (long pos = 0; pos < size; pos += MappedFile.REGION_SIZE) {
+                MappedByteBuffer region = mapped.regionOf(pos);
+                for (int i = 0, end = region.limit(); i < end; i++) {
+                    int v = (region.get(i) | 0x20) - 'a';
+                    if (v >= 0 && v < 26) {
+                        letters[count++] = (byte) v;
+                    }
+                }
+            }
+            return analyze(letters, count, maxKeyLength);
+        }
+    }
+
+    // Reads the stream once, keeping only the letters
+    public static Result crack(InputStream in, int maxKeyLength) throws IOException {
+        byte[] letters = new byte[READ_CHUNK];
+        byte[] chunk = new byte[READ_CHUNK];
+        int count = 0;
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            if (letters.length - count < n) {
+                letters = Arrays.copyOf(letters, Math.max(letters.length * 2, count + n));
+            }
+            for (int i = 0; i < n; i++) {
+                int v = (chunk[i] | 0x20) - 'a';
+                if (v >= 0 && v < 26) {
+                    letters[count++] = (byte) v;
+                }
+            }
+        }
+        return analyze(letters, count, maxKeyLength);
+    }
+
+    // letters[0, count) holds letter indices 0..25
+    static Result analyze(byte[] letters, int count, int maxKeyLength) {
+        if (count == 0) {
+            throw new IllegalArgumentException("Ciphertext contains no letters.");
+        }
+        int maxLen = Math.max(1, Math.min(maxKeyLength, count / 2));
+        double[] ic = new double[maxLen + 1];
+        IntStream.rangeClosed(1, maxLen).parallel().forEach(len -> ic[len] = averageColumnIc(letters, count, len));
+        int[] votes = kasiski(letters, count, maxLen);
+        int keyLength = chooseKeyLength(ic, votes);
+        return new Result(solveKey(letters, count, keyLength), ic, votes, count);
+    }
+
+    static double averageColumnIc(byte[] letters, int count, int len) {
+        int[] histograms = new int[len * 26];
+        for (int i = 0, col = 0; i < count; i++) {
+            histograms[col * 26 + letters[i]]++;
+            if (++col == len) {
+                col = 0;
+            }
+        }
+        double sum = 0;
+        for (int col = 0; col < len; col++) {
+            long pairs = 0;
+            int total = 0;
+            for (int c = 0; c < 26; c++) {
+                int f = histograms[col * 26 + c];
+                pairs += (long) f * (f - 1);
+                total += f;
+            }
+            sum += total > 1 ? pairs / ((double) total * (total - 1)) : 0;
+        }
+        return sum / len;
+    }
+
+    // votes[L] = number of distances between repeated trigrams that L divides
+    static int[] kasiski(byte[] letters, int count, int maxLen) {
+        int[] votes = new int[maxLen + 1];
+        int[] lastSeen = new int[TRIGRAMS];
+        Arrays.fill(lastSeen, -1);
+        if (count < 3) {
+            return votes;
+        }
+        int trigram = letters[0] * 26 + letters[1];
+        for (int i = 2; i < count; i++) {
+            trigram = (trigram % 676) * 26 + letters[i]; // Roll: drop the oldest letter, add the newest
+            int start = i - 2;
+            int previous = lastSeen[trigram];
+            if (previous >= 0) {
+                int distance = start - previous;
+                for (int len = 1; len <= maxLen; len++) {
+                    if (distance % len == 0) {
+                        votes[len]++;
+                    }
+                }
+            }
+            lastSeen[trigram] = start;
+        }
+        return votes;
+    }
+
+    static int chooseKeyLength(double[] ic, int[] votes) {
+        double best = ic[1];
+        int bestIcLength = 1;
+        for (int len = 2; len < ic.length; len++) {
+            if (ic[len] > best) {
+                best = ic[len];
+                bestIcLength = len;
+            }
+        }
+        double cutoff = EnglishStats.RANDOM_IC + IC_CUTOFF * (best - EnglishStats.RANDOM_IC);
+        // A random spacing is divisible by L with probability 1/L, so votes[L] * L
+        // compares lengths fairly: divisors of the real length collect extra random
+        // votes, but not enough to make up for the smaller factor. Multiples score about
+        // the same as the real length, and phrases repeated at an unlucky distance can
+        // push one of them ahead, so the shortest length scoring at least half the best
+        // wins; solveKey folds a repeated key back down.
+        long bestScore = -1;
+        for (int len = 1; len < ic.length; len++) {
+            if (ic[len] >= cutoff) {
+                bestScore = Math.max(bestScore, (long) votes[len] * len);
+            }
+        }
+        int choice = -1;
+        for (int len = 1; len < ic.length && choice < 0; len++) {
+            if (ic[len] >= cutoff && (long) votes[len] * len * 2 >= bestScore) {
+                choice = len;
+            }
+        }
+        // Nothing clears the cutoff when every IC is at or below random (e.g. a handful
+        // of distinct letters); the highest IC is then the best guess there is
+        return choice > 0 ? choice : bestIcLength;
+    }
+
+    static String solveKey(byte[] letters, int count, int keyLength) {
+        int[] histogram = new int[26];
+        char[] key = new char[keyLength];
+        for (int col = 0; col < keyLength; col++) {
+            Arrays.fill(histogram, 0);
+            int total = 0;
+            for (int i = col; i < count; i += keyLength) {
+                histogram[letters[i]]++;
+                total++;
+            }
+            int bestShift = 0;
+            double bestScore = Double.MAX_VALUE;
+            for (int s = 0; s < 26; s++) {
+                double score = EnglishStats.chiSquared(histogram, total, s);
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestShift = s;
+                }
+            }
+            key[col] = (char) ('A' + bestShift);
+        }
+        return new String(key, 0, shortestPeriod(key));
+    }
+
+    // A recovered key like KEYKEY means the length was a multiple of the real one
+    private static int shortestPeriod(char[] key) {
+        for (int period = 1; period < key.length; period++) {
+            if (key.length % period != 0) {
+                continue;
+            }
+            boolean repeats = true;
+            for (int i = period; i < key.length && repeats; i++) {
+                repeats = key[i] == key[i - period];
+            }
+            if (repeats) {
+                return period;
+            }
+        }
+        return key.length;
+    }
+}
@@ -0,0 +1,260 @@
+import CNS.Common.CipherMetrics;
+import CNS.Common.KeyCache;
+
+import java.util.stream.IntStream;
+
+// Compiled Vigenere key: the key letters pre-expanded into shift arrays for both
+// directions, so the inner loop is an add and a compare-and-subtract per letter.
+// The buffer methods leave non-letters in place and advance the key only on letters
+// (ASCII a-z is folded to upper case). They take the key phase to start from and
+// return the phase to continue with, so a message can be processed in pieces.
+// Large buffers can be split across the common ForkJoinPool: a parallel count of
+// letters per chunk gives each chunk its starting phase, so the output is identical
+// to a single sequential pass. When LetterKernel.VECTOR is available, ranges of
+// LetterKernel.MIN_LENGTH or more run through its SIMD loop, with the same output.
+public final class VigenereKey {
+
+    private static final int CACHE_CAPACITY = 4096;
+    private static final KeyCache<String, VigenereKey> CACHE = new KeyCache<>(CACHE_CAPACITY, "vigenere");
+    private static final CipherMetrics.Operation ENCRYPT_METRICS = CipherMetrics.operation("vigenere", "encrypt");
+    private static final CipherMetrics.Operation DECRYPT_METRICS = CipherMetrics.operation("vigenere", "decrypt");
+
+    // Below this many chars the String methods stay on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final String key;
+    private final byte[] encryptShifts;
+    private final byte[] decryptShifts;
+    // LetterKernel.VECTOR's form of the shifts, null when the scalar loops are in use
+    private final Object encryptStream;
+    private final Object decryptStream;
+
+    private VigenereKey(String key) {
+        char[] letters = Letters.upperLetters(key);
+        if (letters.length == 0) {
+            throw new IllegalArgumentException("Vigenere key must contain at least one letter.");
+        }
+        this.key = key;
+        encryptShifts = new byte[letters.length];
+        decryptShifts = new byte[letters.length];
+        for (int i = 0; i < letters.length; i++) {
+            encryptShifts[i] = (byte) (letters[i] - 'A');
+            decryptShifts[i] = (byte) ((26 - encryptShifts[i]) % 26);
+        }
+        LetterKernel kernel = LetterKernel.VECTOR;
+        encryptStream = kernel != null ? kernel.keyStream(encryptShifts) : null;
+        decryptStream = kernel != null ? kernel.keyStream(decryptShifts) : null;
+    }
+
+    // Returns the compiled key, reusing a cached one when this key was seen recently
+    public static VigenereKey of(String key) {
+        return CACHE.get(key, VigenereKey::new);
+    }
+
+    // Compiles the key without touching the cache
+    public static VigenereKey compile(String key) {
+        return new VigenereKey(key);
+    }
+
+    static KeyCache<String, VigenereKey> cache() {
+        return CACHE;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    // Number of letters in the normalized key, i.e. the period of the key phase
+    public int period() {
+        return encryptShifts.length;
+    }
+
+    // Shift applied at a given key phase when encrypting
+    public int shiftAt(int phase) {
+        return encryptShifts[phase];
+    }
+
+    // --- String API, same results as the original vigenereEncrypt/vigenereDecrypt ---
+
+    public String encrypt(String plaintext) {
+        long start = ENCRYPT_METRICS.start();
+        String result = transform(encryptShifts, encryptStream, plaintext);
+        ENCRYPT_METRICS.stop(start, plaintext.length());
+        return result;
+    }
+
+    public String decrypt(String ciphertext) {
+        long start = DECRYPT_METRICS.start();
+        String result = transform(decryptShifts, decryptStream, ciphertext);
+        DECRYPT_METRICS.stop(start, ciphertext.length());
+        return result;
+    }
+
+    // --- char[] API ---
+
+    public int encrypt(char[] in, int off, int len, char[] out, int outOff, int phase) {
+        return transform(encryptShifts, encryptStream, in, off, len, out, outOff, phase);
+    }
+
+    public int decrypt(char[] in, int off, int len, char[] out, int outOff, int phase) {
+        return transform(decryptShifts, decryptStream, in, off, len, out, outOff, phase);
+    }
+
+    public int encryptParallel(char[] in, int off, int len, char[] out, int outOff, int phase) {
+        return transformParallel(encryptShifts, encryptStream, in, off, len, out, outOff, phase);
+    }
+
+    public int decryptParallel(char[] in, int off, int len, char[] out, int outOff, int phase) {
+        return transformParallel(decryptShifts, decryptStream, in, off, len, out, outOff, phase);
+    }
+
+    // --- byte[] API (ASCII; bytes >= 0x80 pass through untouched) ---
+
+    public int encrypt(byte[] in, int off, int len, byte[] out, int outOff, int phase) {
+        return transform(encryptShifts, encryptStream, in, off, len, out, outOff, phase);
+    }
+
+    public int decrypt(byte[] in, int off, int len, byte[] out, int outOff, int phase) {
+        return transform(decryptShifts, decryptStream, in, off, len, out, outOff, phase);
+    }
+
+    public int encryptParallel(byte[] in, int off, int len, byte[] out, int outOff, int phase) {
+        return transformParallel(encryptShifts, encryptStream, in, off, len, out, outOff, phase);
+    }
+
+    public int decryptParallel(byte[] in, int off, int len, byte[] out, int outOff, int phase) {
+        return transformParallel(decryptShifts, decryptStream, in, off, len, out, outOff, phase);
+    }
+
+    private static String transform(byte[] shifts, Object stream, String text) {
+        char[] letters = Letters.upperLetters(text);
+        int n = letters.length;
+        if (n < PARALLEL_THRESHOLD) {
+            transform(shifts, stream, letters, 0, n, letters, 0, 0);
+        } else {
+            transformParallel(shifts, stream, letters, 0, n, letters, 0, 0);
+        }
+        return new String(letters);
+    }
+
+    // stream is the key's LetterKernel.VECTOR form, or null for the scalar loop
+    static int transform(byte[] shifts, Object stream, char[] in, int off, int len, char[] out, int outOff, int phase) {
+        if (stream != null && len >= LetterKernel.MIN_LENGTH) {
+            return LetterKernel.VECTOR.vigenere(stream, in, off, len, out, outOff, phase);
+        }
+        int period = shifts.length;
+        for (int i = 0; i < len; i++) {
+            char c = in[off + i];
+            int v = (c | 0x20) - 'a';
+            if (v >= 0 && v < 26) {
+                int r = v + shifts[phase];
+                if (r >= 26) {
+                    r -= 26;
+                }
+                out[outOff + i] = (char) ('A' + r);
+                if (++phase == period) {
+                    phase = 0;
+                }
+            } else {
+                out[outOff + i] = c; // Keep non-alphabetic chars as is
+            }
+        }
+        return phase;
+    }
+
+    static int transform(byte[] shifts, Object stream, byte[] in, int off, int len, byte[] out, int outOff, int phase) {
+        if (stream != null && len >= LetterKernel.MIN_LENGTH) {
+            return LetterKernel.VECTOR.vigenere(stream, in, off, len, out, outOff, phase);
+        }
+        int period = shifts.length;
+        for (int i = 0; i < len; i++) {
+            byte b = in[off + i];
+            int v = (b | 0x20) - 'a';
+            if (v >= 0 && v < 26) {
+                int r = v + shifts[phase];
+                if (r >= 26) {
+                    r -= 26;
+                }
+                out[outOff + i] = (byte) ('A' + r);
+                if (++phase == period) {
+                    phase = 0;
+                }
+            } else {
+                out[outOff + i] = b;
+            }
+        }
+        return phase;
+    }
+
+    private static int transformParallel(byte[] shifts, Object stream, char[] in, int off, int len,
+                                         char[] out, int outOff, int phase) {
+        if (!worthSplitting(len)) {
+            return transform(shifts, stream, in, off, len, out, outOff, phase);
+        }
+        int chunks = (len + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[] phases = new int[chunks + 1];
+        IntStream.range(0, chunks).parallel().forEach(c ->
+                phases[c + 1] = countLetters(in, off + c * CHUNK_SIZE, chunkLength(len, c)));
+        prefixPhases(phases, phase, shifts.length);
+        IntStream.range(0, chunks).parallel().forEach(c ->
+                transform(shifts, stream, in, off + c * CHUNK_SIZE, chunkLength(len, c),
+                        out, outOff + c * CHUNK_SIZE, phases[c]));
+        return phases[chunks];
+    }
+
+    private static int transformParallel(byte[] shifts, Object stream, byte[] in, int off, int len,
+                                         byte[] out, int outOff, int phase) {
+        if (!worthSplitting(len)) {
+            return transform(shifts, stream, in, off, len, out, outOff, phase);
+        }
+        int chunks = (len + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[] phases = new int[chunks + 1];
+        IntStream.range(0, chunks).parallel().forEach(c ->
+                phases[c + 1] = countLetters(in, off + c * CHUNK_SIZE, chunkLength(len, c)));
+        prefixPhases(phases, phase, shifts.length);
+        IntStream.range(0, chunks).parallel().forEach(c ->
+                transform(shifts, stream, in, off + c * CHUNK_SIZE, chunkLength(len, c),
+                        out, outOff + c * CHUNK_SIZE, phases[c]));
+        return phases[chunks];
+    }
+
+    // phases[c + 1] holds the letter count of chunk c; turn that into each chunk's starting phase
+    private static void prefixPhases(int[] phases, int phase, int period) {
+        phases[0] = phase;
+        for (int c = 1; c < phases.length; c++) {
+            phases[c] = (int) ((phases[c - 1] + (long) phases[c]) % period);
+        }
+    }
+
+    // The letter-count pass only pays off when there are cores to share the work
+    private static boolean worthSplitting(int len) {
+        return len > CHUNK_SIZE && Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    private static int chunkLength(int len, int chunk) {
+        return Math.min(CHUNK_SIZE, len - chunk * CHUNK_SIZE);
+    }
+
+    static int countLetters(char[] in, int off, int len) {
+        int count = 0;
+        for (int i = 0; i < len; i++) {
+            int v = (in[off + i] | 0x20) - 'a';
+            if (v >= 0 && v < 26) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static int countLetters(byte[] in, int off, int len) {
+        int count = 0;
+        for (int i = 0; i < len; i++) {
+            int v = (in[off + i] | 0x20) - 'a';
+            if (v >= 0 && v < 26) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
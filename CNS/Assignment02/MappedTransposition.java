@@ -0,0 +1,157 @@
+package CNS.Assignment02;
+
+import CNS.Common.MappedFile;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// File-level Rail Fence and Row-Column transposition over memory-mapped files.
+// Every output byte is gathered from its closed-form source position in the mapped
+// input and written straight into the mapped output, in independent 16 MB output
+// chunks on the common ForkJoinPool. Offsets are longs, so files can exceed 2 GB.
+// All bytes are transposed (spaces are not dropped). The columnar cipher pads the
+// last row with 'X', so decrypting it needs the original file length. A transposition
+// cannot run in place, so the output must be a different file.
+public final class MappedTransposition {
+
+    private MappedTransposition() {
+    }
+
+    public static void railFenceEncrypt(Path in, Path out, int key) throws IOException {
+        RailFenceCipher.checkKey(key);
+        checkDistinct(in, out);
+        try (MappedFile src = MappedFile.openRead(in);
+             MappedFile dst = MappedFile.create(out, src.size())) {
+            long n = src.size();
+            if (key >= n || key == 1) {
+                // Every character on a rail of its own (or all on one): the identity
+                copy(src, dst, n);
+                return;
+            }
+            long cycle = 2L * (key - 1);
+            long[] railStart = RailFenceCipher.railStarts(n, key);
+            MappedFile.forEachChunk(n, (chunk, from, to) -> {
+                MappedByteBuffer target = dst.regionOf(from);
+                int o = MappedFile.offsetInRegion(from);
+                // Start on the rail holding ciphertext index 'from', then walk the rails
+                int rail = RailFenceCipher.railOf(railStart, from);
+                long railLen = RailFenceCipher.railLength(n, key, rail);
+                long k = from - railStart[rail];
+                for (long j = from; j < to; j++) {
+                    while (k == railLen) {
+                        rail++;
+                        k = 0;
+                        railLen = RailFenceCipher.railLength(n, key, rail);
+                    }
+                    target.put(o++, src.get(RailFenceCipher.positionOnRail(rail, k++, key, cycle)));
+                }
+            });
+        }
+    }
+
+    public static void railFenceDecrypt(Path in, Path out, int key) throws IOException {
+        RailFenceCipher.checkKey(key);
+        checkDistinct(in, out);
+        try (MappedFile src = MappedFile.openRead(in);
+             MappedFile dst = MappedFile.create(out, src.size())) {
+            long n = src.size();
+            if (key >= n || key == 1) {
+                // Every character on a rail of its own (or all on one): the identity
+                copy(src, dst, n);
+                return;
+            }
+            long cycle = 2L * (key - 1);
+            long[] railStart = RailFenceCipher.railStarts(n, key);
+            // Plaintext position i sits on rail r at index k: gather it from railStart[r] + k
+            MappedFile.forEachChunk(n, (chunk, from, to) -> {
+                MappedByteBuffer target = dst.regionOf(from);
+                int o = MappedFile.offsetInRegion(from);
+                for (long i = from; i < to; i++) {
+                    long cycles = i / cycle;
+                    int p = (int) (i - cycles * cycle);
+                    int rail = p < key ? p : (int) (cycle - p);
+                    long k = rail == 0 || rail == key - 1 ? cycles : 2 * cycles + (p == rail ? 0 : 1);
+                    target.put(o++, src.get(railStart[rail] + k));
+                }
+            });
+        }
+    }
+
+    // Returns the ciphertext length (the input length padded up to whole rows)
+    public static long columnarEncrypt(Path in, Path out, String key) throws IOException {
+        checkDistinct(in, out);
+        int[] order = TranspositionKey.of(key).order();
+        int cols = order.length;
+        try (MappedFile src = MappedFile.openRead(in)) {
+            long n = src.size();
+            long rows = (n + cols - 1) / cols;
+            long size = rows * cols;
+            try (MappedFile dst = MappedFile.create(out, size)) {
+                // Ciphertext index j is row j % rows of the (j / rows)-th column in key order
+                MappedFile.forEachChunk(size, (chunk, from, to) -> {
+                    MappedByteBuffer target = dst.regionOf(from);
+                    int o = MappedFile.offsetInRegion(from);
+                    for (long j = from; j < to; j++) {
+                        long rank = j / rows;
+                        long i = (j - rank * rows) * cols + order[(int) rank];
+                        target.put(o++, i < n ? src.get(i) : (byte) 'X');
+                    }
+                });
+            }
+            return size;
+        }
+    }
+
+    // plaintextLength is the length of the file that was encrypted
+    public static void columnarDecrypt(Path in, Path out, String key, long plaintextLength) throws IOException {
+        checkDistinct(in, out);
+        int[] order = TranspositionKey.of(key).order();
+        int cols = order.length;
+        int[] rankOf = new int[cols];
+        for (int rank = 0; rank < cols; rank++) {
+            rankOf[order[rank]] = rank;
+        }
+        try (MappedFile src = MappedFile.openRead(in)) {
+            long size = src.size();
+            if (size % cols != 0) {
+                throw new IllegalArgumentException("Ciphertext length must be a multiple of the key length.");
+            }
+            if (plaintextLength < 0 || plaintextLength > size) {
+                throw new IllegalArgumentException("Plaintext length must be between 0 and the ciphertext length.");
+            }
+            long rows = size / cols;
+            try (MappedFile dst = MappedFile.create(out, plaintextLength)) {
+                // Plaintext position i is cell (i / cols, i % cols) of the grid
+                MappedFile.forEachChunk(plaintextLength, (chunk, from, to) -> {
+                    MappedByteBuffer target = dst.regionOf(from);
+                    int o = MappedFile.offsetInRegion(from);
+                    for (long i = from; i < to; i++) {
+                        long r = i / cols;
+                        int col = (int) (i - r * cols);
+                        target.put(o++, src.get(rankOf[col] * rows + r));
+                    }
+                });
+            }
+        }
+    }
+
+    private static void checkDistinct(Path in, Path out) throws IOException {
+        if (Files.exists(out) && Files.isSameFile(in, out)) {
+            throw new IllegalArgumentException("Transposition output must be a different file from the input.");
+        }
+    }
+
+    private static void copy(MappedFile src, MappedFile dst, long n) {
+        MappedFile.forEachChunk(n, (chunk, from, to) -> {
+            MappedByteBuffer source = src.regionOf(from);
+            MappedByteBuffer target = dst.regionOf(from);
+            int start = MappedFile.offsetInRegion(from);
+            int end = start + (int) (to - from);
+            for (int i = start; i < end; i++) {
+                target.put(i, source.get(i));
+            }
+        });
+    }
+}
@@ -0,0 +1,151 @@
+package CNS.Assignment02;
+
+import java.util.stream.IntStream;
+
+// A fixed reordering of a message of known length, used by the transposition ciphers.
+// Output position j takes the input character at source[j] (a "gather" table), so
+// encrypting is apply() and decrypting is applyInverse(). A source entry of -1 marks
+// a padding position that is filled with 'X' (the output can then be longer than
+// the input). Instances are immutable and can be cached and shared between threads.
+public final class Permutation {
+
+    // Messages at least this long are permuted in parallel chunks
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int CHUNK_SIZE = 1 << 18;
+
+    static final char PAD = 'X';
+
+    private final int[] source;
+    private final int inputLength;
+
+    // source must be a permutation of 0..source.length-1; the array is not copied
+    Permutation(int[] source) {
+        this(source, source.length);
+    }
+
+    // source must hold each of 0..inputLength-1 once and -1 everywhere else
+    Permutation(int[] source, int inputLength) {
+        this.source = source;
+        this.inputLength = inputLength;
+    }
+
+    // Length of the output of apply() (and of the input of applyInverse())
+    public int length() {
+        return source.length;
+    }
+
+    // Length of the input of apply() (and of the output of applyInverse())
+    public int inputLength() {
+        return inputLength;
+    }
+
+    // Input index that ends up at output index j, or -1 for padding
+    public int sourceOf(int j) {
+        return source[j];
+    }
+
+    public int[] toArray() {
+        return source.clone();
+    }
+
+    // out[outOff + j] = in[off + source[j]] (or 'X'); in and out must not overlap
+    public void apply(char[] in, int off, char[] out, int outOff) {
+        int n = source.length;
+        if (n < PARALLEL_THRESHOLD) {
+            gather(in, off, out, outOff, 0, n);
+            return;
+        }
+        IntStream.range(0, chunks(n)).parallel().forEach(c ->
+                gather(in, off, out, outOff, c * CHUNK_SIZE, Math.min(n, (c + 1) * CHUNK_SIZE)));
+    }
+
+    // out[outOff + source[j]] = in[off + j], undoing apply() and dropping padding;
+    // in and out must not overlap
+    public void applyInverse(char[] in, int off, char[] out, int outOff) {
+        int n = source.length;
+        if (n < PARALLEL_THRESHOLD) {
+            scatter(in, off, out, outOff, 0, n);
+            return;
+        }
+        IntStream.range(0, chunks(n)).parallel().forEach(c ->
+                scatter(in, off, out, outOff, c * CHUNK_SIZE, Math.min(n, (c + 1) * CHUNK_SIZE)));
+    }
+
+    // Same over ASCII byte buffers
+    public void apply(byte[] in, int off, byte[] out, int outOff) {
+        int n = source.length;
+        if (n < PARALLEL_THRESHOLD) {
+            gather(in, off, out, outOff, 0, n);
+            return;
+        }
+        IntStream.range(0, chunks(n)).parallel().forEach(c ->
+                gather(in, off, out, outOff, c * CHUNK_SIZE, Math.min(n, (c + 1) * CHUNK_SIZE)));
+    }
+
+    public void applyInverse(byte[] in, int off, byte[] out, int outOff) {
+        int n = source.length;
+        if (n < PARALLEL_THRESHOLD) {
+            scatter(in, off, out, outOff, 0, n);
+            return;
+        }
+        IntStream.range(0, chunks(n)).parallel().forEach(c ->
+                scatter(in, off, out, outOff, c * CHUNK_SIZE, Math.min(n, (c + 1) * CHUNK_SIZE)));
+    }
+
+    public String apply(String text) {
+        checkLength(text.length(), inputLength);
+        char[] out = new char[source.length];
+        apply(text.toCharArray(), 0, out, 0);
+        return new String(out);
+    }
+
+    public String applyInverse(String text) {
+        checkLength(text.length(), source.length);
+        char[] out = new char[inputLength];
+        applyInverse(text.toCharArray(), 0, out, 0);
+        return new String(out);
+    }
+
+    private void gather(char[] in, int off, char[] out, int outOff, int from, int to) {
+        for (int j = from; j < to; j++) {
+            int s = source[j];
+            out[outOff + j] = s < 0 ? PAD : in[off + s];
+        }
+    }
+
+    private void scatter(char[] in, int off, char[] out, int outOff, int from, int to) {
+        for (int j = from; j < to; j++) {
+            int s = source[j];
+            if (s >= 0) {
+                out[outOff + s] = in[off + j];
+            }
+        }
+    }
+
+    private void gather(byte[] in, int off, byte[] out, int outOff, int from, int to) {
+        for (int j = from; j < to; j++) {
+            int s = source[j];
+            out[outOff + j] = s < 0 ? (byte) PAD : in[off + s];
+        }
+    }
+
+    private void scatter(byte[] in, int off, byte[] out, int outOff, int from, int to) {
+        for (int j = from; j < to; j++) {
+            int s = source[j];
+            if (s >= 0) {
+                out[outOff + s] = in[off + j];
+            }
+        }
+    }
+
+    private static void checkLength(int length, int expected) {
+        if (length != expected) {
+            throw new IllegalArgumentException(
+                    "Permutation is for length " + expected + ", got " + length + ".");
+        }
+    }
+
+    private static int chunks(int n) {
+        return (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+}
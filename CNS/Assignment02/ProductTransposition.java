@@ -0,0 +1,191 @@
+package CNS.Assignment02;
+
+import CNS.Common.KeyCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Product cipher made of several transposition rounds (double columnar, rail fence
+// then columnar, ...). Instead of running the rounds one after another, the rounds
+// are composed into a single Permutation per message length, which is cached, so
+// encrypting or decrypting is one pass over the data however many rounds there are.
+//
+// Composition: if round 1 maps output j to input s1[j] and round 2 maps output j to
+// round-1 output s2[j], the product maps output j to s1[s2[j]]. A columnar round may
+// pad its input with 'X'; those positions are carried through as -1.
+//
+// Spaces: RowColumnTransposition drops spaces. When the product contains a columnar
+// round, spaces are dropped once on entry, so results match the round-by-round
+// classes for messages without spaces (or when the first round is columnar).
+public final class ProductTransposition {
+
+    private static final int PLAN_CACHE_CAPACITY = 32;
+
+    // One transposition round, described only by how it reorders a message of a given length
+    public interface Stage {
+        // Length of this round's output for an input of the given length
+        int outputLength(int inputLength);
+
+        // table[j] = input index read into output position j, or -1 for a padding 'X'
+        int[] sourceTable(int inputLength);
+
+        // True if the cipher drops spaces from its input
+        boolean dropsSpaces();
+    }
+
+    private final List<Stage> stages;
+    private final boolean dropsSpaces;
+    private final KeyCache<Integer, Permutation> plans = new KeyCache<>(PLAN_CACHE_CAPACITY);
+
+    private ProductTransposition(List<Stage> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("A product cipher needs at least one stage.");
+        }
+        this.stages = Collections.unmodifiableList(new ArrayList<>(stages));
+        boolean drops = false;
+        for (Stage stage : stages) {
+            drops |= stage.dropsSpaces();
+        }
+        this.dropsSpaces = drops;
+    }
+
+    public static ProductTransposition of(Stage... stages) {
+        return of(List.of(stages));
+    }
+
+    public static ProductTransposition of(List<Stage> stages) {
+        return new ProductTransposition(stages);
+    }
+
+    public static Stage railFence(int key) {
+        return new RailFenceStage(key);
+    }
+
+    public static Stage columnar(String key) {
+        return new ColumnarStage(TranspositionKey.of(key));
+    }
+
+    public List<Stage> stages() {
+        return stages;
+    }
+
+    // The composed permutation for plaintexts of this length (after dropping spaces)
+    public Permutation permutation(int plaintextLength) {
+        return plans.get(plaintextLength, this::compose);
+    }
+
+    // Encrypts in[off, off + len) into out in one pass; returns the ciphertext length
+    public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+        Permutation plan = permutation(len);
+        plan.apply(in, off, out, outOff);
+        return plan.length();
+    }
+
+    // Decrypts a ciphertext produced from a plaintext of plaintextLength chars
+    public void decrypt(char[] in, int off, int cipherLen, char[] out, int outOff, int plaintextLength) {
+        Permutation plan = permutation(plaintextLength);
+        if (cipherLen != plan.length()) {
+            throw new IllegalArgumentException("Ciphertext length " + cipherLen
+                    + " does not match a plaintext of length " + plaintextLength + ".");
+        }
+        plan.applyInverse(in, off, out, outOff);
+    }
+
+    // Same over ASCII byte buffers
+    public int encrypt(byte[] in, int off, int len, byte[] out, int outOff) {
+        Permutation plan = permutation(len);
+        plan.apply(in, off, out, outOff);
+        return plan.length();
+    }
+
+    public void decrypt(byte[] in, int off, int cipherLen, byte[] out, int outOff, int plaintextLength) {
+        Permutation plan = permutation(plaintextLength);
+        if (cipherLen != plan.length()) {
+            throw new IllegalArgumentException("Ciphertext length " + cipherLen
+                    + " does not match a plaintext of length " + plaintextLength + ".");
+        }
+        plan.applyInverse(in, off, out, outOff);
+    }
+
+    public String encrypt(String text) {
+        char[] plain = dropsSpaces ? text.replace(" ", "").toCharArray() : text.toCharArray();
+        Permutation plan = permutation(plain.length);
+        char[] out = new char[plan.length()];
+        plan.apply(plain, 0, out, 0);
+        return new String(out);
+    }
+
+    public String decrypt(String cipher, int plaintextLength) {
+        char[] in = cipher.toCharArray();
+        char[] out = new char[plaintextLength];
+        decrypt(in, 0, in.length, out, 0, plaintextLength);
+        return new String(out);
+    }
+
+    private Permutation compose(int plaintextLength) {
+        int length = plaintextLength;
+        int[] composed = null; // null means the identity on the plaintext
+        for (Stage stage : stages) {
+            int[] table = stage.sourceTable(length);
+            if (composed != null) {
+                for (int j = 0; j < table.length; j++) {
+                    int s = table[j];
+                    table[j] = s >= 0 && s < length ? composed[s] : -1;
+                }
+            }
+            composed = table;
+            length = stage.outputLength(length);
+        }
+        return new Permutation(composed, plaintextLength);
+    }
+
+    private static final class RailFenceStage implements Stage {
+        private final int key;
+
+        RailFenceStage(int key) {
+            if (key < 1) {
+                throw new IllegalArgumentException("Rail Fence key must be at least 1.");
+            }
+            this.key = key;
+        }
+
+        @Override
+        public int outputLength(int inputLength) {
+            return inputLength;
+        }
+
+        @Override
+        public int[] sourceTable(int inputLength) {
+            return RailFenceCipher.sourceTable(inputLength, key);
+        }
+
+        @Override
+        public boolean dropsSpaces() {
+            return false;
+        }
+    }
+
+    private static final class ColumnarStage implements Stage {
+        private final TranspositionKey key;
+
+        ColumnarStage(TranspositionKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public int outputLength(int inputLength) {
+            return key.paddedLength(inputLength);
+        }
+
+        @Override
+        public int[] sourceTable(int inputLength) {
+            return key.sourceTable(inputLength);
+        }
+
+        @Override
+        public boolean dropsSpaces() {
+            return true;
+        }
+    }
+}
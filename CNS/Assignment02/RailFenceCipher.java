@@ -1,76 +1,184 @@
 package CNS.Assignment02;
 
-import java.util.Arrays;
+import CNS.Common.CipherMetrics;
+import CNS.Common.KeyCache;
+
+import java.util.stream.IntStream;
 
 public class RailFenceCipher {
+    // The zigzag repeats every cycle = 2 * (key - 1) characters. Within one cycle,
+    // rail 0 and rail key-1 get one character each and every middle rail r gets two
+    // (at offsets r and cycle - r). That gives a closed form for both rail lengths
+    // and for the plaintext position of the k-th character on rail r, so neither
+    // direction needs to simulate the zigzag or stage per-rail buffers.
+
+    // Messages at least this long are filled in parallel chunks of ciphertext
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int CHUNK_SIZE = 1 << 18;
+
+    private static final int PERMUTATION_CACHE_CAPACITY = 64;
+    private static final KeyCache<Long, Permutation> PERMUTATIONS = new KeyCache<>(PERMUTATION_CACHE_CAPACITY, "railfence");
+    private static final CipherMetrics.Operation ENCRYPT_METRICS = CipherMetrics.operation("railfence", "encrypt");
+    private static final CipherMetrics.Operation DECRYPT_METRICS = CipherMetrics.operation("railfence", "decrypt");
+
     // Encrypts a message using the Rail Fence cipher
     public static String encrypt(String text, int key) {
-        // Create an array of StringBuilder objects to represent the rails
-        StringBuilder[] rails = new StringBuilder[key];
-        for (int i = 0; i < key; i++) {
-            rails[i] = new StringBuilder();
-        }
+        long start = ENCRYPT_METRICS.start();
+        char[] in = text.toCharArray();
+        char[] out = new char[in.length];
+        encrypt(in, 0, in.length, out, 0, key);
+        String result = new String(out);
+        ENCRYPT_METRICS.stop(start, in.length);
+        return result;
+    }
+
+    // Decrypts a message using the Rail Fence cipher
+    public static String decrypt(String cipher, int key) {
+        long start = DECRYPT_METRICS.start();
+        char[] in = cipher.toCharArray();
+        char[] out = new char[in.length];
+        decrypt(in, 0, in.length, out, 0, key);
+        String result = new String(out);
+        DECRYPT_METRICS.stop(start, in.length);
+        return result;
+    }
+
+    // Encrypts in[off, off + len) into out[outOff, outOff + len); the ranges must not overlap
+    public static void encrypt(char[] in, int off, int len, char[] out, int outOff, int key) {
+        transform(in, off, len, out, outOff, key, true);
+    }
 
-        int row = 0;
-        int direction = 1; // 1 for down, -1 for up
+    // Decrypts in[off, off + len) into out[outOff, outOff + len); the ranges must not overlap
+    public static void decrypt(char[] in, int off, int len, char[] out, int outOff, int key) {
+        transform(in, off, len, out, outOff, key, false);
+    }
 
-        // Traverse the plaintext in a zigzag pattern
-        for (char c : text.toCharArray()) {
-            rails[row].append(c);
-            row += direction;
+    // Precomputed permutation for messages of this length, shared through a small cache.
+    // permutation(n, key).apply(...) encrypts and applyInverse(...) decrypts.
+    public static Permutation permutation(int length, int key) {
+        checkKey(key);
+        return PERMUTATIONS.get(((long) length << 32) | key, k -> new Permutation(sourceTable(length, key)));
+    }
 
-            // Reverse direction at the top and bottom rails
-            if (row == 0 || row == key - 1) {
-                direction *= -1;
+    // sourceTable[j] = plaintext index of ciphertext character j
+    static int[] sourceTable(int length, int key) {
+        int[] source = new int[length];
+        if (key == 1 || key >= length) {
+            for (int j = 0; j < length; j++) {
+                source[j] = j;
+            }
+            return source;
+        }
+        long cycle = 2L * (key - 1);
+        int rail = 0;
+        int railLen = (int) railLength(length, key, 0);
+        int k = 0;
+        for (int j = 0; j < length; j++) {
+            while (k == railLen) { // Move on to the next non-empty rail
+                rail++;
+                k = 0;
+                railLen = (int) railLength(length, key, rail);
             }
+            source[j] = (int) positionOnRail(rail, k++, key, cycle);
         }
+        return source;
+    }
 
-        // Concatenate the rails to form the ciphertext
-        StringBuilder result = new StringBuilder();
-        for (StringBuilder rail : rails) {
-            result.append(rail);
+    // Number of characters of an n-character message that land on the given rail
+    static long railLength(long n, int key, int rail) {
+        long cycle = 2L * (key - 1);
+        if (rail == 0 || rail == key - 1) {
+            return countAt(n, rail, cycle);
         }
+        return countAt(n, rail, cycle) + countAt(n, cycle - rail, cycle);
+    }
 
-        return result.toString();
+    // railStart[r] = ciphertext index of the first character on rail r, for key < n
+    // (so that every rail is non-empty)
+    static long[] railStarts(long n, int key) {
+        long[] railStart = new long[key];
+        for (int r = 1; r < key; r++) {
+            railStart[r] = railStart[r - 1] + railLength(n, key, r - 1);
+        }
+        return railStart;
     }
 
-    // Decrypts a message using the Rail Fence cipher
-    public static String decrypt(String cipher, int key) {
-        // First, calculate the length of each rail to reconstruct the matrix
-        int[] railLengths = new int[key];
-        int row = 0;
-        int direction = 1;
-        for (int i = 0; i < cipher.length(); i++) {
-            railLengths[row]++;
-            row += direction;
-            if (row == 0 || row == key - 1) {
-                direction *= -1;
+    // The rail holding ciphertext index j: the last r with railStart[r] <= j
+    static int railOf(long[] railStart, long j) {
+        int lo = 0;
+        int hi = railStart.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (railStart[mid] <= j) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
             }
         }
+        return lo;
+    }
 
-        // Distribute the ciphertext characters into the rails based on the lengths
-        String[] rails = new String[key];
-        int charIndex = 0;
-        for (int i = 0; i < key; i++) {
-            rails[i] = cipher.substring(charIndex, charIndex + railLengths[i]);
-            charIndex += railLengths[i];
+    private static void transform(char[] in, int off, int len, char[] out, int outOff, int key, boolean encrypt) {
+        checkKey(key);
+        if (key == 1 || key >= len) {
+            // All on one rail (or every character on a rail of its own): the identity
+            System.arraycopy(in, off, out, outOff, len);
+            return;
         }
+        if (len < PARALLEL_THRESHOLD) {
+            walk(in, off, len, out, outOff, key, 0, 0, 0, len, encrypt);
+            return;
+        }
+        // Each chunk starts from its own rail, found by a search over the rail starts
+        long[] railStart = railStarts(len, key);
+        int chunks = (len + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int from = c * CHUNK_SIZE;
+            int rail = railOf(railStart, from);
+            walk(in, off, len, out, outOff, key, rail, (int) (from - railStart[rail]), from,
+                    Math.min(len, from + CHUNK_SIZE), encrypt);
+        });
+    }
 
-        // Reconstruct the plaintext by reading in a zigzag pattern
-        StringBuilder result = new StringBuilder();
-        int[] railIndices = new int[key]; // To keep track of the current character index in each rail
-        row = 0;
-        direction = 1;
-
-        for (int i = 0; i < cipher.length(); i++) {
-            result.append(rails[row].charAt(railIndices[row]++));
-            row += direction;
-            if (row == 0 || row == key - 1) {
-                direction *= -1;
+    // Walks ciphertext indices [from, to), rail by rail, starting at character k of
+    // the given rail. Encrypting gathers each ciphertext char from its plaintext
+    // position; decrypting scatters it back there.
+    private static void walk(char[] in, int off, int n, char[] out, int outOff, int key,
+                             int rail, int k, int from, int to, boolean encrypt) {
+        long cycle = 2L * (key - 1);
+        int railLen = (int) railLength(n, key, rail);
+        for (int j = from; j < to; j++) {
+            while (k == railLen) {
+                rail++;
+                k = 0;
+                railLen = (int) railLength(n, key, rail);
             }
+            int pos = (int) positionOnRail(rail, k++, key, cycle);
+            if (encrypt) {
+                out[outOff + j] = in[off + pos];
+            } else {
+                out[outOff + pos] = in[off + j];
+            }
+        }
+    }
+
+    // Plaintext index of the k-th character on a rail
+    static long positionOnRail(int rail, long k, int key, long cycle) {
+        if (rail == 0 || rail == key - 1) {
+            return rail + k * cycle;
         }
+        return (k >> 1) * cycle + ((k & 1) == 0 ? rail : cycle - rail);
+    }
+
+    // How many i in [0, n) have i % cycle == offset
+    private static long countAt(long n, long offset, long cycle) {
+        return n > offset ? (n - offset - 1) / cycle + 1 : 0;
+    }
 
-        return result.toString();
+    static void checkKey(int key) {
+        if (key < 1) {
+            throw new IllegalArgumentException("Rail Fence key must be at least 1.");
+        }
     }
 
     public static void main(String[] args) {
@@ -83,4 +191,4 @@ public class RailFenceCipher {
         String decrypted = decrypt(encrypted, key);
         System.out.println("Decrypted (Rail Fence): " + decrypted);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+package CNS.Assignment02;
+
+import CNS.Common.CipherMetrics;
+import CNS.Common.KeyCache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+// Compiled key for the Row and Column Transposition cipher.
+// The stable alphabetical order of the key's columns is computed once and kept as
+// an int[], so encrypting and decrypting are single index permutations straight
+// into the output array, with no char[][] grid and no per-call sorting.
+// Padding is tracked by length: the message is padded with 'X' up to whole rows
+// on encrypt, and decrypt(cipher, plaintextLength) returns exactly the original.
+public final class TranspositionKey {
+
+    private static final int CACHE_CAPACITY = 4096;
+    private static final KeyCache<String, TranspositionKey> CACHE = new KeyCache<>(CACHE_CAPACITY, "columnar");
+    private static final CipherMetrics.Operation ENCRYPT_METRICS = CipherMetrics.operation("columnar", "encrypt");
+    private static final CipherMetrics.Operation DECRYPT_METRICS = CipherMetrics.operation("columnar", "decrypt");
+
+    private static final int STREAM_READ_SIZE = 8192;
+
+    private final String key;
+    private final int[] order; // order[k] = index of the column read k-th
+
+    private TranspositionKey(String key) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Transposition key must not be empty.");
+        }
+        this.key = key;
+        // Sort (char, index) pairs packed into longs; ties keep key order, like a stable sort
+        long[] packed = new long[key.length()];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = ((long) key.charAt(i) << 32) | i;
+        }
+        Arrays.sort(packed);
+        order = new int[packed.length];
+        for (int k = 0; k < packed.length; k++) {
+            order[k] = (int) packed[k];
+        }
+    }
+
+    // Returns the compiled key, reusing a cached one when this key was seen recently
+    public static TranspositionKey of(String key) {
+        return CACHE.get(key, TranspositionKey::new);
+    }
+
+    // Compiles the key without touching the cache
+    public static TranspositionKey compile(String key) {
+        return new TranspositionKey(key);
+    }
+
+    static KeyCache<String, TranspositionKey> cache() {
+        return CACHE;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public int columns() {
+        return order.length;
+    }
+
+    public int[] order() {
+        return order.clone();
+    }
+
+    // Length of the ciphertext for len plaintext chars (padded up to whole rows)
+    public int paddedLength(int len) {
+        int cols = order.length;
+        return (len + cols - 1) / cols * cols;
+    }
+
+    // Encrypts in[off, off + len) into out, padding the last row with 'X'.
+    // Returns the number of chars written (paddedLength(len)).
+    public int encrypt(char[] in, int off, int len, char[] out, int outOff) {
+        int cols = order.length;
+        int rows = (len + cols - 1) / cols;
+        int o = outOff;
+        // Read the grid column by column in key order
+        for (int col : order) {
+            for (int r = 0, i = col; r < rows; r++, i += cols) {
+                out[o++] = i < len ? in[off + i] : 'X';
+            }
+        }
+        return o - outOff;
+    }
+
+    // Decrypts a full grid of cipherLen chars (a multiple of the key length) and
+    // writes the first plaintextLength chars of the plaintext into out
+    public void decrypt(char[] in, int off, int cipherLen, char[] out, int outOff, int plaintextLength) {
+        checkLengths(cipherLen, plaintextLength);
+        int cols = order.length;
+        int rows = cipherLen / cols;
+        int j = off;
+        // Fill the grid column by column in key order, writing each cell to its row-major position
+        for (int col : order) {
+            for (int r = 0, i = col; r < rows; r++, i += cols, j++) {
+                if (i < plaintextLength) {
+                    out[outOff + i] = in[j];
+                }
+            }
+        }
+    }
+
+    private void checkLengths(int cipherLen, int plaintextLength) {
+        if (cipherLen % order.length != 0) {
+            throw new IllegalArgumentException("Ciphertext length must be a multiple of the key length.");
+        }
+        if (plaintextLength < 0 || plaintextLength > cipherLen) {
+            throw new IllegalArgumentException("Plaintext length must be between 0 and the ciphertext length.");
+        }
+    }
+
+    // sourceTable[j] = plaintext index read into ciphertext position j, or -1 for padding
+    public int[] sourceTable(int len) {
+        int cols = order.length;
+        int rows = (len + cols - 1) / cols;
+        int[] source = new int[rows * cols];
+        int o = 0;
+        for (int col : order) {
+            for (int r = 0, i = col; r < rows; r++, i += cols) {
+                source[o++] = i < len ? i : -1;
+            }
+        }
+        return source;
+    }
+
+    // Spaces are dropped before encrypting, as in the original cipher
+    public String encrypt(String text) {
+        long start = ENCRYPT_METRICS.start();
+        char[] plain = withoutSpaces(text);
+        char[] out = new char[paddedLength(plain.length)];
+        encrypt(plain, 0, plain.length, out, 0);
+        String result = new String(out);
+        ENCRYPT_METRICS.stop(start, text.length());
+        return result;
+    }
+
+    // Exact inverse of encrypt() when the plaintext length (without spaces) is known
+    public String decrypt(String cipher, int plaintextLength) {
+        long start = DECRYPT_METRICS.start();
+        checkLengths(cipher.length(), plaintextLength);
+        char[] in = cipher.toCharArray();
+        char[] out = new char[plaintextLength];
+        decrypt(in, 0, in.length, out, 0, plaintextLength);
+        String result = new String(out);
+        DECRYPT_METRICS.stop(start, in.length);
+        return result;
+    }
+
+    // Without the length, only the trailing 'X's that could be padding (fewer than
+    // one row) are removed; X's inside the message are kept
+    public String decrypt(String cipher) {
+        long start = DECRYPT_METRICS.start();
+        char[] in = cipher.toCharArray();
+        char[] out = new char[in.length];
+        decrypt(in, 0, in.length, out, 0, in.length);
+        String result = new String(out, 0, unpaddedLength(out, 0, in.length));
+        DECRYPT_METRICS.stop(start, in.length);
+        return result;
+    }
+
+    // Length of a full-grid decryption of len chars in buf[off, off + len) once the
+    // trailing 'X's that could be padding (fewer than one row) are removed
+    public int unpaddedLength(char[] buf, int off, int len) {
+        int minLen = Math.max(0, len - (order.length - 1));
+        while (len > minLen && buf[off + len - 1] == 'X') {
+            len--;
+        }
+        return len;
+    }
+
+    // --- Block-streaming mode ---
+    // The message is cut into blocks of rowsPerBlock full rows and each block is
+    // transposed on its own, so memory stays at two block buffers however long the
+    // stream is. Only the last block is padded. This is a different ciphertext from
+    // encrypting the whole message as one grid (unless it fits in one block).
+
+    // Returns the number of plaintext chars (spaces excluded) that were encrypted
+    public long encryptStream(Reader in, Writer out, int rowsPerBlock) throws IOException {
+        int block = blockSize(rowsPerBlock);
+        char[] read = new char[Math.min(block, STREAM_READ_SIZE)];
+        char[] plain = new char[block];
+        char[] cipher = new char[block];
+        long total = 0;
+        int filled = 0;
+        int n;
+        while ((n = in.read(read)) != -1) {
+            for (int i = 0; i < n; i++) {
+                char c = read[i];
+                if (c == ' ') {
+                    continue;
+                }
+                plain[filled++] = c;
+                if (filled == block) {
+                    out.write(cipher, 0, encrypt(plain, 0, block, cipher, 0));
+                    total += block;
+                    filled = 0;
+                }
+            }
+        }
+        if (filled > 0) {
+            out.write(cipher, 0, encrypt(plain, 0, filled, cipher, 0));
+            total += filled;
+        }
+        return total;
+    }
+
+    // Inverse of encryptStream; plaintextLength is the value encryptStream returned
+    public void decryptStream(Reader in, Writer out, int rowsPerBlock, long plaintextLength) throws IOException {
+        int block = blockSize(rowsPerBlock);
+        char[] cipher = new char[block];
+        char[] plain = new char[block];
+        long remaining = plaintextLength;
+        int got;
+        while (remaining > 0 && (got = readFully(in, cipher, block)) > 0) {
+            int keep = (int) Math.min(got, remaining);
+            decrypt(cipher, 0, got, plain, 0, keep);
+            out.write(plain, 0, keep);
+            remaining -= keep;
+        }
+        if (remaining > 0) {
+            throw new IOException("Ciphertext stream ended " + remaining + " chars early.");
+        }
+    }
+
+    private int blockSize(int rowsPerBlock) {
+        if (rowsPerBlock < 1) {
+            throw new IllegalArgumentException("Block must hold at least one row.");
+        }
+        return Math.multiplyExact(rowsPerBlock, order.length);
+    }
+
+    private static int readFully(Reader in, char[] buf, int len) throws IOException {
+        int got = 0;
+        while (got < len) {
+            int n = in.read(buf, got, len - got);
+            if (n == -1) {
+                break;
+            }
+            got += n;
+        }
+        return got;
+    }
+
+    private static char[] withoutSpaces(String text) {
+        int n = text.length();
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (text.charAt(i) != ' ') {
+                count++;
+            }
+        }
+        char[] out = new char[count];
+        for (int i = 0, j = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (c != ' ') {
+                out[j++] = c;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,380 @@
+package CNS.Assignment02;
+
+import CNS.Common.NGramModel;
+import CNS.Common.WordIndex;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// Ciphertext-only key recovery for RailFenceCipher and RowColumnTransposition.
+// Candidates are scored with a quadgram model (one flat float[26^4] table, shared and
+// loaded once, see NGramModel.englishQuadgrams) by decrypting into a reusable char[]
+// per worker; no Strings are built until the winner is decoded.
+//  - Rail Fence: the key space is tiny, so every rail count is tried (in parallel).
+//  - Row-Column: for every column count that divides the ciphertext length, one
+//    worker per core runs hill climbing from random column orders and restarts when
+//    it stops improving, until its share of the time budget is used up or the best
+//    order has been reached CONFIRMATIONS times. Moves (swap, shift a run, reverse) are
+//    applied either to the read order or to the rank of each column, since a small
+//    change in one view is a large one in the other.
+public final class TranspositionSolver {
+
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 5000;
+
+    // A climb restarts after this many non-improving moves times columns^2
+    private static final int STALE_FACTOR = 20;
+
+    // rankColumnar tries all columns! orders, so it is limited to this many columns
+    public static final int MAX_BRUTE_FORCE_COLUMNS = 9;
+
+    // Stop searching a column count once this many climbs have ended on its best score
+    private static final int CONFIRMATIONS = 3;
+
+    private TranspositionSolver() {
+    }
+
+    public static final class RailFenceResult {
+        private final int rails;
+        private final double score;
+        private final String ciphertext;
+
+        RailFenceResult(int rails, double score, String ciphertext) {
+            this.rails = rails;
+            this.score = score;
+            this.ciphertext = ciphertext;
+        }
+
+        public int rails() {
+            return rails;
+        }
+
+        public double score() {
+            return score;
+        }
+
+        public String plaintext() {
+            return RailFenceCipher.decrypt(ciphertext, rails);
+        }
+    }
+
+    public static final class ColumnarResult {
+        private final int[] order;
+        private final double score;
+        private final String ciphertext;
+        private final long climbs;
+        private final long elapsedNanos;
+
+        ColumnarResult(int[] order, double score, String ciphertext, long climbs, long elapsedNanos) {
+            this.order = order;
+            this.score = score;
+            this.ciphertext = ciphertext;
+            this.climbs = climbs;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // order[k] = index of the column read k-th, as in TranspositionKey.order()
+        public int[] order() {
+            return order.clone();
+        }
+
+        public int columns() {
+            return order.length;
+        }
+
+        // A key string with this column order (column order[k] gets the k-th smallest char)
+        public String key() {
+            char[] key = new char[order.length];
+            for (int rank = 0; rank < order.length; rank++) {
+                key[order[rank]] = (char) ('A' + rank);
+            }
+            return new String(key);
+        }
+
+        public double score() {
+            return score;
+        }
+
+        // Number of hill climbs run across all workers and column counts
+        public long climbs() {
+            return climbs;
+        }
+
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // Trailing 'X' padding is removed as in RowColumnTransposition.decrypt(cipher, key)
+        public String plaintext() {
+            return RowColumnTransposition.decrypt(ciphertext, key());
+        }
+    }
+
+    public static RailFenceResult solveRailFence(String ciphertext, int maxRails) {
+        return solveRailFence(ciphertext, maxRails, NGramModel.englishQuadgrams());
+    }
+
+    public static RailFenceResult solveRailFence(String ciphertext, int maxRails, NGramModel quadgrams) {
+        char[] cipher = ciphertext.toCharArray();
+        int n = cipher.length;
+        int max = Math.max(1, Math.min(maxRails, n));
+        double[] scores = new double[max + 1];
+        IntStream.rangeClosed(1, max).parallel().forEach(rails -> {
+            char[] buffer = new char[n];
+            RailFenceCipher.decrypt(cipher, 0, n, buffer, 0, rails);
+            scores[rails] = quadgrams.scoreText(buffer, 0, n);
+        });
+        int best = 1;
+        for (int rails = 2; rails <= max; rails++) {
+            if (scores[rails] > scores[best]) {
+                best = rails;
+            }
+        }
+        return new RailFenceResult(best, scores[best], ciphertext);
+    }
+
+    // Brute force over rail counts 1..maxRails checked against a dictionary: the rail
+    // counts whose decryption looks like words, best word coverage first
+    public static int[] rankRailFence(String ciphertext, int maxRails, WordIndex words) {
+        char[] cipher = ciphertext.toCharArray();
+        int n = cipher.length;
+        int max = Math.max(1, Math.min(maxRails, n));
+        int[] ranked = words.rank(max, n, (candidate, out) -> {
+            RailFenceCipher.decrypt(cipher, 0, n, out, 0, candidate + 1);
+            return n;
+        });
+        for (int i = 0; i < ranked.length; i++) {
+            ranked[i]++;
+        }
+        return ranked;
+    }
+
+    // Brute force over all column orders of a small key (at most MAX_BRUTE_FORCE_COLUMNS
+    // columns) checked against a dictionary. Returns the orders whose decryption looks
+    // like words, best word coverage first; see ColumnarResult.order().
+    public static int[][] rankColumnar(String ciphertext, int columns, WordIndex words) {
+        if (columns < 1 || columns > MAX_BRUTE_FORCE_COLUMNS) {
+            throw new IllegalArgumentException("Column count must be between 1 and " + MAX_BRUTE_FORCE_COLUMNS + ".");
+        }
+        char[] cipher = ciphertext.toCharArray();
+        if (cipher.length % columns != 0) {
+            throw new IllegalArgumentException("Ciphertext length must be a multiple of the key length.");
+        }
+        int count = 1;
+        for (int i = 2; i <= columns; i++) {
+            count *= i;
+        }
+        int[] ranked = words.rank(count, cipher.length, (candidate, out) -> {
+            int[] order = nthPermutation(candidate, columns);
+            int rows = cipher.length / columns;
+            for (int rank = 0, j = 0; rank < columns; rank++) {
+                for (int r = 0, i = order[rank]; r < rows; r++, i += columns) {
+                    out[i] = cipher[j++];
+                }
+            }
+            return cipher.length;
+        });
+        int[][] orders = new int[ranked.length][];
+        for (int i = 0; i < ranked.length; i++) {
+            orders[i] = nthPermutation(ranked[i], columns);
+        }
+        return orders;
+    }
+
+    // Permutation number index of 0..n-1 in lexicographic order (factorial number system)
+    private static int[] nthPermutation(int index, int n) {
+        int[] digits = new int[n];
+        for (int i = 1; i <= n; i++) {
+            digits[n - i] = index % i;
+            index /= i;
+        }
+        boolean[] used = new boolean[n];
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) {
+            // Take the digits[i]-th value not used yet
+            int v = -1;
+            for (int skip = digits[i]; skip >= 0; ) {
+                if (!used[++v]) {
+                    skip--;
+                }
+            }
+            used[v] = true;
+            permutation[i] = v;
+        }
+        return permutation;
+    }
+
+    public static ColumnarResult solveColumnar(String ciphertext, int maxColumns) {
+        return solveColumnar(ciphertext, 2, maxColumns, DEFAULT_TIME_BUDGET_MILLIS, NGramModel.englishQuadgrams());
+    }
+
+    // Tries every column count in [minColumns, maxColumns] that divides the ciphertext
+    // length. The time budget is shared between them in proportion to the column count.
+    public static ColumnarResult solveColumnar(String ciphertext, int minColumns, int maxColumns,
+                                               long timeBudgetMillis, NGramModel quadgrams) {
+        char[] cipher = ciphertext.toCharArray();
+        int n = cipher.length;
+        int from = Math.max(1, minColumns);
+        int to = Math.min(maxColumns, n);
+        long weight = 0;
+        for (int cols = from; cols <= to; cols++) {
+            if (n % cols == 0) {
+                weight += cols;
+            }
+        }
+        if (weight == 0) {
+            throw new IllegalArgumentException("No column count in range divides the ciphertext length.");
+        }
+        long start = System.nanoTime();
+        long budget = timeBudgetMillis * 1_000_000L;
+        int workers = Runtime.getRuntime().availableProcessors();
+        Best overall = null;
+        long climbs = 0;
+        long used = 0;
+        for (int cols = from; cols <= to; cols++) {
+            if (n % cols != 0) {
+                continue;
+            }
+            used += cols;
+            long deadline = start + budget * used / weight;
+            Best best = new Best();
+            int columns = cols;
+            IntStream.range(0, workers).parallel().forEach(w ->
+                    climb(cipher, columns, deadline, quadgrams, best, new SplittableRandom(start * 31 + columns * 1009L + w)));
+            climbs += best.climbs;
+            if (overall == null || best.score > overall.score) {
+                overall = best;
+            }
+        }
+        return new ColumnarResult(overall.order, overall.score, ciphertext, climbs, System.nanoTime() - start);
+    }
+
+    // Restarting hill climb over column orders for one column count
+    private static void climb(char[] cipher, int cols, long deadline, NGramModel quadgrams,
+                              Best best, SplittableRandom random) {
+        int n = cipher.length;
+        char[] buffer = new char[n];
+        int[] order = new int[cols];
+        int[] trial = new int[cols];
+        int[] inverse = new int[cols];
+        int staleLimit = STALE_FACTOR * cols * cols;
+        do {
+            for (int i = 0; i < cols; i++) {
+                order[i] = i;
+            }
+            for (int i = cols - 1; i > 0; i--) { // Fisher-Yates shuffle
+                swap(order, i, random.nextInt(i + 1));
+            }
+            double score = score(cipher, order, buffer, quadgrams);
+            int stale = 0;
+            while (stale < staleLimit && cols > 1) {
+                if (random.nextBoolean()) {
+                    System.arraycopy(order, 0, trial, 0, cols);
+                    mutate(trial, random);
+                } else {
+                    // Same moves on the rank of each column (the key string's view)
+                    invert(order, inverse);
+                    mutate(inverse, random);
+                    invert(inverse, trial);
+                }
+                double s = score(cipher, trial, buffer, quadgrams);
+                if (s > score) {
+                    int[] t = order;
+                    order = trial;
+                    trial = t;
+                    score = s;
+                    stale = 0;
+                } else {
+                    stale++;
+                }
+                if ((stale & 255) == 255 && System.nanoTime() > deadline) {
+                    break;
+                }
+            }
+            best.offer(order, score);
+        } while (System.nanoTime() < deadline && !best.confirmed());
+    }
+
+    // Decrypts with this column order into buffer and scores it
+    private static double score(char[] cipher, int[] order, char[] buffer, NGramModel quadgrams) {
+        int cols = order.length;
+        int rows = cipher.length / cols;
+        for (int rank = 0, j = 0; rank < cols; rank++) {
+            for (int r = 0, i = order[rank]; r < rows; r++, i += cols) {
+                buffer[i] = cipher[j++];
+            }
+        }
+        return quadgrams.scoreText(buffer, 0, buffer.length);
+    }
+
+    // Swaps two columns, exchanges two adjacent runs of columns (which also moves a
+    // single column), or reverses a run of columns
+    private static void mutate(int[] order, SplittableRandom random) {
+        int n = order.length;
+        int i = random.nextInt(n);
+        int j = random.nextInt(n - 1);
+        if (j >= i) {
+            j++;
+        }
+        int lo = Math.min(i, j);
+        int hi = Math.max(i, j);
+        switch (random.nextInt(3)) {
+            case 0:
+                swap(order, lo, hi);
+                break;
+            case 1: {
+                // Runs [lo, mid) and [mid, hi] trade places: reverse both, then the whole
+                int mid = lo + 1 + random.nextInt(hi - lo);
+                reverse(order, lo, mid - 1);
+                reverse(order, mid, hi);
+                reverse(order, lo, hi);
+                break;
+            }
+            default:
+                reverse(order, lo, hi);
+        }
+    }
+
+    // Reverses a[lo..hi]
+    private static void reverse(int[] a, int lo, int hi) {
+        for (; lo < hi; lo++, hi--) {
+            swap(a, lo, hi);
+        }
+    }
+
+    private static void invert(int[] permutation, int[] inverse) {
+        for (int i = 0; i < permutation.length; i++) {
+            inverse[permutation[i]] = i;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    // Best order found for one column count, shared by its workers
+    private static final class Best {
+        private int[] order;
+        private double score = Double.NEGATIVE_INFINITY;
+        private int hits;
+        private long climbs;
+        private volatile boolean confirmed;
+
+        synchronized void offer(int[] candidate, double candidateScore) {
+            climbs++;
+            if (candidateScore > score) {
+                order = candidate.clone();
+                score = candidateScore;
+                hits = 1;
+            } else if (candidateScore == score) {
+                hits++;
+            }
+            confirmed = hits >= CONFIRMATIONS;
+        }
+
+        boolean confirmed() {
+            return confirmed;
+        }
+    }
+}
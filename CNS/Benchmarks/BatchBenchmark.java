@@ -0,0 +1,136 @@
+import CNS.Assignment02.RowColumnTransposition;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Batch API vs one call per message, on many small messages with a handful of keys.
+//
+//   java -cp out BatchBenchmark [--messages 200000] [--batch 1000] [--size 64]
+//
+// The workload is cut into batches of --batch messages (half Vigenere, half
+// Row-Column, 16 keys). Each approach encrypts every batch in turn; the report gives
+// messages per second over the whole run and the p50 / p99 time to finish one batch.
+//  - loop:     SimplifiedCiphers.vigenereEncrypt / RowColumnTransposition.encrypt per message
+//  - executor: the same calls, one task per message on a fixed pool
+//  - batch:    BatchCipher.encrypt on the whole batch
+public class BatchBenchmark {
+
+    private static final int KEYS = 16;
+    private static final int ROUNDS = 3; // The first round is warm-up
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        int messages = 200_000;
+        int batchSize = 1000;
+        int size = 64;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--messages":
+                    messages = Integer.parseInt(args[++i]);
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--size":
+                    size = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        Random random = new Random(42);
+        String[] keys = new String[KEYS];
+        for (int k = 0; k < KEYS; k++) {
+            keys[k] = randomText(3 + random.nextInt(10), random).replace(" ", "A");
+        }
+        int batches = messages / batchSize;
+        BatchCipher.Request[][] work = new BatchCipher.Request[batches][batchSize];
+        String[][] workKeys = new String[batches][batchSize]; // For the per-message calls
+        for (int b = 0; b < batches; b++) {
+            for (int i = 0; i < batchSize; i++) {
+                String text = randomText(size, random);
+                String key = keys[random.nextInt(KEYS)];
+                workKeys[b][i] = key;
+                work[b][i] = random.nextBoolean()
+                        ? BatchCipher.Request.vigenere(text, key)
+                        : BatchCipher.Request.columnar(text, key);
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try (BatchCipher batchCipher = new BatchCipher()) {
+            System.out.printf(Locale.ROOT, "%d messages of %d chars, batches of %d, %d cores, virtual threads: %s%n",
+                    batches * batchSize, size, batchSize, Runtime.getRuntime().availableProcessors(),
+                    batchCipher.usesVirtualThreads());
+            System.out.printf("%-10s %14s %12s %12s%n", "approach", "msgs/s", "p50 us", "p99 us");
+            for (int round = 0; round < ROUNDS; round++) {
+                boolean report = round == ROUNDS - 1;
+                measure("loop", work, report, b -> {
+                    long acc = 0;
+                    for (int i = 0; i < work[b].length; i++) {
+                        acc += single(work[b][i], workKeys[b][i]).length();
+                    }
+                    return acc;
+                });
+                measure("executor", work, report, b -> {
+                    Future<?>[] futures = new Future<?>[work[b].length];
+                    String[] out = new String[work[b].length];
+                    for (int i = 0; i < work[b].length; i++) {
+                        int index = i;
+                        futures[i] = pool.submit(() -> out[index] = single(work[b][index], workKeys[b][index]));
+                    }
+                    for (Future<?> f : futures) {
+                        f.get();
+                    }
+                    return out[0].length();
+                });
+                measure("batch", work, report, b -> batchCipher.encrypt(work[b])[0].length());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String single(BatchCipher.Request r, String key) {
+        return r.algorithm() == BatchCipher.Algorithm.VIGENERE
+                ? SimplifiedCiphers.vigenereEncrypt(r.message(), key)
+                : RowColumnTransposition.encrypt(r.message(), key);
+    }
+
+    // Encrypts batch b of the workload
+    private interface BatchOp {
+        long run(int b) throws Exception;
+    }
+
+    private static void measure(String name, BatchCipher.Request[][] work, boolean report, BatchOp op) throws Exception {
+        long[] latencies = new long[work.length];
+        long acc = 0;
+        long start = System.nanoTime();
+        for (int b = 0; b < work.length; b++) {
+            long t = System.nanoTime();
+            acc += op.run(b);
+            latencies[b] = System.nanoTime() - t;
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += acc;
+        if (report) {
+            Arrays.sort(latencies);
+            long messages = (long) work.length * work[0].length;
+            System.out.printf(Locale.ROOT, "%-10s %14.0f %12.1f %12.1f%n", name, messages / (elapsed / 1e9),
+                    latencies[latencies.length / 2] / 1e3, latencies[(int) (latencies.length * 0.99)] / 1e3);
+        }
+    }
+
+    // Upper-case letters with a space roughly every six characters
+    private static String randomText(int size, Random random) {
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = random.nextInt(6) == 0 ? ' ' : (char) ('A' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
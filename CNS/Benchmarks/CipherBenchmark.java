@@ -0,0 +1,189 @@
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Assignment02.RowColumnTransposition;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Throughput / allocation benchmark for every cipher across input sizes and key shapes.
+// The JMH module in CNS/Benchmarks/jmh (CipherThroughput, run with -prof gc) is the
+// reference measurement; this hand-rolled harness is the fallback where Maven is not
+// available. Compile from the repository root together with the cipher sources, e.g.
+//   javac -d out -sourcepath . CNS/Assignment01/*.java CNS/Assignment02/*.java CNS/Common/*.java CNS/Benchmarks/*.java
+//   java -Xmx4g -cp out CipherBenchmark [--max 256m] [--filter vigenere] [--time 2000]
+//
+// Each case is warmed up and then run repeatedly for the measurement time. The report
+// gives MB/s of input processed and bytes allocated per operation (from the thread
+// allocation counter, the same number a GC allocation profiler reports), so changes
+// to the hot paths and allocation regressions show up side by side.
+public class CipherBenchmark {
+
+    private static final int[] SIZES = {64, 4 << 10, 1 << 20, 256 << 20};
+    private static final int DEFAULT_MAX_SIZE = 1 << 20;
+    private static final long DEFAULT_TIME_MS = 1000;
+
+    private static final String[] KEYS = {"KEY", "MONARCHY", "THEQUICKBROWNFOXJUMPSOVERTHELAZYDOG"};
+    private static final int[] RAILS = {3, 8, 64};
+    private static final int[][][] HILL_KEYS = {
+            {{3, 3}, {2, 5}},
+            {{6, 24, 1}, {13, 16, 10}, {20, 17, 15}},
+            {{1, 2, 3, 4, 5}, {0, 1, 2, 3, 4}, {0, 0, 1, 2, 3}, {0, 0, 0, 1, 2}, {0, 0, 0, 0, 1}},
+    };
+
+    // Results are folded into this so the JIT cannot drop the work
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int maxSize = DEFAULT_MAX_SIZE;
+        long timeMs = DEFAULT_TIME_MS;
+        String filter = "";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--max":
+                    maxSize = parseSize(args[++i]);
+                    break;
+                case "--time":
+                    timeMs = Long.parseLong(args[++i]);
+                    break;
+                case "--filter":
+                    filter = args[++i].toLowerCase(Locale.ROOT);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        System.out.printf("%-34s %10s %12s %14s %16s%n", "case", "size", "ops/s", "MB/s", "alloc B/op");
+        for (int size : SIZES) {
+            if (size > maxSize) {
+                continue;
+            }
+            String text = randomText(size, new Random(size));
+            for (Case c : cases(text)) {
+                if (c.name.toLowerCase(Locale.ROOT).contains(filter)) {
+                    report(c, size, timeMs);
+                }
+            }
+        }
+    }
+
+    private static List<Case> cases(String text) {
+        List<Case> cases = new ArrayList<>();
+        byte[] bytes = text.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        byte[] out = new byte[bytes.length];
+
+        cases.add(new Case("caesar.encrypt", () -> SimplifiedCiphers.caesarEncrypt(text, 3).length()));
+        cases.add(new Case("caesar.decrypt", () -> CaesarCipher.decrypt(text, 3).length()));
+        cases.add(new Case("caesar.bytes", () -> {
+            CaesarEngine.encrypt(bytes, 0, bytes.length, out, 0, 3);
+            return out[0];
+        }));
+
+        for (String key : KEYS) {
+            String shape = "[key=" + key.length() + "]";
+            cases.add(new Case("playfair.encrypt" + shape, () -> SimplifiedCiphers.playfairEncrypt(text, key).length()));
+            cases.add(new Case("vigenere.encrypt" + shape, () -> SimplifiedCiphers.vigenereEncrypt(text, key).length()));
+            cases.add(new Case("vigenere.bytes" + shape, () ->
+                    VigenereKey.of(key).encrypt(bytes, 0, bytes.length, out, 0, 0)));
+            cases.add(new Case("rowcol.encrypt" + shape, () -> RowColumnTransposition.encrypt(text, key).length()));
+        }
+        String playfairCipher = SimplifiedCiphers.playfairEncrypt(text, "MONARCHY");
+        cases.add(new Case("playfair.decrypt[key=8]", () -> SimplifiedCiphers.playfairDecrypt(playfairCipher, "MONARCHY").length()));
+        String rowColCipher = RowColumnTransposition.encrypt(text, "MONARCHY");
+        cases.add(new Case("rowcol.decrypt[key=8]", () -> RowColumnTransposition.decrypt(rowColCipher, "MONARCHY").length()));
+
+        for (int[][] key : HILL_KEYS) {
+            String shape = "[n=" + key.length + "]";
+            String cipher = SimplifiedCiphers.hillEncrypt(text, key);
+            cases.add(new Case("hill.encrypt" + shape, () -> SimplifiedCiphers.hillEncrypt(text, key).length()));
+            cases.add(new Case("hill.decrypt" + shape, () -> SimplifiedCiphers.hillDecrypt(cipher, key).length()));
+        }
+
+        for (int rails : RAILS) {
+            String shape = "[rails=" + rails + "]";
+            String cipher = RailFenceCipher.encrypt(text, rails);
+            cases.add(new Case("railfence.encrypt" + shape, () -> RailFenceCipher.encrypt(text, rails).length()));
+            cases.add(new Case("railfence.decrypt" + shape, () -> RailFenceCipher.decrypt(cipher, rails).length()));
+        }
+        return cases;
+    }
+
+    private static void report(Case c, int size, long timeMs) {
+        run(c, Math.max(100, timeMs / 2)); // Warm-up
+        long allocBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long ops = run(c, timeMs);
+        long elapsed = System.nanoTime() - start;
+        long allocAfter = allocatedBytes();
+
+        double seconds = elapsed / 1e9;
+        double opsPerSec = ops / seconds;
+        double mbPerSec = opsPerSec * size / (1 << 20);
+        String alloc = allocBefore < 0 ? "n/a" : String.format("%.0f", (allocAfter - allocBefore) / (double) ops);
+        System.out.printf("%-34s %10s %12.1f %14.1f %16s%n", c.name, formatSize(size), opsPerSec, mbPerSec, alloc);
+    }
+
+    // Runs the case back to back for at least timeMs (and at least once); returns the op count
+    private static long run(Case c, long timeMs) {
+        long deadline = System.nanoTime() + timeMs * 1_000_000;
+        long ops = 0;
+        long acc = 0;
+        do {
+            acc += c.op.run();
+            ops++;
+        } while (System.nanoTime() < deadline);
+        sink += acc;
+        return ops;
+    }
+
+    // Bytes allocated so far by this thread, or -1 if the JVM cannot tell us
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    // Upper-case letters with a space roughly every six characters
+    private static String randomText(int size, Random random) {
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = random.nextInt(6) == 0 ? ' ' : (char) ('A' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static int parseSize(String s) {
+        s = s.toLowerCase(Locale.ROOT);
+        int shift = s.endsWith("k") ? 10 : s.endsWith("m") ? 20 : 0;
+        String digits = shift == 0 ? s : s.substring(0, s.length() - 1);
+        return Integer.parseInt(digits) << shift;
+    }
+
+    private static String formatSize(int size) {
+        if (size >= 1 << 20) {
+            return (size >> 20) + " MB";
+        }
+        if (size >= 1 << 10) {
+            return (size >> 10) + " KB";
+        }
+        return size + " B";
+    }
+
+    private interface Op {
+        long run();
+    }
+
+    private static final class Case {
+        final String name;
+        final Op op;
+
+        Case(String name, Op op) {
+            this.name = name;
+            this.op = op;
+        }
+    }
+}
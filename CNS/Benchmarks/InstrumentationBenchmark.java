@@ -0,0 +1,80 @@
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Assignment02.RowColumnTransposition;
+import CNS.Common.CipherMetrics;
+
+import java.util.Locale;
+import java.util.Random;
+
+// Cost of CipherMetrics on the String APIs. Run it twice and compare the ns/call:
+//
+//   java -cp out InstrumentationBenchmark
+//   java -cp out -Dcns.metrics=true InstrumentationBenchmark
+//
+// (add -XX:StartFlightRecording to include the JFR events). Every cipher runs on
+// short messages, where the fixed cost per call is the largest share. With metrics
+// on, the exported counters are printed at the end.
+public class InstrumentationBenchmark {
+
+    private static final int MESSAGES = 256;
+    private static final int ROUNDS = 7;
+    private static final long ROUND_NANOS = 1_000_000_000L;
+
+    private static volatile long sink;
+
+    interface Op {
+        String run(String text);
+    }
+
+    public static void main(String[] args) {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        String[] messages = new String[MESSAGES];
+        Random random = new Random(42);
+        for (int i = 0; i < MESSAGES; i++) {
+            char[] chars = new char[length];
+            for (int j = 0; j < length; j++) {
+                chars[j] = random.nextInt(6) == 0 ? ' ' : (char) ('A' + random.nextInt(26));
+            }
+            messages[i] = new String(chars);
+        }
+        int[][] hill = {{3, 3}, {2, 5}};
+        String[] names = {"caesar", "vigenere", "playfair", "hill", "railfence", "columnar"};
+        Op[] ops = {
+                t -> CaesarCipher.decrypt(CaesarCipher.encrypt(t, 3), 3),
+                t -> SimplifiedCiphers.vigenereDecrypt(SimplifiedCiphers.vigenereEncrypt(t, "LEMON"), "LEMON"),
+                t -> SimplifiedCiphers.playfairDecrypt(SimplifiedCiphers.playfairEncrypt(t, "MONARCHY"), "MONARCHY"),
+                t -> SimplifiedCiphers.hillDecrypt(SimplifiedCiphers.hillEncrypt(t, hill), hill),
+                t -> RailFenceCipher.decrypt(RailFenceCipher.encrypt(t, 3), 3),
+                t -> RowColumnTransposition.decrypt(RowColumnTransposition.encrypt(t, "ZEBRAS"), "ZEBRAS"),
+        };
+        System.out.printf("metrics %s, %d-char messages, ns per encrypt+decrypt (best of %d rounds)%n",
+                CipherMetrics.ENABLED ? "on" : "off", length, ROUNDS);
+        for (int i = 0; i < ops.length; i++) {
+            double best = Double.MAX_VALUE;
+            for (int r = 0; r < ROUNDS; r++) {
+                best = Math.min(best, round(ops[i], messages));
+            }
+            System.out.printf(Locale.ROOT, "%-10s %10.1f%n", names[i], best);
+        }
+        if (CipherMetrics.ENABLED) {
+            System.out.println();
+            System.out.print(CipherMetrics.export());
+        }
+    }
+
+    // ns per call over one timed round
+    private static double round(Op op, String[] messages) {
+        long calls = 0;
+        long acc = 0;
+        long start = System.nanoTime();
+        long now;
+        do {
+            for (String m : messages) {
+                acc += op.run(m).length();
+            }
+            calls += messages.length;
+            now = System.nanoTime();
+        } while (now - start < ROUND_NANOS);
+        sink += acc;
+        return (double) (now - start) / calls;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+// Scalar loops vs the SIMD LetterKernel on large byte buffers (1 GB by default).
+//
+//   javac -d out -sourcepath . CNS/Assignment01/*.java CNS/Assignment02/*.java CNS/Common/*.java CNS/Benchmarks/*.java
+//   javac --add-modules jdk.incubator.vector -cp out -d out CNS/Assignment01/LetterKernelVector.java
+//   java -Xmx4g --add-modules jdk.incubator.vector -cp out LetterKernelBenchmark [--size 1g] [--runs 3]
+//
+// Both paths run in the same JVM on the same input: the scalar side is CaesarEngine's
+// table loop and VigenereKey's compare-and-subtract loop, the vector side calls the
+// kernel directly. Each case reports the best of --runs passes in MB/s and checks that
+// the two outputs are byte-for-byte identical. Without the module (or with
+// -Dcns.vector=false) only the scalar numbers are printed.
+public class LetterKernelBenchmark {
+
+    private static final String KEY = "LEMON";
+
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        long size = 1L << 30;
+        int runs = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size":
+                    size = parseSize(args[++i]);
+                    break;
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Buffers are limited to 2 GB.");
+        }
+        LetterKernel kernel = LetterKernel.VECTOR;
+        System.out.println("kernel: " + (kernel == null ? "none (scalar only)" : kernel.description()));
+        System.out.printf("%-26s %12s %12s %10s %10s%n", "case", "scalar MB/s", "vector MB/s", "speedup", "identical");
+
+        int n = (int) size;
+        byte[] in = new byte[n];
+        byte[] expected = new byte[n];
+        byte[] actual = new byte[n];
+
+        byte[] encryptShifts = new byte[KEY.length()];
+        for (int i = 0; i < encryptShifts.length; i++) {
+            encryptShifts[i] = (byte) (KEY.charAt(i) - 'A');
+        }
+        Object stream = kernel == null ? null : kernel.keyStream(encryptShifts);
+        char[] table = CaesarEngine.encryptTable(3);
+
+        fill(in, false);
+        compare("caesar[text]", in, expected, actual, runs,
+                (src, dst) -> CaesarEngine.apply(table, src, 0, src.length, dst, 0),
+                kernel == null ? null : (src, dst) -> kernel.caesar(src, 0, src.length, dst, 0, 3));
+        compare("vigenere[text]", in, expected, actual, runs,
+                (src, dst) -> VigenereKey.transform(encryptShifts, null, src, 0, src.length, dst, 0, 0),
+                kernel == null ? null : (src, dst) -> kernel.vigenere(stream, src, 0, src.length, dst, 0, 0));
+        fill(in, true);
+        compare("vigenere[letters]", in, expected, actual, runs,
+                (src, dst) -> VigenereKey.transform(encryptShifts, null, src, 0, src.length, dst, 0, 0),
+                kernel == null ? null : (src, dst) -> kernel.vigenere(stream, src, 0, src.length, dst, 0, 0));
+    }
+
+    private interface Kernel {
+        void run(byte[] in, byte[] out);
+    }
+
+    private static void compare(String name, byte[] in, byte[] expected, byte[] actual, int runs,
+                                Kernel scalar, Kernel vector) {
+        double scalarRate = best(scalar, in, expected, runs);
+        if (vector == null) {
+            System.out.printf(Locale.ROOT, "%-26s %12.1f %12s %10s %10s%n", name, scalarRate, "-", "-", "-");
+            return;
+        }
+        double vectorRate = best(vector, in, actual, runs);
+        System.out.printf(Locale.ROOT, "%-26s %12.1f %12.1f %9.1fx %10s%n", name, scalarRate, vectorRate,
+                vectorRate / scalarRate, Arrays.equals(expected, actual));
+    }
+
+    // Best of runs passes over the whole buffer, in MB/s; the first pass also warms up
+    private static double best(Kernel kernel, byte[] in, byte[] out, int runs) {
+        long bestNanos = Long.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            long start = System.nanoTime();
+            kernel.run(in, out);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            sink += out[r];
+        }
+        return in.length / (bestNanos / 1e9) / (1 << 20);
+    }
+
+    // Upper-case A-Z only, or text: mixed case with a space or comma roughly every six bytes
+    private static void fill(byte[] buf, boolean lettersOnly) {
+        Random random = new Random(42);
+        byte[] block = new byte[1 << 16];
+        for (int i = 0; i < block.length; i++) {
+            int roll = lettersOnly ? 4 : random.nextInt(12);
+            block[i] = roll == 0 ? (byte) ' ' : roll == 1 ? (byte) ',' : roll < 4
+                    ? (byte) ('a' + random.nextInt(26)) : (byte) ('A' + random.nextInt(26));
+        }
+        for (int off = 0; off < buf.length; off += block.length) {
+            System.arraycopy(block, 0, buf, off, Math.min(block.length, buf.length - off));
+        }
+    }
+
+    private static long parseSize(String s) {
+        s = s.toLowerCase(Locale.ROOT);
+        int shift = s.endsWith("k") ? 10 : s.endsWith("m") ? 20 : s.endsWith("g") ? 30 : 0;
+        String digits = shift == 0 ? s : s.substring(0, s.length() - 1);
+        return Long.parseLong(digits) << shift;
+    }
+}
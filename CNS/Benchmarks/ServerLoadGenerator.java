@@ -0,0 +1,194 @@
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Load generator for CipherServer: throughput and latency percentiles as the number
+// of connections grows.
+//
+//   java -cp out ServerLoadGenerator [--connect host:port | --unix /tmp/cns.sock]
+//        [--connections 1,4,16,64] [--window 16] [--size 64] [--seconds 3]
+//
+// Without --connect / --unix a server is started in-process on a free TCP port (with
+// --unix and no server listening there, on that socket path). Each connection is a
+// thread with its own CipherClient that keeps --window requests in flight (pipelined),
+// cycling through Caesar, Vigenere and columnar keys on --size char messages. Latency
+// is measured per request, from queueing it to reading its response.
+public class ServerLoadGenerator {
+
+    private static final long WARMUP_MS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        SocketAddress address = null;
+        boolean unix = false;
+        int[] connections = {1, 4, 16, 64};
+        int window = 16;
+        int size = 64;
+        long seconds = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--connect": {
+                    String[] hostPort = args[++i].split(":");
+                    address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+                    break;
+                }
+                case "--unix":
+                    address = UnixDomainSocketAddress.of(Path.of(args[++i]));
+                    unix = true;
+                    break;
+                case "--connections":
+                    connections = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--window":
+                    window = Integer.parseInt(args[++i]);
+                    break;
+                case "--size":
+                    size = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        CipherServer server = null;
+        if (address == null) {
+            server = CipherServer.start(new InetSocketAddress("127.0.0.1", 0), Runtime.getRuntime().availableProcessors());
+            address = server.address();
+        } else if (unix && !Files.exists(((UnixDomainSocketAddress) address).getPath())) {
+            server = CipherServer.start(address, Runtime.getRuntime().availableProcessors());
+        }
+        try {
+            System.out.printf("server %s, window %d, %d-char messages, %d s per step%n", address, window, size, seconds);
+            System.out.printf("%-12s %12s %10s %10s %10s %10s%n", "connections", "req/s", "p50 us", "p90 us", "p99 us", "p99.9 us");
+            run(address, 1, window, size, WARMUP_MS, false);
+            for (int c : connections) {
+                run(address, c, window, size, seconds * 1000, true);
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static void run(SocketAddress address, int connections, int window, int size, long millis,
+                            boolean report) throws Exception {
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            workers.add(new Worker(address, window, size, i));
+        }
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        for (Worker w : workers) {
+            w.deadline = deadline;
+            w.thread.start();
+        }
+        long total = 0;
+        long[] all = new long[0];
+        for (Worker w : workers) {
+            w.thread.join();
+            if (w.failure != null) {
+                throw new IllegalStateException("Connection failed.", w.failure);
+            }
+            total += w.count;
+            int from = all.length;
+            all = Arrays.copyOf(all, from + w.count);
+            System.arraycopy(w.latencies, 0, all, from, w.count);
+        }
+        if (!report) {
+            return;
+        }
+        Arrays.sort(all);
+        System.out.printf(Locale.ROOT, "%-12d %12.0f %10.1f %10.1f %10.1f %10.1f%n", connections,
+                total / (millis / 1000.0), percentile(all, 0.5), percentile(all, 0.9),
+                percentile(all, 0.99), percentile(all, 0.999));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e3;
+    }
+
+    // One connection keeping window requests in flight until the deadline
+    private static final class Worker implements Runnable {
+        private static final BatchCipher.Algorithm[] CIPHERS = {
+                BatchCipher.Algorithm.CAESAR, BatchCipher.Algorithm.VIGENERE, BatchCipher.Algorithm.COLUMNAR};
+        private static final String[] KEYS = {"3", "LEMON", "ZEBRAS"};
+
+        final Thread thread = new Thread(this, "load");
+        private final SocketAddress address;
+        private final int window;
+        private final byte[][] messages;
+        volatile long deadline;
+        long[] latencies = new long[1 << 16];
+        int count;
+        Exception failure;
+
+        Worker(SocketAddress address, int window, int size, int seed) {
+            this.address = address;
+            this.window = window;
+            Random random = new Random(seed);
+            messages = new byte[16][];
+            for (int i = 0; i < messages.length; i++) {
+                char[] chars = new char[size];
+                for (int j = 0; j < size; j++) {
+                    chars[j] = random.nextInt(6) == 0 ? ' ' : (char) ('A' + random.nextInt(26));
+                }
+                messages[i] = CipherProtocol.utf8(new String(chars));
+            }
+        }
+
+        @Override
+        public void run() {
+            try (CipherClient client = CipherClient.connect(address)) {
+                int[] handles = new int[CIPHERS.length];
+                for (int i = 0; i < CIPHERS.length; i++) {
+                    handles[i] = client.register(CIPHERS[i], KEYS[i]);
+                }
+                long[] sentAt = new long[window]; // By id % window; ids come back in order
+                int sent = 0;
+                int received = 0;
+                boolean stopping = false;
+                while (true) {
+                    if (!stopping && System.nanoTime() >= deadline) {
+                        stopping = true;
+                    }
+                    while (!stopping && sent - received < window) {
+                        int k = sent % CIPHERS.length;
+                        int id = client.send(CipherProtocol.OP_ENCRYPT, CIPHERS[k], handles[k], messages[sent % messages.length]);
+                        sentAt[id % window] = System.nanoTime();
+                        sent++;
+                    }
+                    if (received == sent) {
+                        break;
+                    }
+                    client.flush();
+                    CipherClient.Response r = client.receive();
+                    if (!r.ok) {
+                        throw new IllegalStateException(r.text());
+                    }
+                    record(System.nanoTime() - sentAt[r.id % window]);
+                    received++;
+                }
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+}
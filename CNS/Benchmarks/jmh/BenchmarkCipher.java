@@ -0,0 +1,37 @@
+package CNS.Benchmarks.jmh;
+
+import java.lang.reflect.InvocationTargetException;
+
+// One cipher with its key fixed, as CipherThroughput drives it. The Assignment01
+// ciphers are in the unnamed package, which JMH's generated code (always in a named
+// package) cannot refer to; JmhCiphers, also unnamed, builds the instances and is
+// looked up reflectively once per trial, so the measured calls are plain interface
+// calls.
+public interface BenchmarkCipher {
+
+    // The library String methods
+    String encrypt(String text);
+
+    String decrypt(String text);
+
+    // The byte[] path of the Cipher factories; returns the output length
+    int encrypt(byte[] in, byte[] out);
+
+    int maxOutputLength(int length);
+
+    // shape 0..2 picks the key, from small to large (see JmhCiphers)
+    static BenchmarkCipher of(String cipher, int shape) {
+        try {
+            return (BenchmarkCipher) Class.forName("JmhCiphers")
+                    .getMethod("of", String.class, int.class)
+                    .invoke(null, cipher, shape);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("JmhCiphers is not on the class path.", e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package CNS.Benchmarks.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of every cipher at 64 B, 4 KB, 1 MB and 256 MB of input, for three key
+// shapes each (see JmhCiphers): the String encrypt and decrypt methods on text with
+// spaces, and the byte[] encrypt path on letters. Scores are operations per second; multiply by size for bytes per
+// second. Run with -prof gc for the allocation rate, and narrow the matrix with -p:
+//
+//   java -jar target/benchmarks.jar CipherThroughput -prof gc -p cipher=vigenere -p size=64,4096
+//
+// A 256 MB String operation allocates about 1.5 GB, hence the larger heap.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class CipherThroughput {
+
+    @Param({"caesar", "vigenere", "playfair", "hill", "railfence", "rowcol"})
+    String cipher;
+
+    @Param({"0", "1", "2"})
+    int shape;
+
+    @Param({"64", "4096", "1048576", "268435456"})
+    int size;
+
+    private BenchmarkCipher target;
+    private String plaintext;
+    private String ciphertext;
+    private byte[] in;
+    private byte[] out;
+
+    // Keeps only the inputs the running benchmark reads, which at 256 MB is what lets
+    // the larger ciphers fit in the heap
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        target = BenchmarkCipher.of(cipher, shape);
+        String method = params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1);
+        switch (method) {
+            case "encrypt":
+                plaintext = randomText(size, new Random(size), true);
+                break;
+            case "decrypt":
+                ciphertext = target.encrypt(randomText(size, new Random(size), true));
+                break;
+            default:
+                in = randomText(size, new Random(size), false).getBytes(StandardCharsets.US_ASCII);
+                out = new byte[target.maxOutputLength(size)];
+                break;
+        }
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return target.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return target.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    public int encryptBytes() {
+        return target.encrypt(in, out);
+    }
+
+    // Upper-case letters, with a space roughly every six characters as in CipherBenchmark
+    // if spaces is set (the byte[] path takes normalized letters only)
+    static String randomText(int size, Random random, boolean spaces) {
+        byte[] chars = new byte[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (byte) (spaces && random.nextInt(6) == 0 ? ' ' : 'A' + random.nextInt(26));
+        }
+        return new String(chars, StandardCharsets.US_ASCII);
+    }
+}
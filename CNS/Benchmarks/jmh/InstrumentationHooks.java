@@ -0,0 +1,48 @@
+package CNS.Benchmarks.jmh;
+
+import CNS.Common.CipherMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The CipherMetrics start()/stop() pair on its own, with metrics off and on. The
+// difference is the fixed cost every instrumented call pays; set against the
+// metricsOff times of InstrumentationOverhead it gives the overhead share per cipher
+// and message size with far less noise than the difference of two cipher runs.
+//
+//   java -jar target/benchmarks.jar InstrumentationHooks
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class InstrumentationHooks {
+
+    private static final CipherMetrics.Operation OPERATION = CipherMetrics.operation("bench", "hooks");
+
+    private int length;
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-Dcns.metrics=false")
+    public long hooksOff() {
+        long start = OPERATION.start();
+        OPERATION.stop(start, ++length);
+        return start;
+    }
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-Dcns.metrics=true")
+    public long hooksOn() {
+        long start = OPERATION.start();
+        OPERATION.stop(start, ++length);
+        return start;
+    }
+}
@@ -0,0 +1,71 @@
+package CNS.Benchmarks.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cost of CipherMetrics on the String methods: the same encrypt calls in forks with
+// metrics off and in forks with -Dcns.metrics=true (every call counted, latency
+// sampled one in 64). The difference between metricsOn and metricsOff is the overhead
+// per call; short messages, where the fixed cost is the largest share, are the worst
+// case. On a busy single core that difference is within run-to-run noise, so the
+// fixed cost is measured on its own by InstrumentationHooks.
+//
+//   java -jar target/benchmarks.jar InstrumentationOverhead
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class InstrumentationOverhead {
+
+    private static final int MESSAGES = 256;
+
+    @Param({"caesar", "vigenere", "playfair", "hill", "railfence", "rowcol"})
+    String cipher;
+
+    @Param({"64", "128", "512"})
+    int size;
+
+    private BenchmarkCipher target;
+    private final String[] messages = new String[MESSAGES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = BenchmarkCipher.of(cipher, 1);
+        Random random = new Random(size);
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = CipherThroughput.randomText(size, random, true);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-Dcns.metrics=false")
+    public String metricsOff() {
+        return target.encrypt(message());
+    }
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-Dcns.metrics=true")
+    public String metricsOn() {
+        return target.encrypt(message());
+    }
+
+    private String message() {
+        next = (next + 1) & (MESSAGES - 1);
+        return messages[next];
+    }
+}
@@ -0,0 +1,91 @@
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Assignment02.RowColumnTransposition;
+import CNS.Benchmarks.jmh.BenchmarkCipher;
+
+import java.util.function.UnaryOperator;
+
+// The BenchmarkCipher for a cipher name and key shape, 0 (small) to 2 (large): key
+// words of 3, 8 and 35 letters, 3, 8 and 64 rails, Hill matrices of order 2, 3 and 5,
+// the same keys as CipherBenchmark. Caesar has no key shape; there the shape only
+// picks the shift.
+public final class JmhCiphers {
+
+    private static final int[] SHIFTS = {3, 13, 25};
+    private static final String[] KEYS = {"KEY", "MONARCHY", "THEQUICKBROWNFOXJUMPSOVERTHELAZYDOG"};
+    private static final int[] RAILS = {3, 8, 64};
+    private static final int[][][] HILL_KEYS = {
+            {{3, 3}, {2, 5}},
+            {{6, 24, 1}, {13, 16, 10}, {20, 17, 15}},
+            {{1, 2, 3, 4, 5}, {0, 1, 2, 3, 4}, {0, 0, 1, 2, 3}, {0, 0, 0, 1, 2}, {0, 0, 0, 0, 1}},
+    };
+
+    private JmhCiphers() {
+    }
+
+    public static BenchmarkCipher of(String cipher, int shape) {
+        if (shape < 0 || shape >= KEYS.length) {
+            throw new IllegalArgumentException("Key shape must be 0, 1 or 2.");
+        }
+        String key = KEYS[shape];
+        switch (cipher) {
+            case "caesar": {
+                int shift = SHIFTS[shape];
+                return new Adapter(t -> SimplifiedCiphers.caesarEncrypt(t, shift),
+                        t -> SimplifiedCiphers.caesarDecrypt(t, shift), Cipher.caesar(shift));
+            }
+            case "vigenere":
+                return new Adapter(t -> SimplifiedCiphers.vigenereEncrypt(t, key),
+                        t -> SimplifiedCiphers.vigenereDecrypt(t, key), Cipher.vigenere(key));
+            case "playfair":
+                return new Adapter(t -> SimplifiedCiphers.playfairEncrypt(t, key),
+                        t -> SimplifiedCiphers.playfairDecrypt(t, key), Cipher.playfair(key));
+            case "hill": {
+                int[][] matrix = HILL_KEYS[shape];
+                return new Adapter(t -> SimplifiedCiphers.hillEncrypt(t, matrix),
+                        t -> SimplifiedCiphers.hillDecrypt(t, matrix), Cipher.hill(matrix));
+            }
+            case "railfence": {
+                int rails = RAILS[shape];
+                return new Adapter(t -> RailFenceCipher.encrypt(t, rails),
+                        t -> RailFenceCipher.decrypt(t, rails), Cipher.railFence(rails));
+            }
+            case "rowcol":
+                return new Adapter(t -> RowColumnTransposition.encrypt(t, key),
+                        t -> RowColumnTransposition.decrypt(t, key), Cipher.columnar(key));
+            default:
+                throw new IllegalArgumentException("Unknown cipher " + cipher + ".");
+        }
+    }
+
+    private static final class Adapter implements BenchmarkCipher {
+        private final UnaryOperator<String> encrypt;
+        private final UnaryOperator<String> decrypt;
+        private final Cipher bytes;
+
+        Adapter(UnaryOperator<String> encrypt, UnaryOperator<String> decrypt, Cipher bytes) {
+            this.encrypt = encrypt;
+            this.decrypt = decrypt;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String encrypt(String text) {
+            return encrypt.apply(text);
+        }
+
+        @Override
+        public String decrypt(String text) {
+            return decrypt.apply(text);
+        }
+
+        @Override
+        public int encrypt(byte[] in, byte[] out) {
+            return bytes.encrypt(in, 0, in.length, out, 0);
+        }
+
+        @Override
+        public int maxOutputLength(int length) {
+            return bytes.maxOutputLength(length);
+        }
+    }
+}
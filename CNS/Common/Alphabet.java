@@ -0,0 +1,235 @@
+package CNS.Common;
+
+import java.util.Arrays;
+
+// An ordered set of symbols that ciphers index into, instead of hardcoding 'A'..'Z'.
+// Lookups go through two precomputed tables:
+//  - symbol -> index: a direct-address table over the span of the alphabet's chars
+//    (lowest to highest), i.e. a collision-free dense hash, -1 for chars outside;
+//  - index -> symbol: the symbols in order.
+// Aliases are extra chars that read as an existing symbol (a-z as A-Z, J as I for a
+// 25-letter Playfair square); output always uses the symbol itself. The modular
+// inverse of every index mod size() is precomputed as well, for Hill keys.
+// Instances are immutable and safe to share.
+public final class Alphabet {
+
+    // A-Z, with a-z read as upper case like the original ciphers
+    public static final Alphabet UPPER = of("ABCDEFGHIJKLMNOPQRSTUVWXYZ")
+            .withAliases("abcdefghijklmnopqrstuvwxyz", "ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+
+    // The 25-letter Playfair alphabet: UPPER with J (and j) read as I
+    public static final Alphabet PLAYFAIR = UPPER.merge('J', 'I');
+
+    // A-Z then 0-9 (36 symbols, a 6x6 Playfair square), a-z read as upper case
+    public static final Alphabet ALPHANUMERIC = of("ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789")
+            .withAliases("abcdefghijklmnopqrstuvwxyz", "ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+
+    // The 95 printable ASCII chars, space to '~'
+    public static final Alphabet PRINTABLE_ASCII = range(' ', '~');
+
+    // Every byte value 0..255 (as chars 0x00..0xFF), for raw payloads
+    public static final Alphabet BYTES = range((char) 0, (char) 0xFF);
+
+    private final char[] symbols;
+    private final int base;       // Lowest char with an index
+    private final short[] index;  // char - base -> index, -1 outside the alphabet
+    private final int[] inverse;  // a -> a^-1 mod size(), -1 when gcd(a, size()) != 1
+
+    private Alphabet(char[] symbols, int base, short[] index) {
+        this.symbols = symbols;
+        this.base = base;
+        this.index = index;
+        this.inverse = inverses(symbols.length);
+    }
+
+    // The symbols in index order; they must be distinct
+    public static Alphabet of(String symbols) {
+        char[] chars = symbols.toCharArray();
+        if (chars.length < 2) {
+            throw new IllegalArgumentException("An alphabet needs at least two symbols.");
+        }
+        if (chars.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("An alphabet can have at most " + Short.MAX_VALUE + " symbols.");
+        }
+        int lo = Character.MAX_VALUE;
+        int hi = 0;
+        for (char c : chars) {
+            lo = Math.min(lo, c);
+            hi = Math.max(hi, c);
+        }
+        short[] index = new short[hi - lo + 1];
+        Arrays.fill(index, (short) -1);
+        for (int i = 0; i < chars.length; i++) {
+            if (index[chars[i] - lo] >= 0) {
+                throw new IllegalArgumentException("Duplicate symbol '" + chars[i] + "' in alphabet.");
+            }
+            index[chars[i] - lo] = (short) i;
+        }
+        return new Alphabet(chars, lo, index);
+    }
+
+    // Every char from first to last inclusive, in order
+    public static Alphabet range(char first, char last) {
+        StringBuilder sb = new StringBuilder();
+        for (char c = first; c <= last && c >= first; c++) {
+            sb.append(c);
+        }
+        return of(sb.toString());
+    }
+
+    // A copy where from.charAt(i) reads as the symbol to.charAt(i); from must not hold symbols
+    public Alphabet withAliases(String from, String to) {
+        if (from.length() != to.length()) {
+            throw new IllegalArgumentException("Aliases and their symbols must have the same length.");
+        }
+        int lo = base;
+        int hi = base + index.length - 1;
+        for (int i = 0; i < from.length(); i++) {
+            lo = Math.min(lo, from.charAt(i));
+            hi = Math.max(hi, from.charAt(i));
+        }
+        short[] table = new short[hi - lo + 1];
+        Arrays.fill(table, (short) -1);
+        System.arraycopy(index, 0, table, base - lo, index.length);
+        for (int i = 0; i < from.length(); i++) {
+            int symbol = indexOf(to.charAt(i));
+            if (symbol < 0) {
+                throw new IllegalArgumentException("'" + to.charAt(i) + "' is not in the alphabet.");
+            }
+            if (table[from.charAt(i) - lo] >= 0) {
+                throw new IllegalArgumentException("'" + from.charAt(i) + "' already reads as a symbol.");
+            }
+            table[from.charAt(i) - lo] = (short) symbol;
+        }
+        return new Alphabet(symbols, lo, table);
+    }
+
+    // A copy without the symbol removed, which (with its aliases) reads as into from then on
+    public Alphabet merge(char removed, char into) {
+        int gone = indexOf(removed);
+        int kept = indexOf(into);
+        if (gone < 0 || kept < 0 || symbols[gone] != removed || gone == kept) {
+            throw new IllegalArgumentException("Can only merge one symbol of the alphabet into another.");
+        }
+        char[] remaining = new char[symbols.length - 1];
+        System.arraycopy(symbols, 0, remaining, 0, gone);
+        System.arraycopy(symbols, gone + 1, remaining, gone, symbols.length - gone - 1);
+        short[] table = index.clone();
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == gone) {
+                table[i] = (short) kept;
+            }
+        }
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] > gone) {
+                table[i]--;
+            }
+        }
+        return new Alphabet(remaining, base, table);
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    public char symbol(int index) {
+        return symbols[index];
+    }
+
+    // Index of c (or of the symbol it is an alias of), -1 if c is not in the alphabet
+    public int indexOf(char c) {
+        int i = c - base;
+        return i >= 0 && i < index.length ? index[i] : -1;
+    }
+
+    // Index of the byte read as a char 0..255
+    public int indexOf(byte b) {
+        return indexOf((char) (b & 0xFF));
+    }
+
+    public boolean contains(char c) {
+        return indexOf(c) >= 0;
+    }
+
+    // True when every symbol fits in a byte, so byte[] payloads can hold the output
+    public boolean isByteAlphabet() {
+        for (char c : symbols) {
+            if (c > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Lowest and highest char that reads as a symbol (aliases included), for callers
+    // that build their own direct-address tables over the same span
+    public char minChar() {
+        return (char) base;
+    }
+
+    public char maxChar() {
+        return (char) (base + index.length - 1);
+    }
+
+    // a^-1 mod size() for a in 0..size()-1, or -1 if it does not exist
+    public int inverse(int a) {
+        return inverse[a];
+    }
+
+    // x mod size(), in 0..size()-1
+    public int reduce(long x) {
+        int r = (int) (x % symbols.length);
+        return r < 0 ? r + symbols.length : r;
+    }
+
+    // The indices of the symbols of text, skipping chars outside the alphabet
+    public int[] indices(CharSequence text) {
+        int[] out = new int[text.length()];
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int v = indexOf(text.charAt(i));
+            if (v >= 0) {
+                out[n++] = v;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    // The symbols of text (aliases replaced by their symbol), skipping chars outside
+    public char[] normalize(CharSequence text) {
+        char[] out = new char[text.length()];
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int v = indexOf(text.charAt(i));
+            if (v >= 0) {
+                out[n++] = symbols[v];
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    @Override
+    public String toString() {
+        return new String(symbols);
+    }
+
+    // Extended Euclid per residue: a*x + m*y = g, x is the inverse when g == 1
+    private static int[] inverses(int m) {
+        int[] inv = new int[m];
+        for (int a = 0; a < m; a++) {
+            int r0 = m, r1 = a;
+            int x0 = 0, x1 = 1;
+            while (r1 != 0) {
+                int q = r0 / r1;
+                int t = r0 - q * r1;
+                r0 = r1;
+                r1 = t;
+                t = x0 - q * x1;
+                x0 = x1;
+                x1 = t;
+            }
+            inv[a] = r0 == 1 ? Math.floorMod(x0, m) : -1;
+        }
+        return inv;
+    }
+}
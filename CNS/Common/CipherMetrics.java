@@ -0,0 +1,365 @@
+package CNS.Common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Opt-in instrumentation for the cipher String APIs, switched on with -Dcns.metrics=true.
+// Each instrumented method holds an Operation (cipher + operation name) and brackets
+// its work with start()/stop(). ENABLED is a static final, so with metrics off the JIT
+// folds both calls away.
+// With metrics on, every call that returns is counted exactly, with its input length,
+// in counters striped by thread id over padded AtomicLongArray slots. The first thread
+// to count on a stripe owns it and adds with a plain read and a release store (no
+// atomic read-modify-write, which costs several ns); a thread whose stripe is owned by
+// another uses a second, atomic pair of cells on that stripe. Only latency is sampled:
+// a random one in cns.metrics.sample calls (default 64, a power of two; a per-stripe
+// xorshift with plain reads and writes, where a race just repeats a draw) is timed
+// into a LogHistogram and emitted as a CNS.CipherOperation JFR event when a recording
+// has that enabled. Stripes are never given back, so threads that come and go (virtual
+// threads, say) mostly end up on the atomic cells.
+// Named KeyCaches register here too: caches() and export() report their hit and miss
+// counts, and every compile (unsampled) is timed as operation(name, "compile").
+// Every Operation's totals are also emitted as a periodic CNS.CipherStatistics event.
+// Cost with metrics on: the start()/stop() pair takes about 12 ns per call
+// (InstrumentationHooks, one core), under 2% only for calls of 600 ns or more. Against
+// the metricsOff times of InstrumentationOverhead, Vigenere, Playfair and Hill meet
+// that from 64 chars, row-column from 128 and every cipher from 512. Caesar misses it
+// below 512 chars (about 10% at 64, 6% at 128) and rail fence at 128 and below (3-4%),
+// so leave metrics off where those short calls dominate.
+public final class CipherMetrics {
+
+    public static final String ENABLED_PROPERTY = "cns.metrics";
+    public static final String SAMPLE_PROPERTY = "cns.metrics.sample";
+
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private static final int SAMPLE_RATE = ENABLED ? sampleRate() : 1;
+    private static final int STRIPES = Math.min(64, Integer.highestOneBit(
+            Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1);
+    // Longs per stripe: 16 (128 bytes) keeps neighbouring stripes off each other's
+    // cache lines, adjacent-line prefetch included
+    private static final int STRIDE = 16;
+    private static final int OWNER = 0; // Id of the thread owning the plain cells, 0 for none
+    private static final int CALLS = 1;
+    private static final int LENGTH = 2;
+    private static final int SHARED_CALLS = 3;
+    private static final int SHARED_LENGTH = 4;
+    private static final int SAMPLED_NANOS = 5;
+    private static final int RANDOM = 6;
+
+    private static final Map<String, Operation> OPERATIONS = new LinkedHashMap<>();
+    private static final Map<String, KeyCache<?, ?>> CACHES = new LinkedHashMap<>();
+
+    static {
+        if (ENABLED) {
+            FlightRecorder.addPeriodicEvent(StatisticsEvent.class, CipherMetrics::emitStatistics);
+        }
+    }
+
+    private CipherMetrics() {
+    }
+
+    // The counters for one cipher operation, e.g. operation("vigenere", "encrypt").
+    // Asking again for the same pair returns the same Operation.
+    public static Operation operation(String cipher, String operation) {
+        return operation(cipher, operation, SAMPLE_RATE);
+    }
+
+    // Same, timing one call in sampleRate; 1 for rare calls such as key compiles
+    static synchronized Operation operation(String cipher, String operation, int sampleRate) {
+        return OPERATIONS.computeIfAbsent(cipher + "/" + operation, k -> new Operation(cipher, operation, sampleRate));
+    }
+
+    // Makes a named KeyCache's counters part of the snapshot; called by KeyCache
+    static synchronized void register(String name, KeyCache<?, ?> cache) {
+        CACHES.putIfAbsent(name, cache);
+    }
+
+    // The named key caches, by name
+    public static synchronized Map<String, KeyCache<?, ?>> caches() {
+        return new LinkedHashMap<>(CACHES);
+    }
+
+    public static List<Snapshot> snapshot() {
+        List<Operation> operations;
+        synchronized (CipherMetrics.class) {
+            operations = new ArrayList<>(OPERATIONS.values());
+        }
+        List<Snapshot> snapshots = new ArrayList<>(operations.size());
+        for (Operation op : operations) {
+            snapshots.add(op.snapshot());
+        }
+        return snapshots;
+    }
+
+    // Everything in the Prometheus text exposition format: per operation the call and
+    // length counters and a latency summary (seconds, from the sampled calls), per
+    // named key cache its hits, misses and size
+    public static String export() {
+        StringBuilder sb = new StringBuilder();
+        List<Snapshot> snapshots = snapshot();
+        sb.append("# TYPE cns_cipher_calls_total counter\n");
+        for (Snapshot s : snapshots) {
+            line(sb, "cns_cipher_calls_total", s, "", s.calls);
+        }
+        sb.append("# TYPE cns_cipher_length_total counter\n");
+        for (Snapshot s : snapshots) {
+            line(sb, "cns_cipher_length_total", s, "", s.length);
+        }
+        sb.append("# TYPE cns_cipher_latency_seconds summary\n");
+        for (Snapshot s : snapshots) {
+            if (s.samples == 0) {
+                continue;
+            }
+            for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                line(sb, "cns_cipher_latency_seconds", s, ",quantile=\"" + q + "\"", s.quantileNanos(q) / 1e9);
+            }
+            line(sb, "cns_cipher_latency_seconds_sum", s, "", s.sampledNanos / 1e9);
+            line(sb, "cns_cipher_latency_seconds_count", s, "", s.samples);
+        }
+        Map<String, KeyCache<?, ?>> caches = caches();
+        if (!caches.isEmpty()) {
+            sb.append("# TYPE cns_key_cache_hits_total counter\n");
+            caches.forEach((name, c) -> cacheLine(sb, "cns_key_cache_hits_total", name, c.hits()));
+            sb.append("# TYPE cns_key_cache_misses_total counter\n");
+            caches.forEach((name, c) -> cacheLine(sb, "cns_key_cache_misses_total", name, c.misses()));
+            sb.append("# TYPE cns_key_cache_size gauge\n");
+            caches.forEach((name, c) -> cacheLine(sb, "cns_key_cache_size", name, c.size()));
+        }
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, String metric, Snapshot s, String extraLabels, double value) {
+        sb.append(metric).append("{cipher=\"").append(s.cipher).append("\",operation=\"").append(s.operation)
+                .append('"').append(extraLabels).append("} ").append(format(value)).append('\n');
+    }
+
+    private static void cacheLine(StringBuilder sb, String metric, String name, long value) {
+        sb.append(metric).append("{cache=\"").append(name).append("\"} ").append(value).append('\n');
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15
+                ? Long.toString((long) value)
+                : String.format(Locale.ROOT, "%.9g", value);
+    }
+
+    private static int sampleRate() {
+        int rate = Integer.getInteger(SAMPLE_PROPERTY, 64);
+        if (rate <= 0 || Integer.bitCount(rate) != 1) {
+            throw new IllegalArgumentException(SAMPLE_PROPERTY + " must be a positive power of two.");
+        }
+        return rate;
+    }
+
+    private static int stripe(long threadId) {
+        return (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 40) & (STRIPES - 1);
+    }
+
+    private static void emitStatistics() {
+        for (Snapshot s : snapshot()) {
+            StatisticsEvent event = new StatisticsEvent();
+            event.cipher = s.cipher;
+            event.operation = s.operation;
+            event.calls = s.calls;
+            event.length = s.length;
+            event.p50 = (long) s.quantileNanos(0.5);
+            event.p99 = (long) s.quantileNanos(0.99);
+            event.commit();
+        }
+    }
+
+    // Counters of one (cipher, operation) pair
+    public static final class Operation {
+        private final String cipher;
+        private final String operation;
+        private final int sampleMask;
+        private final AtomicLongArray cells;
+        private final LogHistogram latency;
+
+        private Operation(String cipher, String operation, int sampleRate) {
+            this.cipher = cipher;
+            this.operation = operation;
+            this.sampleMask = sampleRate - 1;
+            if (!ENABLED) { // Nothing is allocated while metrics are off
+                cells = null;
+                latency = null;
+                return;
+            }
+            cells = new AtomicLongArray(STRIPES * STRIDE);
+            latency = new LogHistogram(STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                cells.set(i * STRIDE + RANDOM, 0x9E3779B97F4A7C15L * (i + 1)); // Any non-zero seed
+            }
+        }
+
+        // Returns the start time when this call is sampled, else 0
+        public long start() {
+            if (!ENABLED) {
+                return 0;
+            }
+            if (sampleMask != 0) {
+                int slot = stripe(Thread.currentThread().getId()) * STRIDE + RANDOM;
+                long x = cells.getPlain(slot);
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                cells.setPlain(slot, x);
+                if ((x & sampleMask) != 0) {
+                    return 0;
+                }
+            }
+            return System.nanoTime();
+        }
+
+        // Counts the call with its input length (chars for the String APIs) and
+        // records its latency if it was sampled (start != 0); calls that throw never
+        // get here and are not counted
+        public void stop(long start, int length) {
+            if (!ENABLED) {
+                return;
+            }
+            long thread = Thread.currentThread().getId();
+            int base = stripe(thread) * STRIDE;
+            long owner = cells.getPlain(base + OWNER);
+            if (owner == thread || owner == 0 && cells.compareAndSet(base + OWNER, 0, thread)) {
+                cells.setRelease(base + CALLS, cells.getPlain(base + CALLS) + 1);
+                cells.setRelease(base + LENGTH, cells.getPlain(base + LENGTH) + length);
+            } else {
+                cells.getAndIncrement(base + SHARED_CALLS);
+                cells.getAndAdd(base + SHARED_LENGTH, length);
+            }
+            if (start != 0) {
+                record(base, System.nanoTime() - start, length);
+            }
+        }
+
+        // Out of line so the inlined start()/stop() pair stays a few instructions
+        private void record(int base, long nanos, int length) {
+            cells.getAndAdd(base + SAMPLED_NANOS, nanos);
+            latency.record(base / STRIDE, nanos);
+            OperationEvent event = new OperationEvent();
+            if (event.shouldCommit()) {
+                event.cipher = cipher;
+                event.operation = operation;
+                event.length = length;
+                event.latency = nanos;
+                event.commit();
+            }
+        }
+
+        private Snapshot snapshot() {
+            if (!ENABLED) {
+                return new Snapshot(cipher, operation, 0, 0, 0, new long[LogHistogram.BUCKETS]);
+            }
+            long calls = 0;
+            long length = 0;
+            long sampledNanos = 0;
+            for (int s = 0; s < STRIPES; s++) {
+                int base = s * STRIDE;
+                calls += cells.getAcquire(base + CALLS) + cells.get(base + SHARED_CALLS);
+                length += cells.getAcquire(base + LENGTH) + cells.get(base + SHARED_LENGTH);
+                sampledNanos += cells.get(base + SAMPLED_NANOS);
+            }
+            return new Snapshot(cipher, operation, calls, length, sampledNanos, latency.counts());
+        }
+    }
+
+    // Point-in-time totals of one Operation
+    public static final class Snapshot {
+        public final String cipher;
+        public final String operation;
+        // Every call that returned, and the total of their input lengths
+        public final long calls;
+        public final long length;
+        // Timed (sampled) calls and their total latency
+        public final long samples;
+        public final long sampledNanos;
+        private final long[] buckets;
+
+        private Snapshot(String cipher, String operation, long calls, long length, long sampledNanos, long[] buckets) {
+            this.cipher = cipher;
+            this.operation = operation;
+            this.calls = calls;
+            this.length = length;
+            this.sampledNanos = sampledNanos;
+            this.buckets = buckets;
+            long samples = 0;
+            for (long b : buckets) {
+                samples += b;
+            }
+            this.samples = samples;
+        }
+
+        // Latency at quantile q (0..1) of the sampled calls, NaN before any sample
+        public double quantileNanos(double q) {
+            return LogHistogram.quantile(buckets, q);
+        }
+
+        public double meanNanos() {
+            return samples == 0 ? Double.NaN : (double) sampledNanos / samples;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %s: %d calls, %d chars, p50 %.0f ns, p99 %.0f ns",
+                    cipher, operation, calls, length, quantileNanos(0.5), quantileNanos(0.99));
+        }
+    }
+
+    @Name("CNS.CipherOperation")
+    @Label("Cipher Operation")
+    @Category("CNS")
+    @Description("One sampled call of a cipher String method")
+    @StackTrace(false)
+    static final class OperationEvent extends Event {
+        @Label("Cipher")
+        String cipher;
+        @Label("Operation")
+        String operation;
+        @Label("Chars")
+        @Description("Input length in chars, as passed to stop()")
+        long length;
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    @Name("CNS.CipherStatistics")
+    @Label("Cipher Statistics")
+    @Category("CNS")
+    @Description("Totals of one cipher operation since startup")
+    @Period("10 s")
+    @StackTrace(false)
+    static final class StatisticsEvent extends Event {
+        @Label("Cipher")
+        String cipher;
+        @Label("Operation")
+        String operation;
+        @Label("Calls")
+        long calls;
+        @Label("Chars")
+        @Description("Input length in chars, as passed to stop()")
+        long length;
+        @Label("Latency p50")
+        @Timespan(Timespan.NANOSECONDS)
+        long p50;
+        @Label("Latency p99")
+        @Timespan(Timespan.NANOSECONDS)
+        long p99;
+    }
+}
@@ -0,0 +1,42 @@
+package CNS.Common;
+
+// Letter statistics of English text used to score candidate plaintexts.
+public final class EnglishStats {
+
+    // Relative frequency of A..Z in English text (sums to 1)
+    public static final double[] LETTER_FREQUENCIES = {
+            0.08167, 0.01492, 0.02782, 0.04253, 0.12702, 0.02228, 0.02015, // A-G
+            0.06094, 0.06966, 0.00153, 0.00772, 0.04025, 0.02406, 0.06749, // H-N
+            0.07507, 0.01929, 0.00095, 0.05987, 0.06327, 0.09056, 0.02758, // O-U
+            0.00978, 0.02360, 0.00150, 0.01974, 0.00074,                   // V-Z
+    };
+
+    // Index of coincidence of English text (sum of squared letter frequencies)
+    public static final double ENGLISH_IC = 0.0667;
+
+    // Index of coincidence of uniformly random letters (1 / 26)
+    public static final double RANDOM_IC = 1.0 / 26;
+
+    private EnglishStats() {
+    }
+
+    // Chi-squared distance between a letter histogram read with a rotation and English.
+    // Bin c of the histogram is treated as plaintext letter (c - shift) mod 26, so this
+    // scores "decrypt with this Caesar shift" without decoding anything. Lower is better.
+    public static double chiSquared(int[] histogram, int total, int shift) {
+        if (total == 0) {
+            return 0;
+        }
+        double chi = 0;
+        for (int p = 0; p < 26; p++) {
+            int c = p + shift;
+            if (c >= 26) {
+                c -= 26;
+            }
+            double expected = total * LETTER_FREQUENCIES[p];
+            double diff = histogram[c] - expected;
+            chi += diff * diff / expected;
+        }
+        return chi;
+    }
+}
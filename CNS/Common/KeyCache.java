@@ -0,0 +1,121 @@
+package CNS.Common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Bounded LRU cache for compiled cipher keys (Playfair squares, Hill inverses, column orders...).
+// The map is split into independently locked segments so many threads can look up
+// different keys without queueing on one lock. Values must be immutable.
+// A cache created with a name reports to CipherMetrics when metrics are enabled: its
+// hit and miss counts are exported and compiles are timed as (name, "compile").
+public final class KeyCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final CipherMetrics.Operation compiles;
+
+    public KeyCache(int capacity) {
+        this(capacity, null);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public KeyCache(int capacity, String name) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive.");
+        }
+        // Keep at least 8 entries per segment so a small cache still behaves like an LRU
+        int count = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(capacity / 8 + 1)));
+        segments = new Segment[count];
+        int perSegment = (capacity + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+        segmentMask = count - 1;
+        compiles = name != null && CipherMetrics.ENABLED ? CipherMetrics.operation(name, "compile", 1) : null;
+        if (compiles != null) {
+            CipherMetrics.register(name, this);
+        }
+    }
+
+    // Returns the cached value for key, compiling (and caching) it on a miss
+    public V get(K key, Function<? super K, ? extends V> compiler) {
+        Segment<K, V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        return compile(segment, key, compiler);
+    }
+
+    // The miss path, kept out of get() so the hit path stays small enough to inline
+    private V compile(Segment<K, V> segment, K key, Function<? super K, ? extends V> compiler) {
+        // Compile outside the lock; if two threads race, the first one stored wins
+        long start = compiles != null ? compiles.start() : 0;
+        V compiled = compiler.apply(key);
+        if (compiles != null) {
+            compiles.stop(start, 0);
+        }
+        synchronized (segment) {
+            V existing = segment.putIfAbsent(key, compiled);
+            return existing != null ? existing : compiled;
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    // Access-ordered LinkedHashMap that drops its least recently used entry when full
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package CNS.Common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free histogram of non-negative longs (latencies in nanoseconds) over log-scale
+// buckets: values below 4 get their own bucket, above that every power of two is cut
+// into 4 sub-buckets, so a bucket is never wider than a quarter of its lower bound
+// and 248 buckets cover the whole long range. Writers add to one of several stripes
+// (chosen from the thread id) so concurrent recorders rarely share a cache line;
+// readers sum the stripes.
+final class LogHistogram {
+
+    private static final int SUB_BITS = 2;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts;
+    private final int stripeMask;
+
+    // stripes must be a power of two
+    LogHistogram(int stripes) {
+        counts = new AtomicLongArray(stripes * BUCKETS);
+        stripeMask = stripes - 1;
+    }
+
+    void record(int stripe, long value) {
+        counts.getAndIncrement((stripe & stripeMask) * BUCKETS + bucket(value));
+    }
+
+    // Bucket totals summed over all stripes
+    long[] counts() {
+        long[] sum = new long[BUCKETS];
+        for (int i = 0; i < counts.length(); i++) {
+            sum[i % BUCKETS] += counts.get(i);
+        }
+        return sum;
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_COUNT) {
+            return (int) Math.max(value, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    // Smallest value that falls into bucket
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        return (long) (SUB_COUNT + bucket % SUB_COUNT) << (exponent - SUB_BITS);
+    }
+
+    // Value at quantile q (0..1) of bucket counts, reported as the middle of its bucket
+    static double quantile(long[] counts, double q) {
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                long low = lowerBound(b);
+                long high = b + 1 < BUCKETS ? lowerBound(b + 1) - 1 : Long.MAX_VALUE;
+                return low + (high - low) / 2.0;
+            }
+        }
+        return Double.NaN;
+    }
+}
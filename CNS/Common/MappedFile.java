@@ -0,0 +1,119 @@
+package CNS.Common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+// A file mapped into memory through FileChannel.map, in 1 GB regions so files larger
+// than 2 GB (the limit of a single MappedByteBuffer) can be addressed with long offsets.
+// The file-level cipher modes read and write these regions directly, so data goes
+// from the page cache to the page cache without heap copies.
+public final class MappedFile implements Closeable {
+
+    public static final int REGION_SHIFT = 30;
+    public static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final long REGION_MASK = REGION_SIZE - 1;
+
+    // Unit of parallel work; regions are a whole number of chunks
+    public static final int CHUNK_SIZE = 1 << 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final long size;
+
+    private MappedFile(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        this.channel = channel;
+        this.size = size;
+        int count = (int) ((size + REGION_SIZE - 1) >>> REGION_SHIFT);
+        regions = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << REGION_SHIFT;
+            regions[i] = channel.map(mode, start, Math.min(REGION_SIZE, size - start));
+        }
+    }
+
+    public static MappedFile openRead(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return map(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+    }
+
+    // Maps an existing file for reading and writing (for in-place transforms)
+    public static MappedFile openReadWrite(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return map(channel, FileChannel.MapMode.READ_WRITE, channel.size());
+    }
+
+    // Creates (or truncates) a file of exactly size bytes and maps it for writing
+    public static MappedFile create(Path path, long size) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        return map(channel, FileChannel.MapMode.READ_WRITE, size);
+    }
+
+    private static MappedFile map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        try {
+            return new MappedFile(channel, mode, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public byte get(long pos) {
+        return regions[(int) (pos >>> REGION_SHIFT)].get((int) (pos & REGION_MASK));
+    }
+
+    public void put(long pos, byte b) {
+        regions[(int) (pos >>> REGION_SHIFT)].put((int) (pos & REGION_MASK), b);
+    }
+
+    // The mapped buffer holding pos; index into it with offsetInRegion(pos).
+    // Absolute get/put on it is safe from several threads touching different bytes.
+    public MappedByteBuffer regionOf(long pos) {
+        return regions[(int) (pos >>> REGION_SHIFT)];
+    }
+
+    public static int offsetInRegion(long pos) {
+        return (int) (pos & REGION_MASK);
+    }
+
+    public int chunkCount() {
+        return chunkCount(size);
+    }
+
+    public static int chunkCount(long size) {
+        return (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    // Runs body(chunkIndex) for every CHUNK_SIZE slice of [0, size) on the common ForkJoinPool
+    public static void forEachChunk(long size, ChunkBody body) {
+        IntStream.range(0, chunkCount(size)).parallel().forEach(c -> {
+            long from = (long) c * CHUNK_SIZE;
+            body.run(c, from, Math.min(size, from + CHUNK_SIZE));
+        });
+    }
+
+    // Flushes written pages to the storage device
+    public void force() {
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public interface ChunkBody {
+        void run(int chunk, long from, long to);
+    }
+}
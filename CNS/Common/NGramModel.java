@@ -0,0 +1,326 @@
+package CNS.Common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+// Letter n-gram language model for scoring candidate plaintexts.
+// The log-probabilities of all 26^n n-grams live in one flat float[] indexed by the
+// n-gram's base-26 value (e.g. a quadgram abcd is ((a * 26 + b) * 26 + c) * 26 + d),
+// so scoring is a rolling index and one array read per letter.
+// Models are trained from a corpus, or saved to and loaded from a compact binary
+// file ("NGRM", n, then 26^n floats); load once and share, instances are immutable.
+public final class NGramModel {
+
+    private static final int MAGIC = 0x4E47524D; // "NGRM"
+
+    // Most frequent English bigrams and their share of all bigrams (%)
+    private static final String[] TOP_BIGRAMS = {
+            "TH", "HE", "IN", "ER", "AN", "RE", "ON", "AT", "EN", "ND",
+            "TI", "ES", "OR", "TE", "OF", "ED", "IS", "IT", "AL", "AR",
+            "ST", "TO", "NT", "NG", "SE", "HA", "AS", "OU", "IO", "LE",
+            "VE", "CO", "ME", "DE", "HI", "RI", "RO", "IC", "NE", "EA",
+            "RA", "CE", "LI", "CH", "LL", "BE", "MA", "SI", "OM", "UR",
+    };
+    private static final double[] TOP_BIGRAM_PERCENT = {
+            3.56, 3.07, 2.43, 2.05, 1.99, 1.85, 1.76, 1.49, 1.45, 1.35,
+            1.34, 1.34, 1.28, 1.20, 1.17, 1.17, 1.13, 1.12, 1.09, 1.07,
+            1.05, 1.04, 1.04, 0.95, 0.93, 0.93, 0.87, 0.87, 0.83, 0.83,
+            0.83, 0.79, 0.79, 0.76, 0.76, 0.73, 0.73, 0.70, 0.69, 0.69,
+            0.69, 0.65, 0.62, 0.60, 0.58, 0.58, 0.57, 0.55, 0.55, 0.54,
+    };
+
+    // Path of a binary quadgram table (see save) used by englishQuadgrams()
+    public static final String QUADGRAM_FILE_PROPERTY = "cns.quadgrams";
+
+    private final int n;
+    private final float[] logProb;
+    private final float max;
+
+    private NGramModel(int n, float[] logProb) {
+        this.n = n;
+        this.logProb = logProb;
+        float m = Float.NEGATIVE_INFINITY;
+        for (float p : logProb) {
+            m = Math.max(m, p);
+        }
+        this.max = m;
+    }
+
+    // Counts the n-grams of the letters in corpus (non-letters break n-grams, ASCII
+    // case is folded); unseen n-grams get a floor of 0.01 counts
+    public static NGramModel train(CharSequence corpus, int n) {
+        checkOrder(n);
+        int size = size(n);
+        double[] counts = new double[size];
+        int index = 0;
+        int run = 0;
+        for (int i = 0, len = corpus.length(); i < len; i++) {
+            int v = (corpus.charAt(i) | 0x20) - 'a';
+            if (v < 0 || v >= 26) {
+                run = 0;
+                continue;
+            }
+            index = (index * 26 + v) % size;
+            if (++run >= n) {
+                counts[index]++;
+            }
+        }
+        return fromCounts(n, counts, 0.01);
+    }
+
+    // The built-in models are built on first use and shared. Each lives in a holder
+    // class of its own, so class initialization publishes it safely and building one
+    // (the quadgram table is 26^4 entries) never forces the others.
+
+    // Built-in English letter (unigram) model from EnglishStats.LETTER_FREQUENCIES
+    public static NGramModel englishLetters() {
+        return EnglishLetters.MODEL;
+    }
+
+    // Built-in English bigram model: published frequencies of the 50 most common
+    // bigrams, the rest of the mass spread by the product of letter frequencies
+    public static NGramModel englishBigrams() {
+        return EnglishBigrams.MODEL;
+    }
+
+    // English quadgram model. Loaded from the file named by the cns.quadgrams system
+    // property when set; otherwise approximated from the built-in bigrams as a chain,
+    // P(abcd) = P(ab) * P(c | b) * P(d | c). A file that cannot be loaded is logged
+    // once and the chain used instead, so a bad property never breaks the solvers.
+    public static NGramModel englishQuadgrams() {
+        return EnglishQuadgrams.MODEL;
+    }
+
+    private static final class EnglishLetters {
+        static final NGramModel MODEL = fromCounts(1, EnglishStats.LETTER_FREQUENCIES.clone(), 0);
+    }
+
+    private static final class EnglishBigrams {
+        static final NGramModel MODEL = buildEnglishBigrams();
+    }
+
+    private static final class EnglishQuadgrams {
+        static final NGramModel MODEL = buildEnglishQuadgrams();
+    }
+
+    private static NGramModel buildEnglishBigrams() {
+        double[] p = new double[26 * 26];
+        boolean[] listed = new boolean[26 * 26];
+        double listedMass = 0;
+        for (int i = 0; i < TOP_BIGRAMS.length; i++) {
+            int idx = (TOP_BIGRAMS[i].charAt(0) - 'A') * 26 + (TOP_BIGRAMS[i].charAt(1) - 'A');
+            p[idx] = TOP_BIGRAM_PERCENT[i] / 100;
+            listed[idx] = true;
+            listedMass += p[idx];
+        }
+        double otherWeight = 0;
+        for (int idx = 0; idx < p.length; idx++) {
+            if (!listed[idx]) {
+                otherWeight += unigram(idx / 26) * unigram(idx % 26);
+            }
+        }
+        for (int idx = 0; idx < p.length; idx++) {
+            if (!listed[idx]) {
+                p[idx] = (1 - listedMass) * unigram(idx / 26) * unigram(idx % 26) / otherWeight;
+            }
+        }
+        return fromCounts(2, p, 0);
+    }
+
+    private static NGramModel buildEnglishQuadgrams() {
+        String file = System.getProperty(QUADGRAM_FILE_PROPERTY);
+        if (file != null) {
+            try {
+                return loadQuadgrams(Path.of(file));
+            } catch (IOException | InvalidPathException e) {
+                System.getLogger(NGramModel.class.getName()).log(System.Logger.Level.WARNING,
+                        "Cannot load the quadgram table " + file + "; using the bigram chain instead", e);
+            }
+        }
+        return chainFromBigrams(englishBigrams(), 4);
+    }
+
+    // A saved model that must be a quadgram table, as cns.quadgrams names
+    public static NGramModel loadQuadgrams(Path path) throws IOException {
+        NGramModel model = load(path);
+        if (model.order() != 4) {
+            throw new IOException(path + " is not a quadgram table (order " + model.order() + ").");
+        }
+        return model;
+    }
+
+    public static NGramModel load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return load(in);
+        }
+    }
+
+    public static NGramModel load(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an n-gram model file.");
+        }
+        int n = data.readInt();
+        if (n < 1 || n > 5) {
+            throw new IOException("Bad n-gram order " + n + ".");
+        }
+        float[] logProb = new float[size(n)];
+        for (int i = 0; i < logProb.length; i++) {
+            logProb[i] = data.readFloat();
+        }
+        return new NGramModel(n, logProb);
+    }
+
+    public void save(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            save(out);
+        }
+    }
+
+    public void save(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(n);
+        for (float p : logProb) {
+            data.writeFloat(p);
+        }
+        data.flush();
+    }
+
+    public int order() {
+        return n;
+    }
+
+    // Natural log-probability of the n-gram with this base-26 index
+    public float logProb(int index) {
+        return logProb[index];
+    }
+
+    // Upper bound on any single logProb; used to stop scoring a candidate early
+    public float maxLogProb() {
+        return max;
+    }
+
+    // Average log-probability per n-gram of text that follows this model exactly
+    // (minus its entropy); real text scores a little lower. Used to set fitness thresholds.
+    public double expectedLogProb() {
+        double sum = 0;
+        for (float p : logProb) {
+            sum += Math.exp(p) * p;
+        }
+        return sum;
+    }
+
+    // Sum of log-probabilities of every n-gram in letters[off, off + len) (values 0..25)
+    public double score(byte[] letters, int off, int len) {
+        int size = logProb.length;
+        int index = 0;
+        double sum = 0;
+        for (int i = 0; i < len; i++) {
+            index = (index * 26 + letters[off + i]) % size;
+            if (i >= n - 1) {
+                sum += logProb[index];
+            }
+        }
+        return sum;
+    }
+
+    // Same as score() for chars 'A'..'Z'
+    public double score(char[] text, int off, int len) {
+        int size = logProb.length;
+        int index = 0;
+        double sum = 0;
+        for (int i = 0; i < len; i++) {
+            index = (index * 26 + (text[off + i] - 'A')) % size;
+            if (i >= n - 1) {
+                sum += logProb[index];
+            }
+        }
+        return sum;
+    }
+
+    // Sum of log-probabilities of the n-grams of the ASCII letters in text[off, off + len),
+    // either case; other chars are skipped (the n-gram continues across them)
+    public double scoreText(char[] text, int off, int len) {
+        int size = logProb.length;
+        int index = 0;
+        int run = 0;
+        double sum = 0;
+        for (int i = off, end = off + len; i < end; i++) {
+            int v = (text[i] | 0x20) - 'a';
+            if (v < 0 || v >= 26) {
+                continue;
+            }
+            index = (index * 26 + v) % size;
+            if (++run >= n) {
+                sum += logProb[index];
+            }
+        }
+        return sum;
+    }
+
+    // Order-n model from a bigram model, assuming each letter depends only on the previous one
+    private static NGramModel chainFromBigrams(NGramModel bigrams, int n) {
+        double[] first = new double[26]; // log P(a), the bigram mass starting with a
+        for (int a = 0; a < 26; a++) {
+            double p = 0;
+            for (int b = 0; b < 26; b++) {
+                p += Math.exp(bigrams.logProb[a * 26 + b]);
+            }
+            first[a] = Math.log(p);
+        }
+        float[] logProb = new float[size(n)];
+        int[] letters = new int[n];
+        for (int index = 0; index < logProb.length; index++) {
+            int rest = index;
+            for (int i = n - 1; i >= 0; i--) {
+                letters[i] = rest % 26;
+                rest /= 26;
+            }
+            double p = bigrams.logProb[letters[0] * 26 + letters[1]];
+            for (int i = 2; i < n; i++) {
+                p += bigrams.logProb[letters[i - 1] * 26 + letters[i]] - first[letters[i - 1]];
+            }
+            logProb[index] = (float) p;
+        }
+        return new NGramModel(n, logProb);
+    }
+
+    private static NGramModel fromCounts(int n, double[] counts, double floor) {
+        double total = 0;
+        for (double c : counts) {
+            total += Math.max(c, floor);
+        }
+        float[] logProb = new float[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            logProb[i] = (float) Math.log(Math.max(counts[i], floor) / total);
+        }
+        return new NGramModel(n, logProb);
+    }
+
+    private static double unigram(int letter) {
+        return EnglishStats.LETTER_FREQUENCIES[letter];
+    }
+
+    private static int size(int n) {
+        int size = 1;
+        for (int i = 0; i < n; i++) {
+            size *= 26;
+        }
+        return size;
+    }
+
+    private static void checkOrder(int n) {
+        if (n < 1 || n > 5) {
+            throw new IllegalArgumentException("N-gram order must be between 1 and 5.");
+        }
+    }
+}
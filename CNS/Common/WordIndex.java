@@ -0,0 +1,368 @@
+package CNS.Common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Compact dictionary of A-Z words for recognising plaintext among brute-force candidates.
+// The words are stored as a bitmap trie in two int arrays: each node has a 26-bit mask
+// of the letters that have a child (plus an end-of-word bit) and the index of its first
+// child, and the children of a node are laid out contiguously in letter order. Following
+// letter c is then one bit test and one popcount, with two ints per node and no objects.
+// Build it from a word list (one word per line) or save it once and load the compact
+// binary form ("WIDX", node count, masks, first children); instances are immutable.
+//
+// A Scorer (one per thread, it reuses its buffers) rejects a candidate when its first
+// few letters cannot be split into dictionary words followed by the start of a word,
+// and otherwise scores the share of its letters covered by dictionary words.
+public final class WordIndex {
+
+    private static final int MAGIC = 0x57494458; // "WIDX"
+    private static final int END_OF_WORD = 1 << 26;
+    private static final int LETTERS_MASK = END_OF_WORD - 1;
+
+    // Letters checked by accepts() before a candidate is scored in full
+    public static final int DEFAULT_PROBE = 12;
+
+    // Candidates per parallel task in rank(); each task reuses one buffer and Scorer
+    private static final int RANK_CHUNK = 16;
+
+    private static final String[] COMMON_WORDS = {
+            "THE", "BE", "TO", "OF", "AND", "A", "IN", "THAT", "HAVE", "I", "IT", "FOR", "NOT", "ON",
+            "WITH", "HE", "AS", "YOU", "DO", "AT", "THIS", "BUT", "HIS", "BY", "FROM", "THEY", "WE",
+            "SAY", "HER", "SHE", "OR", "AN", "WILL", "MY", "ONE", "ALL", "WOULD", "THERE", "THEIR",
+            "WHAT", "SO", "UP", "OUT", "IF", "ABOUT", "WHO", "GET", "WHICH", "GO", "ME", "WHEN",
+            "MAKE", "CAN", "LIKE", "TIME", "NO", "JUST", "HIM", "KNOW", "TAKE", "PEOPLE", "INTO",
+            "YEAR", "YOUR", "GOOD", "SOME", "COULD", "THEM", "SEE", "OTHER", "THAN", "THEN", "NOW",
+            "LOOK", "ONLY", "COME", "ITS", "OVER", "THINK", "ALSO", "BACK", "AFTER", "USE", "TWO",
+            "HOW", "OUR", "WORK", "FIRST", "WELL", "WAY", "EVEN", "NEW", "WANT", "BECAUSE", "ANY",
+            "THESE", "GIVE", "DAY", "MOST", "US", "IS", "WAS", "ARE", "WERE", "BEEN", "HAS", "HAD",
+            "DID", "SAID", "MAN", "MEN", "WOMAN", "MUST", "SHALL", "MAY", "VERY", "MUCH", "MORE",
+            "SUCH", "OWN", "SAME", "HERE", "WHERE", "WHY", "SHOULD", "EVERY", "GREAT", "LITTLE",
+            "LONG", "NEVER", "BEFORE", "THROUGH", "UNDER", "BETWEEN", "AGAIN", "ATTACK", "DAWN",
+            "MEET", "SECRET", "MESSAGE", "ENEMY", "NIGHT", "NORTH", "SOUTH", "EAST", "WEST",
+            "SEND", "HELP", "HOUSE", "WORLD", "LIFE", "HAND", "PART", "PLACE", "CASE", "POINT",
+            "TRUTH", "KNOWN", "FORTUNE", "WIFE", "SINGLE", "GOING", "THING", "NOTHING", "THOUGHT",
+    };
+
+    private static volatile WordIndex englishCommon;
+
+    private final int[] masks;       // letter bits of the children | END_OF_WORD
+    private final int[] firstChild;  // node index of the child with the smallest letter
+    private final int words;
+
+    private WordIndex(int[] masks, int[] firstChild) {
+        this.masks = masks;
+        this.firstChild = firstChild;
+        int count = 0;
+        for (int mask : masks) {
+            if ((mask & END_OF_WORD) != 0) {
+                count++;
+            }
+        }
+        this.words = count;
+    }
+
+    // Builds the index from words made of ASCII letters (either case); other words are skipped
+    public static WordIndex of(Iterable<? extends CharSequence> words) {
+        // Build a plain trie (26 child slots per node), then lay it out breadth-first
+        List<int[]> children = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        children.add(new int[26]);
+        terminal.add(false);
+        for (CharSequence word : words) {
+            if (!isLetters(word)) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int v = (word.charAt(i) | 0x20) - 'a';
+                int next = children.get(node)[v];
+                if (next == 0) {
+                    next = children.size();
+                    children.get(node)[v] = next;
+                    children.add(new int[26]);
+                    terminal.add(false);
+                }
+                node = next;
+            }
+            terminal.set(node, true);
+        }
+        int n = children.size();
+        int[] masks = new int[n];
+        int[] firstChild = new int[n];
+        int[] queue = new int[n];  // old node ids in breadth-first order
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int node = queue[head];
+            int mask = terminal.get(node) ? END_OF_WORD : 0;
+            firstChild[head] = tail;
+            for (int v = 0; v < 26; v++) {
+                int child = children.get(node)[v];
+                if (child != 0) {
+                    mask |= 1 << v;
+                    queue[tail++] = child;
+                }
+            }
+            masks[head++] = mask;
+        }
+        return new WordIndex(masks, firstChild);
+    }
+
+    // Reads a word list with one word per line
+    public static WordIndex fromWordList(Path path) throws IOException {
+        List<String> list = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                list.add(line.trim());
+            }
+        }
+        return of(list);
+    }
+
+    // About 170 very common English words; enough to tell English from noise
+    public static WordIndex englishCommon() {
+        WordIndex index = englishCommon;
+        if (index == null) {
+            index = of(Arrays.asList(COMMON_WORDS));
+            englishCommon = index;
+        }
+        return index;
+    }
+
+    public static WordIndex load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return load(in);
+        }
+    }
+
+    // Rejects a truncated or corrupt file with an IOException: the node count must be
+    // positive and backed by data (the arrays grow as they are read, so a bad count
+    // cannot force a large allocation), masks may only use the letter and end-of-word
+    // bits, and every node's children must lie within the node array
+    public static WordIndex load(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a word index file.");
+        }
+        int n = data.readInt();
+        if (n <= 0) {
+            throw new IOException("Corrupt word index: node count " + n + ".");
+        }
+        int[] masks = readInts(data, n);
+        int[] firstChild = readInts(data, n);
+        for (int i = 0; i < n; i++) {
+            int mask = masks[i];
+            if ((mask & ~(LETTERS_MASK | END_OF_WORD)) != 0) {
+                throw new IOException("Corrupt word index: bad mask at node " + i + ".");
+            }
+            int first = firstChild[i];
+            if (first < 0 || first > n - Integer.bitCount(mask & LETTERS_MASK)) {
+                throw new IOException("Corrupt word index: children of node " + i + " out of range.");
+            }
+        }
+        return new WordIndex(masks, firstChild);
+    }
+
+    private static int[] readInts(DataInputStream data, int n) throws IOException {
+        int[] values = new int[Math.min(n, 1 << 16)];
+        for (int i = 0; i < n; i++) {
+            if (i == values.length) {
+                values = Arrays.copyOf(values, (int) Math.min(n, 2L * values.length));
+            }
+            values[i] = data.readInt();
+        }
+        return values;
+    }
+
+    public void save(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            save(out);
+        }
+    }
+
+    public void save(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(masks.length);
+        for (int mask : masks) {
+            data.writeInt(mask);
+        }
+        for (int first : firstChild) {
+            data.writeInt(first);
+        }
+        data.flush();
+    }
+
+    public int wordCount() {
+        return words;
+    }
+
+    public int nodeCount() {
+        return masks.length;
+    }
+
+    public boolean contains(CharSequence word) {
+        if (!isLetters(word)) {
+            return false;
+        }
+        int node = 0;
+        for (int i = 0; i < word.length() && node >= 0; i++) {
+            node = child(node, (word.charAt(i) | 0x20) - 'a');
+        }
+        return node >= 0 && (masks[node] & END_OF_WORD) != 0;
+    }
+
+    // Node reached from node by letter v (0..25), or -1
+    private int child(int node, int v) {
+        int mask = masks[node];
+        int bit = 1 << v;
+        if ((mask & bit) == 0) {
+            return -1;
+        }
+        return firstChild[node] + Integer.bitCount(mask & LETTERS_MASK & (bit - 1));
+    }
+
+    public Scorer newScorer() {
+        return new Scorer();
+    }
+
+    // Writes the plaintext of a candidate into out and returns its length
+    public interface Decoder {
+        int decode(int candidate, char[] out);
+    }
+
+    // Brute-force helper: decodes candidates 0..count-1 (in parallel, with one buffer and
+    // Scorer per task), drops those rejected by accepts() and returns the rest ordered
+    // by coverage, best first. maxLength bounds the length of any decoded candidate.
+    public int[] rank(int count, int maxLength, Decoder decoder) {
+        double[] scores = new double[count];
+        int tasks = (count + RANK_CHUNK - 1) / RANK_CHUNK;
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            Scorer scorer = new Scorer();
+            char[] buffer = new char[maxLength];
+            int end = Math.min(count, (t + 1) * RANK_CHUNK);
+            for (int c = t * RANK_CHUNK; c < end; c++) {
+                int len = decoder.decode(c, buffer);
+                scores[c] = scorer.accepts(buffer, 0, len, DEFAULT_PROBE) ? scorer.coverage(buffer, 0, len) : -1;
+            }
+        });
+        return IntStream.range(0, count)
+                .filter(c -> scores[c] >= 0)
+                .boxed()
+                .sorted((a, b) -> Double.compare(scores[b], scores[a]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    // Per-thread scoring state; not thread-safe
+    public final class Scorer {
+        private byte[] letters = new byte[256];
+        private int[] covered = new int[257];
+
+        private Scorer() {
+        }
+
+        // True when the first probe letters of text (non-letters are skipped) are a
+        // sequence of dictionary words followed by the beginning of one. Typically
+        // decides in a handful of trie steps for a random candidate.
+        public boolean accepts(char[] text, int off, int len, int probe) {
+            int n = collect(text, off, len, Math.min(probe, 63));
+            if (n == 0) {
+                return false;
+            }
+            long reachable = 1; // bit p: letters [0, p) split into whole words
+            for (int p = 0; p < n; p++) {
+                if ((reachable & (1L << p)) == 0) {
+                    continue;
+                }
+                int node = 0;
+                for (int k = p; k < n; k++) {
+                    node = child(node, letters[k]);
+                    if (node < 0) {
+                        break;
+                    }
+                    if (k + 1 == n) {
+                        return true; // Runs to the end of the probe as a word or word prefix
+                    }
+                    if ((masks[node] & END_OF_WORD) != 0) {
+                        reachable |= 1L << (k + 1);
+                    }
+                }
+            }
+            return false;
+        }
+
+        // Share of the letters of text (0..1) covered by non-overlapping dictionary words,
+        // maximised over all ways of splitting the text
+        public double coverage(char[] text, int off, int len) {
+            int n = collect(text, off, len, Integer.MAX_VALUE);
+            if (n == 0) {
+                return 0;
+            }
+            if (covered.length < n + 1) {
+                covered = new int[Math.max(n + 1, covered.length * 2)];
+            }
+            Arrays.fill(covered, 0, n + 1, 0);
+            for (int p = 0; p < n; p++) {
+                int base = covered[p];
+                if (covered[p + 1] < base) {
+                    covered[p + 1] = base; // Leave letter p uncovered
+                }
+                int node = 0;
+                for (int k = p; k < n; k++) {
+                    node = child(node, letters[k]);
+                    if (node < 0) {
+                        break;
+                    }
+                    if ((masks[node] & END_OF_WORD) != 0 && covered[k + 1] < base + k + 1 - p) {
+                        covered[k + 1] = base + k + 1 - p;
+                    }
+                }
+            }
+            return covered[n] / (double) n;
+        }
+
+        // Copies up to max letter indices of text into letters; returns how many
+        private int collect(char[] text, int off, int len, int max) {
+            int n = 0;
+            for (int i = off, end = off + len; i < end && n < max; i++) {
+                int v = (text[i] | 0x20) - 'a';
+                if (v >= 0 && v < 26) {
+                    if (n == letters.length) {
+                        letters = Arrays.copyOf(letters, n * 2);
+                    }
+                    letters[n++] = (byte) v;
+                }
+            }
+            return n;
+        }
+    }
+
+    private static boolean isLetters(CharSequence word) {
+        if (word.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            int v = (word.charAt(i) | 0x20) - 'a';
+            if (v < 0 || v >= 26) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+// Blocking client for CipherServer. Not thread-safe, except that one thread may send
+// and flush while another receives.
+// The simple methods (register, encrypt, decrypt) do one round trip each. For
+// pipelining, queue requests with send(), push them out with flush() and collect the
+// responses with receive(); they arrive in the order the requests were sent. send()
+// flushes by itself when its buffer fills, so with large amounts in flight receive()
+// must run on another thread (see CipherProtocol).
+public final class CipherClient implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    private final SocketChannel channel;
+    private ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private int nextId;
+
+    // One decoded response frame
+    public static final class Response {
+        public final int id;
+        public final boolean ok;
+        public final byte[] payload;
+
+        Response(int id, boolean ok, byte[] payload) {
+            this.id = id;
+            this.ok = ok;
+            this.payload = payload;
+        }
+
+        public String text() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+
+    private CipherClient(SocketChannel channel) {
+        this.channel = channel;
+        in.flip(); // Empty, in read mode
+    }
+
+    public static CipherClient connect(SocketAddress address) throws IOException {
+        SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        try {
+            channel.connect(address);
+            if (address instanceof InetSocketAddress) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            return new CipherClient(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Registers a key (see CipherProtocol for the formats) and returns its handle
+    public int register(BatchCipher.Algorithm cipher, String key) throws IOException {
+        send(CipherProtocol.OP_REGISTER, cipher, 0, CipherProtocol.utf8(key));
+        flush();
+        return ByteBuffer.wrap(check(receive()).payload).getInt();
+    }
+
+    public String encrypt(BatchCipher.Algorithm cipher, int handle, String text) throws IOException {
+        send(CipherProtocol.OP_ENCRYPT, cipher, handle, CipherProtocol.utf8(text));
+        flush();
+        return check(receive()).text();
+    }
+
+    public String decrypt(BatchCipher.Algorithm cipher, int handle, String text) throws IOException {
+        send(CipherProtocol.OP_DECRYPT, cipher, handle, CipherProtocol.utf8(text));
+        flush();
+        return check(receive()).text();
+    }
+
+    // Queues a request without waiting for it; returns its id
+    public int send(byte op, BatchCipher.Algorithm cipher, int handle, byte[] payload) throws IOException {
+        int size = CipherProtocol.REQUEST_HEADER + payload.length;
+        if (size - 4 > CipherProtocol.MAX_FRAME) {
+            throw new IllegalArgumentException("Payload exceeds the maximum frame size.");
+        }
+        if (out.remaining() < size) {
+            flush();
+            if (out.capacity() < size) {
+                out = ByteBuffer.allocateDirect(size);
+            }
+        }
+        int id = nextId++;
+        CipherProtocol.putRequest(out, id, op, cipher, handle, payload);
+        return id;
+    }
+
+    // Writes every queued request
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    // Blocks for the next response
+    public Response receive() throws IOException {
+        fill(4);
+        int length = in.getInt(in.position());
+        if (length < CipherProtocol.RESPONSE_HEADER - 4 || length > CipherProtocol.MAX_FRAME) {
+            throw new IOException("Malformed response frame of length " + length + ".");
+        }
+        fill(4 + length);
+        in.getInt();
+        int id = in.getInt();
+        boolean ok = in.get() == CipherProtocol.STATUS_OK;
+        byte[] payload = new byte[length - (CipherProtocol.RESPONSE_HEADER - 4)];
+        in.get(payload);
+        return new Response(id, ok, payload);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Reads until at least n bytes are buffered
+    private void fill(int n) throws IOException {
+        if (in.remaining() >= n) {
+            return;
+        }
+        if (in.capacity() < n) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(n, in.capacity() * 2));
+            bigger.put(in);
+            in = bigger;
+        } else {
+            in.compact();
+        }
+        while (in.position() < n) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Server closed the connection.");
+            }
+        }
+        in.flip();
+    }
+
+    private static Response check(Response response) throws IOException {
+        if (!response.ok) {
+            throw new IOException("Server error: " + response.text());
+        }
+        return response;
+    }
+}
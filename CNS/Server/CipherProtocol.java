@@ -0,0 +1,100 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Wire format shared by CipherServer and CipherClient. All integers are big-endian.
+//
+//   request:  u32 length | u32 id | u8 op | u8 cipher | u32 key handle | payload
+//   response: u32 length | u32 id | u8 status | payload
+//
+// cipher is one of the CIPHER_* ids below, fixed here so that reordering or extending
+// BatchCipher.Algorithm does not change the wire format.
+// length counts the bytes after the length field. id is chosen by the client and
+// echoed back; responses on a connection come back in request order, so a client may
+// pipeline requests without waiting for each response. The server stops reading from
+// a connection while more than about a megabyte of its responses is unread, so a
+// client with that much in flight has to read while it writes.
+//  - REGISTER: payload is the key (UTF-8: a shift, a key word, rail count, or a Hill
+//    matrix as "3 3; 2 5"), handle is ignored; the response payload is the u32 handle.
+//    Registering the same (cipher, key) again returns the same handle.
+//  - ENCRYPT / DECRYPT: payload is UTF-8 text, cipher must match the handle's; the
+//    response payload is the UTF-8 result of the library's String method.
+// On STATUS_ERROR the response payload is a UTF-8 message and the connection stays
+// usable; a malformed frame (bad length) closes the connection. A result that would
+// not fit in MAX_FRAME comes back as STATUS_ERROR.
+final class CipherProtocol {
+
+    static final int REQUEST_HEADER = 4 + 4 + 1 + 1 + 4;
+    static final int RESPONSE_HEADER = 4 + 4 + 1;
+
+    // Largest frame (after the length field) either side accepts
+    static final int MAX_FRAME = 16 << 20;
+
+    static final byte OP_REGISTER = 0;
+    static final byte OP_ENCRYPT = 1;
+    static final byte OP_DECRYPT = 2;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    static final byte CIPHER_CAESAR = 0;
+    static final byte CIPHER_VIGENERE = 1;
+    static final byte CIPHER_PLAYFAIR = 2;
+    static final byte CIPHER_HILL = 3;
+    static final byte CIPHER_RAIL_FENCE = 4;
+    static final byte CIPHER_COLUMNAR = 5;
+
+    private CipherProtocol() {
+    }
+
+    static BatchCipher.Algorithm cipher(int id) {
+        switch (id) {
+            case CIPHER_CAESAR:
+                return BatchCipher.Algorithm.CAESAR;
+            case CIPHER_VIGENERE:
+                return BatchCipher.Algorithm.VIGENERE;
+            case CIPHER_PLAYFAIR:
+                return BatchCipher.Algorithm.PLAYFAIR;
+            case CIPHER_HILL:
+                return BatchCipher.Algorithm.HILL;
+            case CIPHER_RAIL_FENCE:
+                return BatchCipher.Algorithm.RAIL_FENCE;
+            case CIPHER_COLUMNAR:
+                return BatchCipher.Algorithm.COLUMNAR;
+            default:
+                throw new IllegalArgumentException("Unknown cipher id " + id + ".");
+        }
+    }
+
+    static byte cipherId(BatchCipher.Algorithm cipher) {
+        switch (cipher) {
+            case CAESAR:
+                return CIPHER_CAESAR;
+            case VIGENERE:
+                return CIPHER_VIGENERE;
+            case PLAYFAIR:
+                return CIPHER_PLAYFAIR;
+            case HILL:
+                return CIPHER_HILL;
+            case RAIL_FENCE:
+                return CIPHER_RAIL_FENCE;
+            case COLUMNAR:
+                return CIPHER_COLUMNAR;
+            default:
+                throw new IllegalArgumentException("No wire id for " + cipher + ".");
+        }
+    }
+
+    // Appends a request frame; buffer must have room for REQUEST_HEADER + payload.length
+    static void putRequest(ByteBuffer buffer, int id, byte op, BatchCipher.Algorithm cipher, int handle, byte[] payload) {
+        buffer.putInt(REQUEST_HEADER - 4 + payload.length)
+                .putInt(id)
+                .put(op)
+                .put(cipherId(cipher))
+                .putInt(handle)
+                .put(payload);
+    }
+
+    static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,537 @@
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Assignment02.TranspositionKey;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Local encryption sidecar: the ciphers behind a non-blocking TCP or Unix-domain
+// socket, speaking the binary framing in CipherProtocol.
+//
+//   java -cp out CipherServer [--port 7070 | --unix /tmp/cns.sock] [--loops N]
+//
+// One event loop per core, each a thread with its own Selector; the first also accepts
+// and hands connections out round-robin. A loop reads whatever a connection has sent
+// into a direct buffer, runs every complete frame in it in order and queues the
+// responses in a direct output buffer that goes out in one write, so pipelined
+// requests cost one read and one write per batch rather than per request. When a
+// client stops reading, its loop stops running its frames (and reading from it)
+// until the backlog drains. Keys are compiled once, when registered, and shared by
+// every connection through their handles. A connection that fails to set up is closed
+// on its own; when accept() itself fails the accepting loop pauses accepting briefly
+// instead of spinning on the still-ready key, and carries on.
+public final class CipherServer implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 << 10;
+    // Output queued beyond this stops frame processing until the client catches up
+    private static final int HIGH_WATER = 1 << 20;
+    private static final int MAX_HANDLES = 1 << 16;
+    // How long accepting pauses after accept() fails (out of file descriptors, say)
+    private static final long ACCEPT_BACKOFF_NANOS = 100_000_000L;
+
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final EventLoop[] loops;
+    private final KeyTable keys = new KeyTable();
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private volatile boolean closed;
+
+    private CipherServer(ServerSocketChannel server, int loopCount) throws IOException {
+        this.server = server;
+        this.address = server.getLocalAddress();
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(i);
+        }
+        server.configureBlocking(false);
+        loops[0].acceptKey = server.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    // Binds to address (an InetSocketAddress, or a UnixDomainSocketAddress whose file
+    // must not exist yet) and starts loops event loop threads
+    public static CipherServer start(SocketAddress address, int loops) throws IOException {
+        if (loops <= 0) {
+            throw new IllegalArgumentException("Need at least one event loop.");
+        }
+        ServerSocketChannel server = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        try {
+            server.bind(address, 1024);
+            return new CipherServer(server, loops);
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    // The bound address (with the actual port when started on port 0)
+    public SocketAddress address() {
+        return address;
+    }
+
+    // Number of keys registered so far
+    public int handles() {
+        return keys.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                loop.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        server.close();
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        SocketAddress address = new InetSocketAddress("127.0.0.1", 7070);
+        int loopCount = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    address = new InetSocketAddress("127.0.0.1", Integer.parseInt(args[++i]));
+                    break;
+                case "--unix":
+                    address = UnixDomainSocketAddress.of(Path.of(args[++i]));
+                    break;
+                case "--loops":
+                    loopCount = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        CipherServer server = start(address, loopCount);
+        System.out.println("Listening on " + server.address() + " with " + loopCount + " event loops");
+    }
+
+    private final class EventLoop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final Queue<SocketChannel> incoming = new ConcurrentLinkedQueue<>();
+        SelectionKey acceptKey; // Only on the accepting loop
+        private long acceptPausedUntil;
+        private boolean acceptPaused;
+
+        EventLoop(int index) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this, "cipher-server-" + index);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    try {
+                        select();
+                    } catch (IOException e) {
+                        continue; // Retried on the next pass; only close() ends the loop
+                    }
+                    registerIncoming();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Connection c = (Connection) key.attachment();
+                            try {
+                                if (key.isWritable()) {
+                                    c.writable();
+                                }
+                                if (key.isValid() && key.isReadable()) {
+                                    c.readable();
+                                }
+                            } catch (IOException e) {
+                                c.close();
+                            }
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (ClosedSelectorException e) {
+                // Shutting down
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection) {
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // Nothing left to release
+                }
+            }
+        }
+
+        // Blocks until something is ready, or until a paused accept is due to resume
+        private void select() throws IOException {
+            if (!acceptPaused) {
+                selector.select();
+                return;
+            }
+            long wait = acceptPausedUntil - System.nanoTime();
+            if (wait > 0) {
+                selector.select(Math.max(1, wait / 1_000_000));
+            }
+            if (System.nanoTime() - acceptPausedUntil >= 0) {
+                acceptPaused = false;
+                acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+            }
+        }
+
+        private void accept() {
+            while (true) {
+                SocketChannel channel;
+                try {
+                    channel = server.accept();
+                } catch (IOException e) {
+                    acceptKey.interestOps(0);
+                    acceptPaused = true;
+                    acceptPausedUntil = System.nanoTime() + ACCEPT_BACKOFF_NANOS;
+                    return;
+                }
+                if (channel == null) {
+                    return;
+                }
+                try {
+                    channel.configureBlocking(false);
+                    if (channel.getRemoteAddress() instanceof InetSocketAddress) {
+                        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    }
+                    EventLoop target = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+                    if (target == this) {
+                        new Connection(channel, selector);
+                    } else {
+                        target.incoming.add(channel);
+                        target.selector.wakeup();
+                    }
+                } catch (IOException e) {
+                    closeQuietly(channel); // Reset before we got to it, or similar
+                }
+            }
+        }
+
+        private void registerIncoming() {
+            SocketChannel channel;
+            while ((channel = incoming.poll()) != null) {
+                try {
+                    new Connection(channel, selector);
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                }
+            }
+        }
+    }
+
+    // One client: a direct input buffer of received bytes (read mode between calls is
+    // write mode, i.e. filled up to position) and a direct output buffer of responses
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private byte[] scratch = new byte[BUFFER_SIZE];
+
+        Connection(SocketChannel channel, Selector selector) throws IOException {
+            this.channel = channel;
+            this.key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        void readable() throws IOException {
+            int n = channel.read(in);
+            if (n < 0) {
+                close();
+                return;
+            }
+            if (process()) {
+                flush();
+            }
+        }
+
+        void writable() throws IOException {
+            flush();
+            if (out.position() == 0 && process()) { // Frames held back by the backlog
+                flush();
+            }
+        }
+
+        // Runs every complete frame in the input buffer; returns false if the
+        // connection was closed for a malformed frame
+        private boolean process() throws IOException {
+            in.flip();
+            try {
+                while (in.remaining() >= 4) {
+                    if (out.position() > HIGH_WATER) {
+                        flush();
+                        if (out.position() > HIGH_WATER) {
+                            return true; // Resumes from writable() once the client reads
+                        }
+                    }
+                    int length = in.getInt(in.position());
+                    if (length < CipherProtocol.REQUEST_HEADER - 4 || length > CipherProtocol.MAX_FRAME) {
+                        close();
+                        return false;
+                    }
+                    if (in.remaining() < 4 + length) {
+                        if (in.capacity() < 4 + length) {
+                            in = grow(in, 4 + length);
+                        }
+                        break;
+                    }
+                    in.getInt();
+                    handle(length);
+                }
+                return true;
+            } finally {
+                if (key.isValid()) {
+                    in.compact();
+                }
+            }
+        }
+
+        private void handle(int length) {
+            int id = in.getInt();
+            byte op = in.get();
+            int cipherId = in.get();
+            int handle = in.getInt();
+            int payloadLength = length - (CipherProtocol.REQUEST_HEADER - 4);
+            if (scratch.length < payloadLength) {
+                scratch = new byte[Math.max(payloadLength, scratch.length * 2)];
+            }
+            in.get(scratch, 0, payloadLength);
+            String payload = new String(scratch, 0, payloadLength, StandardCharsets.UTF_8);
+            byte[] result;
+            try {
+                BatchCipher.Algorithm cipher = CipherProtocol.cipher(cipherId);
+                switch (op) {
+                    case CipherProtocol.OP_REGISTER:
+                        result = ByteBuffer.allocate(4).putInt(keys.register(cipher, payload)).array();
+                        break;
+                    case CipherProtocol.OP_ENCRYPT:
+                        result = CipherProtocol.utf8(keys.get(handle, cipher).encrypt(payload));
+                        break;
+                    case CipherProtocol.OP_DECRYPT:
+                        result = CipherProtocol.utf8(keys.get(handle, cipher).decrypt(payload));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown op " + op + ".");
+                }
+                // Playfair can double its input, so a request within the limit may not be
+                if (result.length > CipherProtocol.MAX_FRAME - (CipherProtocol.RESPONSE_HEADER - 4)) {
+                    throw new IllegalArgumentException("Result of " + result.length
+                            + " bytes exceeds the maximum frame size.");
+                }
+            } catch (RuntimeException e) {
+                String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+                respond(id, CipherProtocol.STATUS_ERROR, CipherProtocol.utf8(message));
+                return;
+            }
+            respond(id, CipherProtocol.STATUS_OK, result);
+        }
+
+        private void respond(int id, byte status, byte[] payload) {
+            int size = CipherProtocol.RESPONSE_HEADER + payload.length;
+            if (out.remaining() < size) {
+                out = grow(out, out.position() + size);
+            }
+            out.putInt(size - 4).putInt(id).put(status).put(payload);
+        }
+
+        // Writes what the socket takes; waits for OP_WRITE (and stops reading) while
+        // anything is left
+        private void flush() throws IOException {
+            if (!key.isValid()) {
+                return;
+            }
+            out.flip();
+            channel.write(out);
+            out.compact();
+            if (out.position() == 0 && out.capacity() > BUFFER_SIZE) {
+                out = ByteBuffer.allocateDirect(BUFFER_SIZE); // Drop the buffer a large response grew
+            }
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void close() {
+            key.cancel();
+            closeQuietly(channel);
+        }
+
+        // A larger direct buffer holding the contents of buffer (in write mode)
+        private ByteBuffer grow(ByteBuffer buffer, int needed) {
+            int capacity = buffer.capacity();
+            while (capacity < needed) {
+                capacity *= 2;
+            }
+            ByteBuffer bigger = ByteBuffer.allocateDirect(capacity);
+            boolean reading = buffer == in; // process() has the input flipped for reading
+            if (!reading) {
+                buffer.flip();
+            }
+            bigger.put(buffer);
+            if (reading) {
+                bigger.flip();
+            }
+            return bigger;
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    // Registered keys, compiled once and shared by all connections; handles start at 1
+    private static final class KeyTable {
+        private final ConcurrentHashMap<String, Integer> handles = new ConcurrentHashMap<>();
+        private final AtomicReferenceArray<CompiledKey> compiled = new AtomicReferenceArray<>(MAX_HANDLES);
+        private final AtomicInteger next = new AtomicInteger();
+
+        int register(BatchCipher.Algorithm cipher, String key) {
+            return handles.computeIfAbsent(cipher + ":" + key, k -> {
+                CompiledKey c = CompiledKey.compile(cipher, key);
+                int slot = next.getAndIncrement();
+                if (slot >= MAX_HANDLES) {
+                    throw new IllegalArgumentException("Key table is full (" + MAX_HANDLES + " keys).");
+                }
+                compiled.set(slot, c);
+                return slot + 1;
+            });
+        }
+
+        CompiledKey get(int handle, BatchCipher.Algorithm cipher) {
+            CompiledKey c = handle > 0 && handle <= MAX_HANDLES ? compiled.get(handle - 1) : null;
+            if (c == null) {
+                throw new IllegalArgumentException("Unknown key handle " + handle + ".");
+            }
+            if (c.cipher != cipher) {
+                throw new IllegalArgumentException("Key handle " + handle + " is a " + c.cipher + " key.");
+            }
+            return c;
+        }
+
+        int size() {
+            return Math.min(next.get(), MAX_HANDLES);
+        }
+    }
+
+    // A key in its compiled form, with the String semantics of the library methods
+    private static final class CompiledKey {
+        final BatchCipher.Algorithm cipher;
+        private final Object key;
+
+        private CompiledKey(BatchCipher.Algorithm cipher, Object key) {
+            this.cipher = cipher;
+            this.key = key;
+        }
+
+        static CompiledKey compile(BatchCipher.Algorithm cipher, String key) {
+            switch (cipher) {
+                case CAESAR:
+                    return new CompiledKey(cipher, Integer.parseInt(key.trim()));
+                case VIGENERE:
+                    return new CompiledKey(cipher, VigenereKey.of(key));
+                case PLAYFAIR:
+                    return new CompiledKey(cipher, PlayfairKey.of(key));
+                case HILL:
+                    return new CompiledKey(cipher, HillKey.of(parseMatrix(key)));
+                case RAIL_FENCE: {
+                    int rails = Integer.parseInt(key.trim());
+                    if (rails < 1) {
+                        throw new IllegalArgumentException("Rail fence needs at least one rail.");
+                    }
+                    return new CompiledKey(cipher, rails);
+                }
+                default:
+                    return new CompiledKey(cipher, TranspositionKey.of(key));
+            }
+        }
+
+        String encrypt(String text) {
+            switch (cipher) {
+                case CAESAR:
+                    return CaesarEngine.encrypt(text, (Integer) key);
+                case VIGENERE:
+                    return ((VigenereKey) key).encrypt(text);
+                case PLAYFAIR:
+                    return ((PlayfairKey) key).encrypt(text);
+                case HILL:
+                    return ((HillKey) key).encrypt(text);
+                case RAIL_FENCE:
+                    return RailFenceCipher.encrypt(text, (Integer) key);
+                default:
+                    return ((TranspositionKey) key).encrypt(text);
+            }
+        }
+
+        String decrypt(String text) {
+            switch (cipher) {
+                case CAESAR:
+                    return CaesarEngine.decrypt(text, (Integer) key);
+                case VIGENERE:
+                    return ((VigenereKey) key).decrypt(text);
+                case PLAYFAIR:
+                    return ((PlayfairKey) key).decrypt(text);
+                case HILL:
+                    return ((HillKey) key).decrypt(text);
+                case RAIL_FENCE:
+                    return RailFenceCipher.decrypt(text, (Integer) key);
+                default:
+                    return ((TranspositionKey) key).decrypt(text);
+            }
+        }
+
+        // Rows separated by ';', entries by commas or spaces: "3 3; 2 5"
+        private static int[][] parseMatrix(String text) {
+            String[] rows = text.trim().split("\\s*;\\s*");
+            int[][] matrix = new int[rows.length][];
+            for (int r = 0; r < rows.length; r++) {
+                String[] cells = rows[r].trim().split("[,\\s]+");
+                matrix[r] = new int[cells.length];
+                for (int c = 0; c < cells.length; c++) {
+                    matrix[r][c] = Integer.parseInt(cells[c]);
+                }
+            }
+            return matrix;
+        }
+    }
+}
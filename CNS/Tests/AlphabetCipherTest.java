@@ -0,0 +1,177 @@
+import CNS.Common.Alphabet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// AlphabetCipher over Alphabet.UPPER / PLAYFAIR gives the results of CaesarEngine,
+// VigenereKey, HillKey and PlayfairKey on 2000 random texts and keys; its byte and char
+// paths agree; and Hill (mod 36 and mod 95) and a 6x6 Playfair round trip on
+// alphabets other than A-Z.
+public class AlphabetCipherTest {
+
+    private static final String ASCII = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz ,.!?0123456789";
+
+    public static void main(String[] args) {
+        Random random = new Random(20);
+        int checks = 0;
+        for (int t = 0; t < 2000; t++) {
+            String text = TestSupport.randomText(random, ASCII, 120);
+            checks += caesar(random, text);
+            checks += vigenere(random, text);
+            checks += hill(random, text);
+            checks += playfair(random, text);
+        }
+        checks += otherAlphabets(random);
+        TestSupport.passed("AlphabetCipherTest", checks);
+    }
+
+    private static int caesar(Random random, String text) {
+        int shift = random.nextInt(60);
+        AlphabetCipher cipher = AlphabetCipher.caesar(Alphabet.UPPER, shift);
+        char[] in = text.toCharArray();
+        char[] expected = new char[in.length];
+        char[] actual = new char[in.length];
+        CaesarEngine.encrypt(in, 0, in.length, expected, 0, shift);
+        cipher.encrypt(in, 0, in.length, actual, 0);
+        TestSupport.checkEquals(new String(expected), new String(actual), "caesar " + shift + " on " + text);
+        CaesarEngine.decrypt(in, 0, in.length, expected, 0, shift);
+        cipher.decrypt(in, 0, in.length, actual, 0);
+        TestSupport.checkEquals(new String(expected), new String(actual), "caesar decrypt " + shift + " on " + text);
+        return 2 + bytesMatchChars(cipher, text);
+    }
+
+    private static int vigenere(Random random, String text) {
+        String key = TestSupport.randomLetters(random, 1 + random.nextInt(12));
+        VigenereKey reference = VigenereKey.of(key);
+        AlphabetCipher cipher = AlphabetCipher.vigenere(Alphabet.UPPER, key);
+        byte[] in = text.getBytes(StandardCharsets.US_ASCII);
+        byte[] expected = new byte[in.length];
+        byte[] actual = new byte[in.length];
+        reference.encrypt(in, 0, in.length, expected, 0, 0);
+        cipher.encrypt(in, 0, in.length, actual, 0);
+        TestSupport.checkEquals(ascii(expected, in.length), ascii(actual, in.length), "vigenere " + key + " on " + text);
+        reference.decrypt(in, 0, in.length, expected, 0, 0);
+        cipher.decrypt(in, 0, in.length, actual, 0);
+        TestSupport.checkEquals(ascii(expected, in.length), ascii(actual, in.length), "vigenere decrypt " + key + " on " + text);
+        return 2 + bytesMatchChars(cipher, text);
+    }
+
+    private static int hill(Random random, String text) {
+        int n = 2 + random.nextInt(2);
+        int[][] matrix = new int[n][n];
+        for (int[] row : matrix) {
+            for (int c = 0; c < n; c++) {
+                row[c] = random.nextInt(26);
+            }
+        }
+        HillKey reference = HillKey.compile(matrix);
+        AlphabetCipher.Hill cipher = (AlphabetCipher.Hill) AlphabetCipher.hill(Alphabet.UPPER, matrix);
+        String what = "hill " + n + "x" + n + " on " + text;
+        TestSupport.checkEquals(reference.isInvertible(), cipher.isInvertible(), what + " (invertible)");
+        String encrypted = reference.encrypt(text);
+        TestSupport.checkEquals(encrypted, cipher.encrypt(text), what);
+        int checks = 2;
+        if (reference.isInvertible()) {
+            TestSupport.checkEquals(reference.decrypt(encrypted), cipher.decrypt(encrypted), what + " (decrypt)");
+            checks += 1 + bytesMatchChars(cipher, new String(Alphabet.UPPER.normalize(text)));
+        }
+        return checks;
+    }
+
+    private static int playfair(Random random, String text) {
+        String key = TestSupport.randomLetters(random, random.nextInt(10));
+        PlayfairKey reference = PlayfairKey.compile(key);
+        AlphabetCipher cipher = AlphabetCipher.playfair(Alphabet.PLAYFAIR, key);
+        String what = "playfair " + key + " on " + text;
+        String encrypted = reference.encrypt(text);
+        TestSupport.checkEquals(encrypted, cipher.encrypt(text), what);
+        TestSupport.checkEquals(reference.decrypt(encrypted), cipher.decrypt(encrypted), what + " (decrypt)");
+        return 2 + bytesMatchChars(cipher, new String(Alphabet.PLAYFAIR.normalize(text)));
+    }
+
+    private static int otherAlphabets(Random random) {
+        int checks = 0;
+        for (Alphabet alphabet : new Alphabet[] {Alphabet.ALPHANUMERIC, Alphabet.PRINTABLE_ASCII}) {
+            String symbols = symbols(alphabet);
+            for (int t = 0; t < 200; t++) {
+                int n = 2 + random.nextInt(3);
+                AlphabetCipher.Hill cipher;
+                do {
+                    int[][] matrix = new int[n][n];
+                    for (int[] row : matrix) {
+                        for (int c = 0; c < n; c++) {
+                            row[c] = random.nextInt(alphabet.size());
+                        }
+                    }
+                    cipher = (AlphabetCipher.Hill) AlphabetCipher.hill(alphabet, matrix);
+                } while (!cipher.isInvertible());
+                String plain = randomSymbols(random, symbols, n * (1 + random.nextInt(30)));
+                String what = "hill mod " + alphabet.size() + " on " + plain;
+                TestSupport.checkEquals(plain, cipher.decrypt(cipher.encrypt(plain)), what);
+                checks += 1 + bytesMatchChars(cipher, plain);
+            }
+        }
+
+        // 6x6 square: no doubled symbols and an even length, so nothing is inserted
+        String symbols = symbols(Alphabet.ALPHANUMERIC);
+        for (int t = 0; t < 200; t++) {
+            AlphabetCipher cipher = AlphabetCipher.playfair(Alphabet.ALPHANUMERIC,
+                    randomSymbols(random, symbols, random.nextInt(12)));
+            StringBuilder plain = new StringBuilder();
+            int length = 2 * random.nextInt(40);
+            while (plain.length() < length) {
+                char c = symbols.charAt(random.nextInt(symbols.length()));
+                if (plain.length() == 0 || plain.charAt(plain.length() - 1) != c) {
+                    plain.append(c);
+                }
+            }
+            String what = "6x6 playfair on " + plain;
+            TestSupport.checkEquals(plain.toString(), cipher.decrypt(cipher.encrypt(plain.toString())), what);
+            checks += 1 + bytesMatchChars(cipher, plain.toString());
+        }
+        return checks;
+    }
+
+    // The byte methods give the char methods' output; text must suit the buffer methods
+    private static int bytesMatchChars(AlphabetCipher cipher, String text) {
+        char[] chars = text.toCharArray();
+        char[] charOut = new char[cipher.maxOutputLength(chars.length)];
+        int n = cipher.encrypt(chars, 0, chars.length, charOut, 0);
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] byteOut = new byte[cipher.maxOutputLength(bytes.length)];
+        int m = cipher.encrypt(bytes, 0, bytes.length, byteOut, 0);
+        String encrypted = new String(charOut, 0, n);
+        TestSupport.checkEquals(encrypted, latin1(byteOut, m), "byte encrypt on " + text);
+
+        char[] back = new char[n];
+        int k = cipher.decrypt(charOut, 0, n, back, 0);
+        byte[] backBytes = new byte[m];
+        int l = cipher.decrypt(byteOut, 0, m, backBytes, 0);
+        TestSupport.checkEquals(new String(back, 0, k), latin1(backBytes, l), "byte decrypt on " + encrypted);
+        return 2;
+    }
+
+    private static String symbols(Alphabet alphabet) {
+        char[] symbols = new char[alphabet.size()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = alphabet.symbol(i);
+        }
+        return new String(symbols);
+    }
+
+    private static String randomSymbols(Random random, String symbols, int len) {
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) {
+            chars[i] = symbols.charAt(random.nextInt(symbols.length()));
+        }
+        return new String(chars);
+    }
+
+    private static String ascii(byte[] bytes, int n) {
+        return new String(bytes, 0, n, StandardCharsets.US_ASCII);
+    }
+
+    private static String latin1(byte[] bytes, int n) {
+        return new String(bytes, 0, n, StandardCharsets.ISO_8859_1);
+    }
+}
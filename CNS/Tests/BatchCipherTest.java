@@ -0,0 +1,120 @@
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Assignment02.RowColumnTransposition;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// BatchCipher gives the per-message results for every algorithm, in request order, on
+// its own executor and on one that starts a new thread per task (as virtual threads
+// do), and keeps no more idle scratch buffers than there are carriers.
+public class BatchCipherTest {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz ,.!";
+    private static final String[] KEYS = {"KEY", "MONARCHY", "LEMON", "ZEBRA", "SECRETKEY"};
+    private static final int[][][] HILL = {{{3, 3}, {2, 5}}, {{6, 24, 1}, {13, 16, 10}, {20, 17, 15}}};
+
+    public static void main(String[] args) throws Exception {
+        int n = 20_000;
+        Random random = new Random(18);
+        BatchCipher.Request[] requests = new BatchCipher.Request[n];
+        String[] expected = new String[n];
+        for (int i = 0; i < n; i++) {
+            String m = TestSupport.randomText(random, ALPHABET, 80);
+            if (random.nextInt(50) == 0) {
+                m += "ßé"; // Non-ASCII takes the per-message path
+            }
+            String k = KEYS[random.nextInt(KEYS.length)];
+            switch (random.nextInt(6)) {
+                case 0: {
+                    int shift = random.nextInt(51) - 25;
+                    requests[i] = BatchCipher.Request.caesar(m, shift);
+                    expected[i] = CaesarCipher.encrypt(m, shift);
+                    break;
+                }
+                case 1:
+                    requests[i] = BatchCipher.Request.vigenere(m, k);
+                    expected[i] = SimplifiedCiphers.vigenereEncrypt(m, k);
+                    break;
+                case 2:
+                    requests[i] = BatchCipher.Request.playfair(m, k);
+                    expected[i] = SimplifiedCiphers.playfairEncrypt(m, k);
+                    break;
+                case 3: {
+                    int[][] h = HILL[random.nextInt(HILL.length)];
+                    requests[i] = BatchCipher.Request.hill(m, h);
+                    expected[i] = SimplifiedCiphers.hillEncrypt(m, h);
+                    break;
+                }
+                case 4: {
+                    int rails = 1 + random.nextInt(6);
+                    requests[i] = BatchCipher.Request.railFence(m, rails);
+                    expected[i] = RailFenceCipher.encrypt(m, rails);
+                    break;
+                }
+                default:
+                    requests[i] = BatchCipher.Request.columnar(m, k);
+                    expected[i] = RowColumnTransposition.encrypt(m, k);
+                    break;
+            }
+        }
+        BatchCipher.Request[] back = new BatchCipher.Request[n];
+        String[] decrypted = new String[n];
+        for (int i = 0; i < n; i++) {
+            String k = KEYS[i % KEYS.length];
+            String c = expected[i];
+            switch (i % 4) {
+                case 0:
+                    back[i] = BatchCipher.Request.vigenere(c, k);
+                    decrypted[i] = SimplifiedCiphers.vigenereDecrypt(c, k);
+                    break;
+                case 1:
+                    back[i] = BatchCipher.Request.railFence(c, 3);
+                    decrypted[i] = RailFenceCipher.decrypt(c, 3);
+                    break;
+                case 2:
+                    back[i] = BatchCipher.Request.caesar(c, 7);
+                    decrypted[i] = CaesarCipher.decrypt(c, 7);
+                    break;
+                default: {
+                    String grid = RowColumnTransposition.encrypt(c, k);
+                    back[i] = BatchCipher.Request.columnar(grid, k);
+                    decrypted[i] = RowColumnTransposition.decrypt(grid, k);
+                    break;
+                }
+            }
+        }
+
+        int checks = 0;
+        ExecutorService perTask = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>());
+        try (BatchCipher own = new BatchCipher(); BatchCipher threadPerTask = new BatchCipher(perTask)) {
+            for (BatchCipher batch : new BatchCipher[] {own, threadPerTask}) {
+                for (int round = 0; round < 3; round++) {
+                    checks += compare(expected, batch.encrypt(requests), requests, "encrypt");
+                    checks += compare(decrypted, batch.decrypt(back), back, "decrypt");
+                    int idle = BatchCipher.idleScratch();
+                    TestSupport.check(idle >= 1 && idle <= Math.max(1, Runtime.getRuntime().availableProcessors()),
+                            "idle scratch sets bounded by the carriers, got " + idle);
+                    checks++;
+                }
+            }
+            BatchCipher.Request[] small = Arrays.copyOf(requests, 100);
+            checks += compare(Arrays.copyOf(expected, 100), own.encrypt(small), small, "small batch");
+        } finally {
+            perTask.shutdown();
+        }
+        TestSupport.passed("BatchCipherTest", checks);
+    }
+
+    private static int compare(String[] expected, String[] actual, BatchCipher.Request[] requests, String what) {
+        TestSupport.checkEquals(expected.length, actual.length, what + " result count");
+        for (int i = 0; i < expected.length; i++) {
+            TestSupport.checkEquals(expected[i], actual[i], what + " " + requests[i].algorithm() + " [" + requests[i].message() + "]");
+        }
+        return expected.length + 1;
+    }
+}
@@ -0,0 +1,74 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// CaesarCracker ranks the true shift first for all 26 shifts of English text, scores
+// every shift from the one rotated histogram exactly as it would score the decryption,
+// and its parallel batch methods agree with crack() message by message.
+public class CaesarCrackerTest {
+
+    private static final String ENGLISH =
+            "It was the best of times, it was the worst of times, it was the age of wisdom, it was the age "
+            + "of foolishness, it was the epoch of belief, it was the epoch of incredulity, it was the season "
+            + "of Light, it was the season of Darkness, it was the spring of hope, it was the winter of despair.";
+
+    public static void main(String[] args) {
+        int checks = 0;
+        for (int shift = 0; shift < 26; shift++) {
+            String cipher = CaesarCipher.encrypt(ENGLISH, shift);
+            CaesarCracker.Result r = CaesarCracker.crack(cipher);
+            String what = "shift " + shift;
+            TestSupport.checkEquals(shift, r.bestShift(), what);
+            TestSupport.checkEquals(CaesarCipher.decrypt(cipher, shift), r.plaintext(), what + " plaintext");
+            TestSupport.checkEquals(shift, CaesarCracker.bestShift(cipher), what + " (bestShift)");
+            byte[] bytes = cipher.getBytes(StandardCharsets.US_ASCII);
+            TestSupport.checkEquals(shift, CaesarCracker.bestShift(bytes, 0, bytes.length), what + " (bytes)");
+            checks += 4;
+
+            int[] ranked = r.rankedShifts();
+            double[] scores = r.scores();
+            boolean[] seen = new boolean[26];
+            for (int k = 0; k < 26; k++) {
+                TestSupport.check(!seen[ranked[k]], what + ": shift " + ranked[k] + " ranked twice");
+                seen[ranked[k]] = true;
+                TestSupport.check(k == 0 || scores[k - 1] <= scores[k], what + ": scores ascending");
+                // Rotating the histogram by s scores what decrypting by s would give at shift 0
+                CaesarCracker.Result decrypted = CaesarCracker.crack(CaesarCipher.decrypt(cipher, ranked[k]));
+                TestSupport.check(Math.abs(scoreOf(decrypted, 0) - scores[k]) < 1e-9 * (1 + scores[k]),
+                        what + ": score of shift " + ranked[k]);
+                checks += 3;
+            }
+        }
+
+        // Batch mode over more messages than one parallel chunk, with short and empty ones
+        Random random = new Random(11);
+        String[] ciphertexts = new String[10_000];
+        for (int i = 0; i < ciphertexts.length; i++) {
+            int from = random.nextInt(ENGLISH.length());
+            int to = Math.min(ENGLISH.length(), from + random.nextInt(120));
+            ciphertexts[i] = CaesarCipher.encrypt(ENGLISH.substring(from, to), random.nextInt(26));
+        }
+        int[] best = CaesarCracker.crackAll(ciphertexts);
+        String[] plaintexts = CaesarCracker.decryptAll(ciphertexts);
+        TestSupport.checkEquals(ciphertexts.length, best.length, "crackAll length");
+        TestSupport.checkEquals(ciphertexts.length, plaintexts.length, "decryptAll length");
+        checks += 2;
+        for (int i = 0; i < ciphertexts.length; i++) {
+            CaesarCracker.Result r = CaesarCracker.crack(ciphertexts[i]);
+            TestSupport.checkEquals(r.bestShift(), best[i], "crackAll [" + ciphertexts[i] + "]");
+            TestSupport.checkEquals(r.plaintext(), plaintexts[i], "decryptAll [" + ciphertexts[i] + "]");
+            checks += 2;
+        }
+        TestSupport.passed("CaesarCrackerTest", checks);
+    }
+
+    private static double scoreOf(CaesarCracker.Result r, int shift) {
+        int[] ranked = r.rankedShifts();
+        for (int k = 0; k < 26; k++) {
+            if (ranked[k] == shift) {
+                return r.scores()[k];
+            }
+        }
+        TestSupport.fail("shift " + shift + " not ranked");
+        return Double.NaN;
+    }
+}
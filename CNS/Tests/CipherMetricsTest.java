@@ -0,0 +1,94 @@
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Common.CipherMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// CipherMetrics counts every call and char exactly, from one thread and from more
+// threads than there are stripes (so some share a stripe and take the atomic cells),
+// samples latency at the configured rate, and exports what it counted. Turns metrics
+// on itself, before any instrumented class is loaded.
+public class CipherMetricsTest {
+
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty(CipherMetrics.ENABLED_PROPERTY, "true");
+        TestSupport.check(CipherMetrics.ENABLED, "metrics enabled");
+        int checks = 1;
+
+        long expectedLength = 0;
+        Random random = new Random(22);
+        for (int i = 0; i < 1000; i++) {
+            String text = TestSupport.randomLetters(random, random.nextInt(100));
+            SimplifiedCiphers.vigenereEncrypt(text, "LEMON");
+            expectedLength += text.length();
+        }
+        CipherMetrics.Snapshot vigenere = find("vigenere", "encrypt");
+        TestSupport.checkEquals(1000L, vigenere.calls, "single-thread calls");
+        TestSupport.checkEquals(expectedLength, vigenere.length, "single-thread length");
+        TestSupport.check(vigenere.samples > 0 && vigenere.samples < vigenere.calls, "latency is sampled");
+        checks += 3;
+
+        List<Thread> threads = new ArrayList<>();
+        long[] lengths = new long[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int index = t;
+            threads.add(new Thread(() -> {
+                Random r = new Random(index);
+                long sum = 0;
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    String text = TestSupport.randomLetters(r, r.nextInt(40));
+                    RailFenceCipher.encrypt(text, 3);
+                    sum += text.length();
+                }
+                lengths[index] = sum;
+            }));
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        long total = 0;
+        for (long l : lengths) {
+            total += l;
+        }
+        CipherMetrics.Snapshot rails = find("railfence", "encrypt");
+        TestSupport.checkEquals((long) THREADS * CALLS_PER_THREAD, rails.calls, "multi-thread calls");
+        TestSupport.checkEquals(total, rails.length, "multi-thread length");
+        double expectedSamples = (double) rails.calls / 64;
+        TestSupport.check(Math.abs(rails.samples - expectedSamples) < expectedSamples * 0.2,
+                "about one call in 64 timed, got " + rails.samples + " of " + rails.calls);
+        TestSupport.check(rails.quantileNanos(0.5) > 0 && rails.quantileNanos(0.5) <= rails.quantileNanos(0.99),
+                "latency quantiles");
+        checks += 4;
+
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> RailFenceCipher.encrypt("ABC", 0), "bad key");
+        TestSupport.checkEquals(rails.calls, find("railfence", "encrypt").calls, "calls that throw are not counted");
+        checks += 2;
+
+        String export = CipherMetrics.export();
+        TestSupport.check(export.contains("cns_cipher_calls_total{cipher=\"railfence\",operation=\"encrypt\"} "
+                + rails.calls + "\n"), "exported call count");
+        TestSupport.check(export.contains("cns_cipher_length_total{cipher=\"vigenere\",operation=\"encrypt\"} "
+                + expectedLength + "\n"), "exported length");
+        TestSupport.check(export.contains("cns_cipher_latency_seconds{cipher=\"railfence\",operation=\"encrypt\",quantile=\"0.99\"}"),
+                "exported latency");
+        checks += 3;
+        TestSupport.passed("CipherMetricsTest", checks);
+    }
+
+    private static CipherMetrics.Snapshot find(String cipher, String operation) {
+        for (CipherMetrics.Snapshot s : CipherMetrics.snapshot()) {
+            if (s.cipher.equals(cipher) && s.operation.equals(operation)) {
+                return s;
+            }
+        }
+        TestSupport.fail("no snapshot for " + cipher + "/" + operation);
+        return null;
+    }
+}
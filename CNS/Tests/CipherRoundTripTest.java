@@ -0,0 +1,60 @@
+import CNS.Assignment02.RowColumnTransposition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// Round trips every Cipher factory (and a fused pipeline) through the String and the
+// byte-buffer methods, and checks that both paths agree.
+public class CipherRoundTripTest {
+
+    public static void main(String[] args) {
+        String[] names = {"caesar", "vigenere", "playfair", "hill", "railFence", "columnar", "pipeline",
+                "fusedSubstitution", "twoStages", "fiveStages", "hill3x3", "playfairStages"};
+        Cipher[] ciphers = {
+                Cipher.caesar(-29),
+                Cipher.vigenere("LEMON"),
+                Cipher.playfair("MONARCHY"),
+                Cipher.hill(new int[][] {{3, 3}, {2, 5}}),
+                Cipher.railFence(3),
+                Cipher.columnar("ZEBRAS"),
+                Cipher.pipeline(Cipher.caesar(3), Cipher.columnar("ZEBRAS"), Cipher.railFence(4), Cipher.vigenere("KEY")),
+                Cipher.pipeline(Cipher.vigenere("LEMON"), Cipher.caesar(5), Cipher.vigenere("KEY")),
+                Cipher.pipeline(Cipher.columnar("ZEBRAS"), Cipher.hill(new int[][] {{3, 3}, {2, 5}})),
+                Cipher.pipeline(Cipher.vigenere("LEMON"), Cipher.hill(new int[][] {{3, 3}, {2, 5}}), Cipher.railFence(3),
+                        Cipher.caesar(7), Cipher.columnar("KEY")),
+                Cipher.hill(new int[][] {{6, 24, 1}, {13, 16, 10}, {20, 17, 15}}),
+                Cipher.pipeline(Cipher.caesar(3), Cipher.playfair("KEYWORD"), Cipher.railFence(2)),
+        };
+        Random random = new Random(17);
+        int checks = 0;
+        for (int t = 0; t < 300; t++) {
+            String plain = t == 0 ? "WEAREDISCOVEREDFLEEATONCE" : TestSupport.randomLetters(random, 1 + random.nextInt(200));
+            for (int c = 0; c < ciphers.length; c++) {
+                Cipher cipher = ciphers[c];
+                String what = names[c] + " on " + plain;
+                String encrypted = cipher.encrypt(plain);
+                String decrypted = cipher.decrypt(encrypted, plain.length());
+
+                byte[] in = plain.getBytes(StandardCharsets.US_ASCII);
+                byte[] enc = new byte[cipher.maxOutputLength(in.length)];
+                int n = cipher.encrypt(in, 0, in.length, enc, 0);
+                TestSupport.checkEquals(encrypted, new String(enc, 0, n, StandardCharsets.US_ASCII), what + " (byte encrypt)");
+                byte[] dec = new byte[n];
+                int m = cipher.decrypt(enc, 0, n, dec, 0, plain.length());
+                TestSupport.checkEquals(decrypted, new String(dec, 0, m, StandardCharsets.US_ASCII), what + " (byte decrypt)");
+                if (!names[c].startsWith("playfair")) { // Playfair keeps its inserted X's
+                    TestSupport.checkEquals(plain, decrypted, what + " (round trip)");
+                }
+                checks += 3;
+            }
+        }
+        TestSupport.checkThrows(IllegalArgumentException.class,
+                () -> RowColumnTransposition.decrypt("ABCDEF", "ZEB", -1), "columnar negative plaintext length");
+        TestSupport.checkThrows(IllegalArgumentException.class,
+                () -> RowColumnTransposition.decrypt("ABCDEF", "ZEB", 7), "columnar plaintext longer than ciphertext");
+        TestSupport.checkThrows(IllegalArgumentException.class,
+                () -> RowColumnTransposition.decrypt("ABCDEFG", "ZEB", 5), "columnar ragged ciphertext");
+        checks += 3;
+        TestSupport.passed("CipherRoundTripTest", checks);
+    }
+}
@@ -0,0 +1,254 @@
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Assignment02.TranspositionKey;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+// CipherServer over TCP and a Unix socket: every cipher against the library methods,
+// the fixed wire ids, error responses (including results too large for a frame),
+// malformed frames, connections reset before they are set up, and (where the
+// descriptor limit is low enough to reach) accept failing with too many open files.
+public class CipherServerTest {
+
+    private static final BatchCipher.Algorithm[] CIPHERS = {
+            BatchCipher.Algorithm.CAESAR, BatchCipher.Algorithm.VIGENERE, BatchCipher.Algorithm.PLAYFAIR,
+            BatchCipher.Algorithm.HILL, BatchCipher.Algorithm.RAIL_FENCE, BatchCipher.Algorithm.COLUMNAR};
+    private static final String[] KEYS = {"3", "LEMON", "MONARCHY", "3 3; 2 5", "4", "ZEBRAS"};
+    // The library String methods the server must match
+    private static final List<UnaryOperator<String>> ENCRYPT = List.of(
+            t -> CaesarEngine.encrypt(t, 3), VigenereKey.of("LEMON")::encrypt, PlayfairKey.of("MONARCHY")::encrypt,
+            HillKey.of(new int[][] {{3, 3}, {2, 5}})::encrypt, t -> RailFenceCipher.encrypt(t, 4),
+            TranspositionKey.of("ZEBRAS")::encrypt);
+    private static final List<UnaryOperator<String>> DECRYPT = List.of(
+            t -> CaesarEngine.decrypt(t, 3), VigenereKey.of("LEMON")::decrypt, PlayfairKey.of("MONARCHY")::decrypt,
+            HillKey.of(new int[][] {{3, 3}, {2, 5}})::decrypt, t -> RailFenceCipher.decrypt(t, 4),
+            TranspositionKey.of("ZEBRAS")::decrypt);
+
+    private static int checks;
+
+    public static void main(String[] args) throws Exception {
+        Thread watchdog = new Thread(() -> {
+            try {
+                Thread.sleep(60_000);
+                TestSupport.fail("timed out (server stopped answering)");
+            } catch (InterruptedException e) {
+                // Finished in time
+            }
+        });
+        watchdog.setDaemon(true);
+        watchdog.start();
+
+        Path socket = Files.createTempDirectory("cns").resolve("server.sock");
+        for (SocketAddress address : new SocketAddress[] {
+                new InetSocketAddress("127.0.0.1", 0), UnixDomainSocketAddress.of(socket)}) {
+            try (CipherServer server = CipherServer.start(address, 2)) {
+                ciphers(server.address());
+                wireIds(server.address());
+                errors(server.address());
+                resets(server.address());
+            }
+        }
+        Files.deleteIfExists(socket.getParent());
+        try (CipherServer server = CipherServer.start(new InetSocketAddress("127.0.0.1", 0), 2)) {
+            descriptorsExhausted(server.address());
+        }
+        watchdog.interrupt();
+        TestSupport.passed("CipherServerTest", checks);
+    }
+
+    private static void ciphers(SocketAddress address) throws IOException {
+        Random random = new Random(21);
+        try (CipherClient client = CipherClient.connect(address)) {
+            for (int c = 0; c < CIPHERS.length; c++) {
+                int handle = client.register(CIPHERS[c], KEYS[c]);
+                TestSupport.checkEquals(handle, client.register(CIPHERS[c], KEYS[c]), "same key, same handle");
+                for (int t = 0; t < 50; t++) {
+                    String text = TestSupport.randomText(random, "ABCDEFGHIJKLMNOPQRSTUVWXYZ abcxyz,.!", 300);
+                    String encrypted = client.encrypt(CIPHERS[c], handle, text);
+                    TestSupport.checkEquals(ENCRYPT.get(c).apply(text), encrypted, CIPHERS[c] + " encrypt " + text);
+                    TestSupport.checkEquals(DECRYPT.get(c).apply(encrypted),
+                            client.decrypt(CIPHERS[c], handle, encrypted), CIPHERS[c] + " decrypt " + text);
+                    checks += 2;
+                }
+                checks++;
+            }
+        }
+    }
+
+    // Frames built by hand with the documented ids, so the wire format stays fixed
+    private static void wireIds(SocketAddress address) throws IOException {
+        int[] ids = {0, 1, 2, 3, 4, 5};
+        try (SocketChannel channel = open(address)) {
+            for (int c = 0; c < CIPHERS.length; c++) {
+                TestSupport.checkEquals(CIPHERS[c], CipherProtocol.cipher(ids[c]), "wire id " + ids[c]);
+                byte[] key = CipherProtocol.utf8(KEYS[c]);
+                ByteBuffer response = exchange(channel, c, CipherProtocol.OP_REGISTER, (byte) ids[c], 0, key);
+                TestSupport.checkEquals(CipherProtocol.STATUS_OK, response.get(8), "register over wire id " + ids[c]);
+                int handle = response.getInt(9);
+                response = exchange(channel, 100 + c, CipherProtocol.OP_ENCRYPT, (byte) ids[c], handle,
+                        CipherProtocol.utf8("WEAREDISCOVERED"));
+                TestSupport.checkEquals(100 + c, response.getInt(4), "echoed id");
+                byte[] payload = new byte[response.limit() - 9];
+                response.position(9).get(payload);
+                TestSupport.checkEquals(ENCRYPT.get(c).apply("WEAREDISCOVERED"), new String(payload, StandardCharsets.UTF_8),
+                        "encrypt over wire id " + ids[c]);
+                checks += 4;
+            }
+            ByteBuffer response = exchange(channel, 7, CipherProtocol.OP_ENCRYPT, (byte) 6, 1, new byte[0]);
+            TestSupport.checkEquals(CipherProtocol.STATUS_ERROR, response.get(8), "unknown wire id");
+            checks++;
+        }
+    }
+
+    private static void errors(SocketAddress address) throws IOException {
+        try (CipherClient client = CipherClient.connect(address)) {
+            int caesar = client.register(BatchCipher.Algorithm.CAESAR, "5");
+            TestSupport.checkThrows(UncheckedIOException.class, () -> encrypt(client, BatchCipher.Algorithm.CAESAR, 999_999),
+                    "unknown handle");
+            TestSupport.checkThrows(UncheckedIOException.class, () -> encrypt(client, BatchCipher.Algorithm.VIGENERE, caesar),
+                    "handle of another cipher");
+            TestSupport.checkThrows(UncheckedIOException.class, () -> register(client, BatchCipher.Algorithm.RAIL_FENCE, "0"),
+                    "bad key");
+            // Playfair pads every doubled letter, so this request fits in a frame but its result does not
+            int playfair = client.register(BatchCipher.Algorithm.PLAYFAIR, "MONARCHY");
+            String oversized = "A".repeat(9_000_000);
+            TestSupport.checkThrows(UncheckedIOException.class,
+                    () -> encrypt(client, BatchCipher.Algorithm.PLAYFAIR, playfair, oversized), "result larger than a frame");
+            TestSupport.checkEquals("FGH", client.encrypt(BatchCipher.Algorithm.CAESAR, caesar, "ABC"),
+                    "connection usable after errors");
+            checks += 5;
+        }
+        try (SocketChannel channel = open(address)) {
+            channel.write(ByteBuffer.allocate(8).putInt(2).putInt(0).flip()); // Shorter than a header
+            TestSupport.checkEquals(-1, channel.read(ByteBuffer.allocate(16)), "malformed frame closes");
+            checks++;
+        }
+        try (CipherClient client = CipherClient.connect(address)) {
+            TestSupport.check(client.register(BatchCipher.Algorithm.CAESAR, "5") > 0, "accepting after a malformed frame");
+            checks++;
+        }
+    }
+
+    // Connections reset (RST on TCP) as soon as they are made, while the server is
+    // still setting them up
+    private static void resets(SocketAddress address) throws IOException {
+        for (int i = 0; i < 200; i++) {
+            SocketChannel channel = open(address);
+            if (address instanceof InetSocketAddress) {
+                channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+            }
+            channel.close();
+        }
+        try (CipherClient client = CipherClient.connect(address)) {
+            int handle = client.register(BatchCipher.Algorithm.VIGENERE, "KEY");
+            TestSupport.checkEquals("DIC", client.encrypt(BatchCipher.Algorithm.VIGENERE, handle, "TEE"),
+                    "serving after resets");
+            checks++;
+        }
+    }
+
+    // Uses up every file descriptor so the server's accept() fails, then frees them and
+    // checks that the pending connection is still accepted
+    private static void descriptorsExhausted(SocketAddress address) throws Exception {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (!(os instanceof com.sun.management.UnixOperatingSystemMXBean)
+                || ((com.sun.management.UnixOperatingSystemMXBean) os).getMaxFileDescriptorCount() > 100_000) {
+            System.out.println("skipping the descriptor exhaustion check (limit too high to reach)");
+            return;
+        }
+        CipherClient warm = CipherClient.connect(address); // Loads every class the client needs
+        warm.register(BatchCipher.Algorithm.CAESAR, "1");
+        warm.close();
+        List<FileChannel> held = new ArrayList<>();
+        CipherClient client;
+        try {
+            try {
+                while (true) {
+                    held.add(FileChannel.open(Path.of("/dev/null")));
+                }
+            } catch (IOException e) {
+                // Out of descriptors
+            }
+            held.remove(held.size() - 1).close(); // One for the client; none left for accept()
+            client = CipherClient.connect(address);
+            Thread.sleep(300);
+        } finally {
+            for (FileChannel f : held) {
+                f.close();
+            }
+        }
+        try (CipherClient c = client) {
+            TestSupport.checkEquals("BCD", c.encrypt(BatchCipher.Algorithm.CAESAR,
+                    c.register(BatchCipher.Algorithm.CAESAR, "1"), "ABC"), "accepting after running out of descriptors");
+            checks++;
+        }
+    }
+
+    private static SocketChannel open(SocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address instanceof UnixDomainSocketAddress
+                ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET);
+        channel.connect(address);
+        return channel;
+    }
+
+    // Sends one request frame and returns the whole response frame
+    private static ByteBuffer exchange(SocketChannel channel, int id, byte op, byte cipherId, int handle,
+                                       byte[] payload) throws IOException {
+        ByteBuffer request = ByteBuffer.allocate(CipherProtocol.REQUEST_HEADER + payload.length);
+        request.putInt(CipherProtocol.REQUEST_HEADER - 4 + payload.length).putInt(id).put(op).put(cipherId)
+                .putInt(handle).put(payload).flip();
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+        ByteBuffer length = readFully(channel, 4);
+        ByteBuffer rest = readFully(channel, length.getInt(0));
+        return ByteBuffer.allocate(4 + rest.limit()).put(length).put(rest).flip();
+    }
+
+    private static ByteBuffer readFully(SocketChannel channel, int n) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(n);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Server closed the connection.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void encrypt(CipherClient client, BatchCipher.Algorithm cipher, int handle) {
+        encrypt(client, cipher, handle, "ABC");
+    }
+
+    private static void encrypt(CipherClient client, BatchCipher.Algorithm cipher, int handle, String text) {
+        try {
+            client.encrypt(cipher, handle, text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void register(CipherClient client, BatchCipher.Algorithm cipher, String key) {
+        try {
+            client.register(cipher, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
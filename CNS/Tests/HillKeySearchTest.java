@@ -0,0 +1,39 @@
+import java.util.Arrays;
+
+// HillKeySearch recovers known 2x2 keys from English ciphertexts of a few dozen to a
+// few hundred letters, and its early exit prunes candidates on the short ones too.
+public class HillKeySearchTest {
+
+    private static final String PLAIN =
+            "ITWASTHEBESTOFTIMESITWASTHEWORSTOFTIMESITWASTHEAGEOFWISDOMITWASTHEAGEOFFOOLISHNESS"
+            + "ITWASTHEEPOCHOFBELIEFITWASTHEEPOCHOFINCREDULITYITWASTHESEASONOFLIGHTITWASTHESEASON"
+            + "OFDARKNESSITWASTHESPRINGOFHOPEITWASTHEWINTEROFDESPAIRWEHADEVERYTHINGBEFOREUSWEHAD"
+            + "NOTHINGBEFOREUSWEWEREALLGOINGDIRECTTOHEAVENWEWEREALLGOINGDIRECTTHEOTHERWAYINSHORT";
+
+    private static final int[][][] KEYS = {
+            {{3, 3}, {2, 5}}, {{5, 8}, {17, 3}}, {{7, 2}, {11, 9}}, {{1, 4}, {3, 21}}};
+
+    public static void main(String[] args) {
+        int checks = 0;
+        for (int[][] key : KEYS) {
+            HillKey hill = HillKey.of(key);
+            for (int letters : new int[] {60, 80, 120, 200, PLAIN.length()}) {
+                String plain = PLAIN.substring(0, letters);
+                String cipher = hill.encrypt(plain);
+                HillKeySearch.Result r = HillKeySearch.search(cipher);
+                String what = Arrays.deepToString(key) + " on " + letters + " letters";
+                TestSupport.check(Arrays.deepEquals(key, r.best().key()), what + ": found " + r.best());
+                TestSupport.checkEquals(plain, r.best().decrypt(cipher), what + " plaintext");
+                TestSupport.check(r.rowsPruned() + r.pairsPruned() > 0, what + ": nothing pruned\n" + r);
+                checks += 3;
+            }
+        }
+
+        // Short texts check at least four times, long ones every CHECK_INTERVAL blocks
+        TestSupport.checkEquals(1, HillKeySearch.checkInterval(2), "interval for 2 blocks");
+        TestSupport.checkEquals(10, HillKeySearch.checkInterval(40), "interval for 40 blocks");
+        TestSupport.checkEquals(64, HillKeySearch.checkInterval(1000), "interval for 1000 blocks");
+        checks += 3;
+        TestSupport.passed("HillKeySearchTest", checks);
+    }
+}
@@ -0,0 +1,148 @@
+import CNS.Assignment02.MappedTransposition;
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Assignment02.TranspositionKey;
+import CNS.Common.MappedFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// The memory-mapped file modes give byte-for-byte the output of the in-memory
+// CaesarEngine, VigenereKey, RailFenceCipher and TranspositionKey, and decrypt back to
+// the original, on files from empty up to a few MappedFile chunks (so chunk boundaries
+// and per-chunk key phases are exercised). Substitutions are also run in place.
+public class MappedFileTest {
+
+    private static final String KEY = "ZEBRAS";
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = {0, 1, 2, 7, 4096 + 3, 2 * MappedFile.CHUNK_SIZE + 12_345};
+        Path dir = Files.createTempDirectory("mapped-file-test");
+        int checks = 0;
+        try {
+            Random random = new Random(10);
+            for (int size : sizes) {
+                byte[] data = randomBytes(random, size);
+                Path plain = dir.resolve("plain");
+                Files.write(plain, data);
+                checks += substitutions(dir, plain, data);
+                checks += transpositions(dir, plain, data);
+            }
+        } finally {
+            deleteAll(dir);
+        }
+        TestSupport.passed("MappedFileTest", checks);
+    }
+
+    private static int substitutions(Path dir, Path plain, byte[] data) throws IOException {
+        int n = data.length;
+        Path enc = dir.resolve("enc");
+        Path dec = dir.resolve("dec");
+        String what = " on " + n + " bytes";
+
+        byte[] expected = new byte[n];
+        CaesarEngine.encrypt(data, 0, n, expected, 0, 11);
+        MappedSubstitution.caesarEncrypt(plain, enc, 11);
+        checkFile(expected, enc, "caesar encrypt" + what);
+        byte[] back = new byte[n];
+        CaesarEngine.decrypt(expected, 0, n, back, 0, 11);
+        MappedSubstitution.caesarDecrypt(enc, dec, 11);
+        checkFile(back, dec, "caesar decrypt" + what);
+        MappedSubstitution.caesarDecrypt(enc, enc, 11);
+        checkFile(back, enc, "caesar decrypt in place" + what);
+
+        VigenereKey key = VigenereKey.of("LEMON");
+        key.encrypt(data, 0, n, expected, 0, 0);
+        MappedSubstitution.vigenereEncrypt(plain, enc, "LEMON");
+        checkFile(expected, enc, "vigenere encrypt" + what);
+        key.decrypt(expected, 0, n, back, 0, 0);
+        MappedSubstitution.vigenereDecrypt(enc, dec, "LEMON");
+        checkFile(back, dec, "vigenere decrypt" + what);
+        MappedSubstitution.vigenereDecrypt(enc, enc, "LEMON");
+        checkFile(back, enc, "vigenere decrypt in place" + what);
+        return 6;
+    }
+
+    private static int transpositions(Path dir, Path plain, byte[] data) throws IOException {
+        int n = data.length;
+        Path enc = dir.resolve("enc");
+        Path dec = dir.resolve("dec");
+        String what = " on " + n + " bytes";
+        char[] chars = new String(data, StandardCharsets.ISO_8859_1).toCharArray();
+        int checks = 0;
+
+        // The identity cases (a rail per byte or more) only on the small files; many
+        // rails on the large one, so chunks start deep into the rail table
+        int[] railCounts = n > MappedFile.CHUNK_SIZE
+                ? new int[] {2, 5, 100_000}
+                : new int[] {2, 5, n, n + 1, Integer.MAX_VALUE};
+        for (int rails : railCounts) {
+            if (rails < 1) {
+                continue;
+            }
+            char[] expected = new char[n];
+            RailFenceCipher.encrypt(chars, 0, n, expected, 0, rails);
+            MappedTransposition.railFenceEncrypt(plain, enc, rails);
+            checkFile(latin1(expected), enc, "rail fence " + rails + " encrypt" + what);
+            MappedTransposition.railFenceDecrypt(enc, dec, rails);
+            checkFile(data, dec, "rail fence " + rails + " decrypt" + what);
+            checks += 2;
+        }
+
+        TranspositionKey key = TranspositionKey.of(KEY);
+        char[] expected = new char[key.paddedLength(n)];
+        int m = key.encrypt(chars, 0, n, expected, 0);
+        long written = MappedTransposition.columnarEncrypt(plain, enc, KEY);
+        TestSupport.checkEquals((long) m, written, "columnar length" + what);
+        checkFile(latin1(expected), enc, "columnar encrypt" + what);
+        MappedTransposition.columnarDecrypt(enc, dec, KEY, n);
+        checkFile(data, dec, "columnar decrypt" + what);
+        return checks + 3;
+    }
+
+    // Letters of both cases, spaces, punctuation and bytes above 0x7F
+    private static byte[] randomBytes(Random random, int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            int r = random.nextInt(64);
+            if (r < 26) {
+                data[i] = (byte) ('A' + r);
+            } else if (r < 52) {
+                data[i] = (byte) ('a' + r - 26);
+            } else if (r < 58) {
+                data[i] = ' ';
+            } else if (r < 62) {
+                data[i] = (byte) ".,!?".charAt(r - 58);
+            } else {
+                data[i] = (byte) (0x80 + random.nextInt(128));
+            }
+        }
+        return data;
+    }
+
+    private static byte[] latin1(char[] chars) {
+        return new String(chars).getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static void checkFile(byte[] expected, Path file, String what) throws IOException {
+        byte[] actual = Files.readAllBytes(file);
+        if (!Arrays.equals(expected, actual)) {
+            int i = Arrays.mismatch(expected, actual);
+            TestSupport.fail(what + ": first difference at byte " + i + " of " + expected.length
+                    + " (file has " + actual.length + ")");
+        }
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import CNS.Common.NGramModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+// PlayfairSolver keeps its position table in step with the square under every move type
+// (and every move undoes itself), stops at the threshold or the time budget, delivers
+// improving keys to the callback, and cracks a few hundred letters of English under a
+// fixed-seed key.
+public class PlayfairSolverTest {
+
+    private static final String PLAIN =
+            "ITWASTHEBESTOFTIMESITWASTHEWORSTOFTIMESITWASTHEAGEOFWISDOMITWASTHEAGEOFFOOLISHNESS"
+            + "ITWASTHEEPOCHOFBELIEFITWASTHEEPOCHOFINCREDULITYITWASTHESEASONOFLIGHTITWASTHESEASON"
+            + "OFDARKNESSITWASTHESPRINGOFHOPEITWASTHEWINTEROFDESPAIRWEHADEVERYTHINGBEFOREUSWEHAD"
+            + "NOTHINGBEFOREUSWEWEREALLGOINGDIRECTTOHEAVENWEWEREALLGOINGDIRECTTHEOTHERWAYINSHORT"
+            + "THEPERIODWASSOFARLIKETHEPRESENTPERIODTHATSOMEOFITSNOISIESTAUTHORITIESINSISTEDONITS";
+
+    // Generous for one core; the search normally stops at the threshold well before
+    private static final long CRACK_BUDGET_MILLIS = 120_000;
+
+    public static void main(String[] args) {
+        int checks = moves();
+        NGramModel quadgrams = NGramModel.englishQuadgrams();
+
+        Random random = new Random(15);
+        String key = TestSupport.randomLetters(random, 10);
+        PlayfairKey reference = PlayfairKey.of(key);
+        String cipher = reference.encrypt(PLAIN);
+        String expected = reference.decrypt(cipher);
+
+        // An unreachable threshold runs until the budget is spent
+        PlayfairSolver.Result capped = PlayfairSolver.solve(cipher, 300, 0, quadgrams, null);
+        TestSupport.check(!capped.reachedThreshold(), "threshold of 0 is never reached");
+        TestSupport.check(capped.elapsedNanos() >= 300_000_000L, "ran for the whole budget");
+        checks += 2;
+
+        // A threshold every key reaches ends the search after the first finished chain
+        PlayfairSolver.Result first = PlayfairSolver.solve(cipher, CRACK_BUDGET_MILLIS, Double.NEGATIVE_INFINITY,
+                quadgrams, null);
+        TestSupport.check(first.reachedThreshold(), "any chain reaches an infinitely low threshold");
+        TestSupport.check(first.chains() >= 1 && first.chains() <= Runtime.getRuntime().availableProcessors(),
+                "stopped after the first chains, ran " + first.chains());
+        checks += 2;
+
+        List<PlayfairSolver.Result> improvements = new ArrayList<>();
+        PlayfairSolver.Result result = PlayfairSolver.solve(cipher, CRACK_BUDGET_MILLIS,
+                PlayfairSolver.DEFAULT_THRESHOLD_FACTOR * quadgrams.expectedLogProb(), quadgrams, r -> {
+                    synchronized (improvements) {
+                        improvements.add(r);
+                    }
+                });
+        TestSupport.check(result.reachedThreshold(), "threshold reached, best " + result.scorePerQuadgram()
+                + " per quadgram after " + result.elapsedNanos() / 1_000_000 + " ms");
+        TestSupport.checkEquals(expected, result.decrypt(cipher), "plaintext under the recovered square " + result.key());
+        checks += 2;
+
+        TestSupport.check(!improvements.isEmpty(), "improvements delivered");
+        double previous = Double.NEGATIVE_INFINITY;
+        for (PlayfairSolver.Result r : improvements) {
+            TestSupport.check(r.score() > previous, "improvements delivered in increasing order");
+            previous = r.score();
+        }
+        TestSupport.checkEquals(result.score(), previous, "last improvement is the result");
+        TestSupport.checkEquals(result.key(), improvements.get(improvements.size() - 1).key(), "last improved key");
+        checks += 3 + improvements.size();
+        TestSupport.passed("PlayfairSolverTest", checks);
+    }
+
+    // Every move type keeps square and cellOf consistent, and applying it twice is a no-op
+    private static int moves() {
+        byte[] cipher = new byte[40];
+        PlayfairSolver.Chain chain = new PlayfairSolver.Chain(cipher, NGramModel.englishQuadgrams(), new SplittableRandom(15));
+        SplittableRandom random = new SplittableRandom(16);
+        int checks = 0;
+        for (int round = 0; round < 200; round++) {
+            chain.randomSquare();
+            TestSupport.check(chain.positionsConsistent(), "random square");
+            checks++;
+            for (int move = 0; move < 4; move++) {
+                int x = random.nextInt(25);
+                int y = random.nextInt(25);
+                String before = chain.square();
+                chain.apply(move, x, y);
+                TestSupport.check(chain.positionsConsistent(), "move " + move + " (" + x + ", " + y + ") on " + before);
+                chain.apply(move, x, y);
+                TestSupport.checkEquals(before, chain.square(), "move " + move + " (" + x + ", " + y + ") undone");
+                TestSupport.check(chain.positionsConsistent(), "move " + move + " undone on " + before);
+                chain.apply(move, x, y); // Leave it applied so the next move starts elsewhere
+                checks += 3;
+            }
+        }
+        return checks;
+    }
+}
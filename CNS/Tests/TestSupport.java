@@ -0,0 +1,65 @@
+import java.util.Objects;
+import java.util.Random;
+
+// Shared helpers for the runnable test mains in this directory. Each test is a main()
+// that prints a summary line and exits with status 1 on the first failed check.
+// mvn -B test runs them all; without Maven:
+//
+//   javac -d out $(find CNS -name '*.java' ! -name '*Vector*' ! -path '*/jmh/*') && java -cp out CipherRoundTripTest
+final class TestSupport {
+
+    private TestSupport() {
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            fail(message);
+        }
+    }
+
+    static void checkEquals(Object expected, Object actual, String what) {
+        if (!Objects.equals(expected, actual)) {
+            fail(what + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    // Runs body and checks that it throws an exception of type expected
+    static void checkThrows(Class<? extends Throwable> expected, Runnable body, String what) {
+        try {
+            body.run();
+        } catch (Throwable t) {
+            if (expected.isInstance(t)) {
+                return;
+            }
+            fail(what + ": expected " + expected.getSimpleName() + " but got " + t);
+        }
+        fail(what + ": expected " + expected.getSimpleName() + " but nothing was thrown");
+    }
+
+    static void fail(String message) {
+        System.err.println("FAILED: " + message);
+        System.exit(1);
+    }
+
+    static void passed(String test, int checks) {
+        System.out.println(test + ": " + checks + " checks passed");
+    }
+
+    // Random text of up to maxLen chars drawn from alphabet
+    static String randomText(Random random, String alphabet, int maxLen) {
+        int n = random.nextInt(maxLen + 1);
+        char[] chars = new char[n];
+        for (int i = 0; i < n; i++) {
+            chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+
+    static String randomLetters(Random random, int len) {
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) {
+            chars[i] = (char) ('A' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
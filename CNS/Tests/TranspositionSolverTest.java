@@ -0,0 +1,97 @@
+import CNS.Assignment02.RailFenceCipher;
+import CNS.Assignment02.RowColumnTransposition;
+import CNS.Assignment02.TranspositionKey;
+import CNS.Assignment02.TranspositionSolver;
+import CNS.Common.NGramModel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// TranspositionSolver recovers rail-fence and columnar keys from a few hundred letters
+// of English. It runs with cns.quadgrams naming a missing file, so the quadgram model
+// falls back to the bigram chain (logging the warning seen in the output) instead of
+// failing; loadQuadgrams itself rejects missing, truncated and non-quadgram files
+// with an IOException.
+public class TranspositionSolverTest {
+
+    private static final String PLAIN =
+            "ITWASTHEBESTOFTIMESITWASTHEWORSTOFTIMESITWASTHEAGEOFWISDOMITWASTHEAGEOFFOOLISHNESS"
+            + "ITWASTHEEPOCHOFBELIEFITWASTHEEPOCHOFINCREDULITYITWASTHESEASONOFLIGHTITWASTHESEASON"
+            + "OFDARKNESSITWASTHESPRINGOFHOPEITWASTHEWINTEROFDESPAIRWEHADEVERYTHINGBEFOREUSWEHAD"
+            + "NOTHINGBEFOREUSWEWEREALLGOINGDIRECTTOHEAVENWEWEREALLGOINGDIRECTTHEOTHERWAYINSHORT";
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("transposition-solver-test");
+        int checks = 0;
+        try {
+            System.setProperty(NGramModel.QUADGRAM_FILE_PROPERTY, dir.resolve("missing").toString());
+            NGramModel quadgrams = NGramModel.englishQuadgrams();
+            TestSupport.checkEquals(4, quadgrams.order(), "fallback quadgram model");
+            TestSupport.check(quadgrams == NGramModel.englishQuadgrams(), "fallback built once");
+            checks += 2 + loading(dir, quadgrams);
+        } finally {
+            deleteAll(dir);
+        }
+
+        for (int rails : new int[] {2, 3, 5, 8, 13}) {
+            String cipher = RailFenceCipher.encrypt(PLAIN, rails);
+            TranspositionSolver.RailFenceResult r = TranspositionSolver.solveRailFence(cipher, 20);
+            TestSupport.checkEquals(rails, r.rails(), "rail fence " + rails);
+            TestSupport.checkEquals(PLAIN, r.plaintext(), "rail fence " + rails + " plaintext");
+            checks += 2;
+        }
+
+        for (String key : new String[] {"ZEBRAS", "CIPHER", "KEYWORD"}) {
+            String cipher = RowColumnTransposition.encrypt(PLAIN, key);
+            TranspositionSolver.ColumnarResult r = TranspositionSolver.solveColumnar(cipher, key.length());
+            String what = "columnar " + key;
+            TestSupport.check(Arrays.equals(TranspositionKey.of(key).order(), r.order()),
+                    what + ": found " + Arrays.toString(r.order()));
+            TestSupport.checkEquals(RowColumnTransposition.decrypt(cipher, key), r.plaintext(), what + " plaintext");
+            checks += 2;
+        }
+        TestSupport.passed("TranspositionSolverTest", checks);
+    }
+
+    private static int loading(Path dir, NGramModel quadgrams) throws IOException {
+        Path saved = dir.resolve("quadgrams");
+        quadgrams.save(saved);
+        NGramModel loaded = NGramModel.loadQuadgrams(saved);
+        TestSupport.checkEquals(quadgrams.logProb(12_345), loaded.logProb(12_345), "saved and loaded");
+
+        Path bigrams = dir.resolve("bigrams");
+        NGramModel.englishBigrams().save(bigrams);
+        Path truncated = dir.resolve("truncated");
+        byte[] bytes = Files.readAllBytes(saved);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        Path badOrder = dir.resolve("bad-order");
+        bytes[7] = 9; // The order field
+        Files.write(badOrder, bytes);
+        for (Path bad : new Path[] {dir.resolve("missing"), bigrams, truncated, badOrder}) {
+            TestSupport.checkThrows(UncheckedIOException.class, () -> loadQuadgrams(bad),
+                    "loadQuadgrams(" + bad.getFileName() + ")");
+        }
+        return 5;
+    }
+
+    private static void loadQuadgrams(Path path) {
+        try {
+            NGramModel.loadQuadgrams(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+}
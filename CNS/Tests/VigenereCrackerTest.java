@@ -0,0 +1,82 @@
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// VigenereCracker on degenerate inputs (no key length clears the IC cutoff) and on
+// long English-like texts, through the CharSequence, InputStream and Path entry points.
+public class VigenereCrackerTest {
+
+    private static final String PLAIN =
+            "ITWASTHEBESTOFTIMESITWASTHEWORSTOFTIMESITWASTHEAGEOFWISDOMITWASTHEAGEOFFOOLISHNESS"
+            + "ITWASTHEEPOCHOFBELIEFITWASTHEEPOCHOFINCREDULITYITWASTHESEASONOFLIGHTITWASTHESEASON"
+            + "OFDARKNESSITWASTHESPRINGOFHOPEITWASTHEWINTEROFDESPAIRWEHADEVERYTHINGBEFOREUSWEHAD"
+            + "NOTHINGBEFOREUSWEWEREALLGOINGDIRECTTOHEAVENWEWEREALLGOINGDIRECTTHEOTHERWAYINSHORT"
+            + "THEPERIODWASSOFARLIKETHEPRESENTPERIODTHATSOMEOFITSNOISIESTAUTHORITIESINSISTEDONITS"
+            + "BEINGRECEIVEDFORGOODORFOREVILINTHESUPERLATIVEDEGREEOFCOMPARISONONLYTHEREWEREAKING"
+            + "WITHALARGEJAWANDAQUEENWITHAPLAINFACEONTHETHRONEOFENGLANDTHEREWEREAKINGWITHALARGE"
+            + "JAWANDAQUEENWITHAFAIRFACEONTHETHRONEOFFRANCEINBOTHCOUNTRIESITWASCLEARERTHANCRYSTAL"
+            + "TOTHELORDSOFTHESTATEPRESERVESOFLOAVESANDFISHESTHATTHINGSINGENERALWERESETTLEDFOREVER"
+            + "ITWASTHEYEAROFOURLORDONETHOUSANDSEVENHUNDREDANDSEVENTYFIVESPIRITUALREVELATIONSWERE"
+            + "CONCEDEDTOENGLANDATTHATFAVOUREDPERIODASATTHISMRSSOUTHCOTTHADRECENTLYATTAINEDHERFIVE"
+            + "ANDTWENTIETHBLESSEDBIRTHDAYOFWHOMAPROPHETICPRIVATEINTHELIFEGUARDSHADHERALDEDTHE"
+            + "SUBLIMEAPPEARANCEBYANNOUNCINGTHATARRANGEMENTSWEREMADEFORTHESWALLOWINGUPOFLONDON";
+
+    public static void main(String[] args) throws Exception {
+        int checks = 0;
+        for (String tiny : new String[] {"A", "AB", "ABCD", "QWERTYUIOP", "A B-C.D"}) {
+            VigenereCracker.Result r = VigenereCracker.crack(tiny);
+            TestSupport.check(r.keyLength() >= 1, "key length for " + tiny);
+            TestSupport.checkEquals(r.keyLength(), r.key().length(), "key for " + tiny);
+            checks += 2;
+        }
+
+        String text = PLAIN;
+        Path file = Files.createTempFile("vigenere", ".txt");
+        try {
+            for (String key : new String[] {"LEMON", "CRYPTO", "K", "SECRETKEY"}) {
+                String cipher = SimplifiedCiphers.vigenereEncrypt(text, key);
+                VigenereCracker.Result r = VigenereCracker.crack(cipher);
+                TestSupport.checkEquals(key, r.key(), "key recovered from " + key);
+                TestSupport.checkEquals(text, r.decrypt(cipher), "plaintext under " + key);
+
+                String spaced = spaceOut(cipher, new Random(key.hashCode()));
+                byte[] bytes = spaced.getBytes(StandardCharsets.US_ASCII);
+                Files.write(file, bytes);
+                VigenereCracker.Result fromStream = VigenereCracker.crack(new ByteArrayInputStream(bytes), 20);
+                VigenereCracker.Result fromFile = VigenereCracker.crack(file, 20);
+                TestSupport.checkEquals(key, fromStream.key(), "stream key for " + key);
+                TestSupport.checkEquals(key, fromFile.key(), "file key for " + key);
+                checks += 4;
+            }
+            Files.write(file, "12 34\n".getBytes(StandardCharsets.US_ASCII));
+            TestSupport.checkThrows(IllegalArgumentException.class, () -> crackFile(file), "file without letters");
+            checks++;
+        } finally {
+            Files.delete(file);
+        }
+        TestSupport.passed("VigenereCrackerTest", checks);
+    }
+
+    private static void crackFile(Path file) {
+        try {
+            VigenereCracker.crack(file, 20);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    // Inserts spaces, punctuation and lower case that the cracker must skip
+    private static String spaceOut(String letters, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < letters.length(); i++) {
+            char c = letters.charAt(i);
+            sb.append(random.nextBoolean() ? Character.toLowerCase(c) : c);
+            if (random.nextInt(5) == 0) {
+                sb.append(random.nextBoolean() ? ' ' : ",\n");
+            }
+        }
+        return sb.toString();
+    }
+}